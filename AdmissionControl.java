@@ -0,0 +1,211 @@
+package restaurant;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An AdmissionControl limits how many dishes can be waiting for a Cook at once. A Server asks it to
+ * admit an Order's dishes before placing the Order, and each dish gives its place back when a Cook
+ * sees it or its Order is cancelled. When the kitchen is full the Policy decides what happens: the
+ * Server waits for room, waits up to a timeout, or is turned away at once.
+ *
+ * <p>Places are permits of a fair Semaphore, so an Order with many dishes is not kept waiting for
+ * ever by smaller ones. An Order with more dishes than the limit is always turned away.
+ */
+public class AdmissionControl {
+    
+    /**
+     * What a Server does when there is no room for an Order's dishes.
+     */
+    public enum Policy {
+        /**
+         * Wait until there is room.
+         */
+        BLOCK,
+        /**
+         * Wait until there is room or the timeout runs out, then give up.
+         */
+        TIMED,
+        /**
+         * Give up at once.
+         */
+        REJECT
+    }
+    
+    private final int maxDishes;
+    private final Policy policy;
+    private final long timeoutNanos;
+    private final Semaphore places;
+    private final LongAdder ordersAdmitted = new LongAdder();
+    private final LongAdder ordersRejected = new LongAdder();
+    private final LongAdder ordersDelayed = new LongAdder();
+    private final LongAdder delayNanos = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    
+    /**
+     * Creates a new AdmissionControl that blocks or rejects when more than the specified number of
+     * dishes would be waiting.
+     *
+     * @param maxDishes The largest number of dishes that can be waiting for a Cook
+     * @param policy    BLOCK or REJECT
+     * @throws IllegalArgumentException If maxDishes is less than 1 or the policy is TIMED
+     */
+    public AdmissionControl(int maxDishes, Policy policy) {
+        this(maxDishes, policy, 0, TimeUnit.NANOSECONDS);
+        if (policy == Policy.TIMED) {
+            throw new IllegalArgumentException("The TIMED policy needs a timeout");
+        }
+    }
+    
+    /**
+     * Creates a new AdmissionControl with the specified limit and policy. The timeout is only used
+     * by the TIMED policy.
+     *
+     * @param maxDishes The largest number of dishes that can be waiting for a Cook
+     * @param policy    What to do when there is no room
+     * @param timeout   The longest time a Server waits under the TIMED policy
+     * @param unit      The unit of the timeout
+     * @throws IllegalArgumentException If maxDishes is less than 1 or the timeout is negative
+     */
+    public AdmissionControl(int maxDishes, Policy policy, long timeout, TimeUnit unit) {
+        if (maxDishes < 1) {
+            throw new IllegalArgumentException("At least one dish must be allowed: " + maxDishes);
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Negative timeout: " + timeout);
+        }
+        this.maxDishes = maxDishes;
+        this.policy = policy;
+        this.timeoutNanos = unit.toNanos(timeout);
+        places = new Semaphore(maxDishes, true);
+    }
+    
+    /**
+     * Returns the largest number of dishes that can be waiting for a Cook.
+     *
+     * @return The limit on waiting dishes
+     */
+    public int getMaxDishes() {
+        return maxDishes;
+    }
+    
+    /**
+     * Returns what a Server does when there is no room for an Order's dishes.
+     *
+     * @return The Policy
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * Admits the specified number of dishes if there is room for them, waiting for room as the
+     * Policy says. A Server interrupted while waiting gives up, with its interrupt status set.
+     *
+     * @param dishes The number of dishes in the Order
+     * @return Whether the dishes were admitted
+     */
+    public boolean admit(int dishes) {
+        if (dishes > maxDishes) {
+            ordersRejected.increment();
+            return false;
+        }
+        boolean admitted = places.tryAcquire(dishes);
+        if (!admitted && policy != Policy.REJECT) {
+            ordersDelayed.increment();
+            long start = System.nanoTime();
+            try {
+                if (policy == Policy.BLOCK) {
+                    places.acquire(dishes);
+                    admitted = true;
+                } else {
+                    admitted = places.tryAcquire(dishes, timeoutNanos, TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delayNanos.add(System.nanoTime() - start);
+        }
+        if (admitted) {
+            ordersAdmitted.increment();
+            maxDepth.accumulate(getDepth());
+        } else {
+            ordersRejected.increment();
+        }
+        return admitted;
+    }
+    
+    /**
+     * Gives back the places of the specified number of admitted dishes, because a Cook has seen
+     * them or they will not be made.
+     *
+     * @param dishes The number of dishes
+     */
+    public void release(int dishes) {
+        places.release(dishes);
+    }
+    
+    /**
+     * Returns the number of admitted dishes that are still waiting for a Cook.
+     *
+     * @return The number of dishes waiting
+     */
+    public int getDepth() {
+        return maxDishes - places.availablePermits();
+    }
+    
+    /**
+     * Returns the largest number of admitted dishes that have been waiting for a Cook at once.
+     *
+     * @return The largest depth seen
+     */
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+    
+    /**
+     * Returns the number of Orders whose dishes were admitted.
+     *
+     * @return The number of Orders admitted
+     */
+    public long getOrdersAdmitted() {
+        return ordersAdmitted.sum();
+    }
+    
+    /**
+     * Returns the number of Orders that were turned away, at once or after waiting.
+     *
+     * @return The number of Orders rejected
+     */
+    public long getOrdersRejected() {
+        return ordersRejected.sum();
+    }
+    
+    /**
+     * Returns the number of Orders that had to wait for room, whether or not they got it.
+     *
+     * @return The number of Orders delayed
+     */
+    public long getOrdersDelayed() {
+        return ordersDelayed.sum();
+    }
+    
+    /**
+     * Returns the total time Servers spent waiting for room, in nanoseconds.
+     *
+     * @return The total delay in nanoseconds
+     */
+    public long getTotalDelayNanos() {
+        return delayNanos.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return "AdmissionControl[" + policy + " at " + maxDishes + " dishes: "
+                + getOrdersAdmitted() + " admitted, " + getOrdersDelayed() + " delayed, "
+                + getOrdersRejected() + " rejected, max depth " + getMaxDepth() + "]";
+    }
+    
+}
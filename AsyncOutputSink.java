@@ -0,0 +1,184 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An OutputSink that copies messages into a pending buffer and writes them to a Writer from a
+ * background thread. While the thread is writing one batch, the next batch collects in a second
+ * buffer; the two are swapped each time, so after they have grown to size no memory is allocated.
+ * If the pending buffer gets too far ahead of the Writer, threads writing messages wait for it.
+ */
+public class AsyncOutputSink implements OutputSink {
+    
+    private static final int MAX_PENDING = 1 << 20;
+    
+    private final Writer writer;
+    private final boolean closeWriter;
+    private final ThreadLocal<StringBuilder> buffers =
+            ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasOutput = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private StringBuilder pending = new StringBuilder(8192);
+    private StringBuilder batch = new StringBuilder(8192);
+    private char[] chars = new char[8192];
+    private long charsQueued = 0;
+    private long charsWritten = 0;
+    private boolean closed = false;
+    private IOException failure = null;
+    private Thread flusher = null;
+    
+    /**
+     * Creates a new AsyncOutputSink that writes to the specified Writer. The background thread is
+     * started when the first message is written.
+     *
+     * @param writer      The Writer to write messages to
+     * @param closeWriter Whether to close the Writer when this OutputSink is closed, rather than
+     *                    just flushing it
+     */
+    public AsyncOutputSink(Writer writer, boolean closeWriter) {
+        this.writer = writer;
+        this.closeWriter = closeWriter;
+    }
+    
+    @Override
+    public StringBuilder buffer() {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+    
+    @Override
+    public void write(CharSequence message) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The output has been closed");
+            }
+            if (flusher == null) {
+                flusher = new Thread(this::run, "Output");
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            while (pending.length() >= MAX_PENDING && failure == null) {
+                written.awaitUninterruptibly();
+            }
+            pending.append(message);
+            charsQueued += message.length();
+            hasOutput.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            long target = charsQueued;
+            while (charsWritten < target && failure == null) {
+                written.awaitUninterruptibly();
+            }
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void close() {
+        Thread stopping;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stopping = flusher;
+            hasOutput.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (stopping != null) {
+            boolean interrupted = false;
+            while (stopping.isAlive()) {
+                try {
+                    stopping.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (closeWriter) {
+                writer.close();
+            } else {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        checkFailure();
+    }
+    
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+    
+    /**
+     * Writes batches until this OutputSink is closed and everything pending has been written.
+     */
+    private void run() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.length() == 0 && !closed) {
+                    hasOutput.awaitUninterruptibly();
+                }
+                if (pending.length() == 0) {
+                    return;
+                }
+                StringBuilder full = pending;
+                pending = batch;
+                batch = full;
+            } finally {
+                lock.unlock();
+            }
+            int length = batch.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            batch.getChars(0, length, chars, 0);
+            batch.setLength(0);
+            IOException error = null;
+            try {
+                writer.write(chars, 0, length);
+                writer.flush();
+            } catch (IOException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                charsWritten += length;
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+}
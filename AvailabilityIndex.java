@@ -0,0 +1,258 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * An AvailabilityIndex knows which menu items and mods can be made from what is free in a
+ * Restaurant's Inventory, without looking through the menu. It keeps a reverse index from each
+ * ingredient to the recipes that need it, sorted by how much they need, and a shortage counter for
+ * each recipe: the number of its ingredients that there is not enough of. When an ingredient's
+ * amount changes only the recipes whose need lies between the old and new amounts are touched, so
+ * checking a dish is O(1) however long the menu is.
+ *
+ * <p>The recipes indexed are each menu item with no mods, and each menu item with one of its mods.
+ * A dish with several mods counts as available if the item with each of its mods on its own is, so
+ * mods that add the same ingredient can still, rarely, ask for more than there is.
+ */
+public class AvailabilityIndex implements Inventory.AmountListener {
+    
+    private final Inventory inventory;
+    //For each item, the recipe of the item alone, then of the item with each of its mods
+    private final Map<MenuItem, int[]> recipes = new ConcurrentHashMap<>();
+    private final List<MenuItem> recipeItems = new ArrayList<>(); //The item of each recipe
+    private final AtomicInteger unavailableItems = new AtomicInteger();
+    private volatile AtomicIntegerArray shortages = new AtomicIntegerArray(16);
+    private boolean[] isItem = new boolean[16]; //Whether each recipe is an item with no mods
+    private Needs[] needs = new Needs[0];
+    
+    /**
+     * Creates a new AvailabilityIndex for the specified Inventory with no menu items in it. It must
+     * be set as the Inventory's AmountListener before any are added.
+     *
+     * @param inventory The Inventory whose amounts decide what is available
+     */
+    public AvailabilityIndex(Inventory inventory) {
+        this.inventory = inventory;
+    }
+    
+    /**
+     * Adds the specified menu item and its mods to this index. The item must already have been
+     * added to its Menu. Adding an item again indexes its current ingredients and mods.
+     *
+     * @param item The menu item
+     */
+    public void addItem(MenuItem item) {
+        inventory.runLocked(() -> {
+            int[] old = recipes.get(item);
+            if (old != null) {
+                //The old recipes stay in the ingredients' lists but no longer count
+                if (shortages.get(old[0]) != 0) {
+                    unavailableItems.decrementAndGet();
+                }
+                isItem[old[0]] = false;
+            }
+            Recipe base = item.getRecipe();
+            int[] ids = new int[1 + item.getMods().size()];
+            ids[0] = addRecipe(item, base.getIngredientVector(), true);
+            for (MenuItemMod mod : item.getMods().values()) {
+                ids[1 + item.getModIndex(mod)] = addRecipe(item,
+                        base.withMod(mod).getIngredientVector(), false);
+            }
+            recipes.put(item, ids);
+        });
+    }
+    
+    /**
+     * Adds a recipe while every lock of the Inventory is held, counting the ingredients there is
+     * not already enough of.
+     */
+    private int addRecipe(MenuItem item, IngredientVector vector, boolean itemOnly) {
+        int id = recipeItems.size();
+        recipeItems.add(item);
+        if (id == shortages.length()) {
+            AtomicIntegerArray grown = new AtomicIntegerArray(id * 2);
+            for (int i = 0; i < id; i++) {
+                grown.set(i, shortages.get(i));
+            }
+            shortages = grown;
+            isItem = Arrays.copyOf(isItem, id * 2);
+        }
+        isItem[id] = itemOnly;
+        int missing = 0;
+        for (int i = 0; i < vector.size(); i++) {
+            int ingredient = vector.getID(i);
+            int need = vector.getAmount(i);
+            if (need <= 0) {
+                continue;
+            }
+            if (ingredient >= needs.length) {
+                needs = Arrays.copyOf(needs, Math.max(ingredient + 1, needs.length * 2));
+            }
+            if (needs[ingredient] == null) {
+                needs[ingredient] = new Needs();
+            }
+            needs[ingredient].add(need, id);
+            int amount = inventory.isStocked(ingredient) ? inventory.getFreeAmount(ingredient) : 0;
+            if (amount < need) {
+                missing++;
+            }
+        }
+        if (missing > 0) {
+            shortages.set(id, missing);
+            if (itemOnly) {
+                unavailableItems.incrementAndGet();
+            }
+        }
+        return id;
+    }
+    
+    @Override
+    public void amountChanged(int id, int before, int after) {
+        Needs ingredientNeeds = id < needs.length ? needs[id] : null;
+        if (ingredientNeeds == null) {
+            return;
+        }
+        AtomicIntegerArray counts = shortages;
+        if (after < before) {
+            //Recipes needing more than after but no more than before are now short
+            for (int i = ingredientNeeds.firstAbove(after); i < ingredientNeeds.size
+                    && ingredientNeeds.amounts[i] <= before; i++) {
+                int recipe = ingredientNeeds.recipes[i];
+                if (counts.getAndIncrement(recipe) == 0 && isItem[recipe]) {
+                    unavailableItems.incrementAndGet();
+                }
+            }
+        } else {
+            for (int i = ingredientNeeds.firstAbove(before); i < ingredientNeeds.size
+                    && ingredientNeeds.amounts[i] <= after; i++) {
+                int recipe = ingredientNeeds.recipes[i];
+                if (counts.decrementAndGet(recipe) == 0 && isItem[recipe]) {
+                    unavailableItems.decrementAndGet();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns whether enough is free in stock to make the specified menu item with no mods. Items
+     * that are not in this index count as available.
+     *
+     * @param item The menu item
+     * @return Whether the item can be made
+     */
+    public boolean isAvailable(MenuItem item) {
+        int[] ids = recipes.get(item);
+        return ids == null || shortages.get(ids[0]) == 0;
+    }
+    
+    /**
+     * Returns whether enough is free in stock to make the specified dish with its mods.
+     *
+     * @param dish The dish
+     * @return Whether the dish can be made
+     */
+    public boolean isAvailable(OrderDish dish) {
+        int[] ids = recipes.get(dish.getItem());
+        if (ids == null) {
+            return true;
+        }
+        AtomicIntegerArray counts = shortages;
+        if (dish.getMods().isEmpty()) {
+            return counts.get(ids[0]) == 0;
+        }
+        for (MenuItemMod mod : dish.getMods()) {
+            int index = dish.getItem().getModIndex(mod);
+            if (index + 1 >= ids.length || counts.get(ids[index + 1]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the first dish of the specified Order that cannot be made, or null if they all can.
+     *
+     * @param order The Order
+     * @return A dish that cannot be made, or null
+     */
+    public OrderDish findUnavailable(Order order) {
+        for (OrderDish dish : order.getDishes().values()) {
+            if (!isAvailable(dish)) {
+                return dish;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the number of menu items that cannot be made with no mods right now.
+     *
+     * @return The number of unavailable menu items
+     */
+    public int getUnavailableItemCount() {
+        return unavailableItems.get();
+    }
+    
+    /**
+     * Returns the menu items that cannot be made with no mods right now.
+     *
+     * @return The unavailable menu items
+     */
+    public List<MenuItem> getUnavailableItems() {
+        List<MenuItem> unavailable = new ArrayList<>();
+        for (Map.Entry<MenuItem, int[]> entry : recipes.entrySet()) {
+            if (shortages.get(entry.getValue()[0]) != 0) {
+                unavailable.add(entry.getKey());
+            }
+        }
+        return unavailable;
+    }
+    
+    /**
+     * The recipes that need one ingredient, sorted by the amount they need.
+     */
+    private static class Needs {
+        
+        private int size = 0;
+        private int[] amounts = new int[4];
+        private int[] recipes = new int[4];
+        
+        private void add(int amount, int recipe) {
+            if (size == amounts.length) {
+                amounts = Arrays.copyOf(amounts, size * 2);
+                recipes = Arrays.copyOf(recipes, size * 2);
+            }
+            int index = firstAbove(amount);
+            System.arraycopy(amounts, index, amounts, index + 1, size - index);
+            System.arraycopy(recipes, index, recipes, index + 1, size - index);
+            amounts[index] = amount;
+            recipes[index] = recipe;
+            size++;
+        }
+        
+        /**
+         * Returns the index of the first recipe that needs more than the specified amount.
+         */
+        private int firstAbove(int amount) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (amounts[mid] <= amount) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+    }
+    
+}
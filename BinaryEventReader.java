@@ -0,0 +1,321 @@
+package restaurant;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A BinaryEventReader reads the Events of a file written by a BinaryEventWriter. The file is
+ * memory-mapped, and each name is only turned into a String the first time it appears, so reading
+ * an Event is a matter of decoding a few small numbers.
+ *
+ * <p>Each Event is given the line numbers that an EventReader gave it when reading the events file
+ * the binary file was made from, so errors found when it is applied name the same lines.
+ *
+ * <p>A file without its trailer, or whose trailer does not count the Events before it, is refused:
+ * it was cut short, and replaying it would leave out the Events that were lost.
+ */
+public class BinaryEventReader implements EventSource {
+    
+    private static final long WINDOW_SIZE = 1L << 28;
+    private static final Event.Type[] TYPES = Event.Type.values();
+    
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long eventsEnd; //Where the trailer starts
+    private final long eventCount; //The number of Events the trailer says there are
+    private MappedByteBuffer buffer = null;
+    private long bufferStart = 0;
+    private final Names employees = new Names();
+    private final Names items = new Names();
+    private final Names mods = new Names();
+    private final Names ingredients = new Names();
+    private int lastOrderID = 0;
+    private int lineNum = 1; //The line the next Event's block starts on
+    private long eventsRead = 0;
+    
+    /**
+     * Opens the specified binary events file for reading.
+     *
+     * @param path The path of the binary events file
+     * @throws IOException If the file could not be opened, is not a binary events file of a
+     *                     version that can be read, or has no trailer
+     */
+    public BinaryEventReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileSize = channel.size();
+        map(0);
+        if (fileSize < 8 || buffer.getInt() != BinaryEventWriter.MAGIC
+                || buffer.getInt() != BinaryEventWriter.VERSION) {
+            channel.close();
+            throw new IOException(path + " is not a binary events file");
+        }
+        eventsEnd = fileSize - BinaryEventWriter.TRAILER_SIZE;
+        ByteBuffer trailer = ByteBuffer.allocate(BinaryEventWriter.TRAILER_SIZE);
+        while (eventsEnd >= 8 && trailer.hasRemaining()
+                && channel.read(trailer, eventsEnd + trailer.position()) >= 0) {
+            //Read the whole trailer
+        }
+        if (trailer.hasRemaining() || (trailer.get(0) & 0xFF) != BinaryEventWriter.TRAILER) {
+            channel.close();
+            throw new IOException(path + " has been cut short");
+        }
+        eventCount = trailer.getLong(1);
+    }
+    
+    /**
+     * Returns whether the specified file starts like a binary events file.
+     *
+     * @param path The path of the file
+     * @return Whether the file is a binary events file
+     * @throws IOException If the file could not be read
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && file.read(magic) >= 0) {
+                //Read the whole magic number, if there is one
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == BinaryEventWriter.MAGIC;
+        }
+    }
+    
+    @Override
+    public Event next() throws IOException {
+        if (bufferStart + buffer.position() >= eventsEnd) {
+            if (bufferStart + buffer.position() > eventsEnd || eventsRead != eventCount) {
+                throw new IOException("Binary events file holds " + eventsRead
+                        + " events but its trailer says " + eventCount);
+            }
+            return null;
+        }
+        if (bufferStart + buffer.limit() < fileSize && buffer.remaining() < WINDOW_SIZE / 2) {
+            map(bufferStart + buffer.position());
+        }
+        int start = buffer.position();
+        int[] nameCounts = {employees.count, items.count, mods.count, ingredients.count};
+        int lastOrder = lastOrderID;
+        try {
+            return readEvent();
+        } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException
+                 | IndexOutOfBoundsException e) {
+            //Forget anything the Event had added before it ran out
+            employees.count = nameCounts[0];
+            items.count = nameCounts[1];
+            mods.count = nameCounts[2];
+            ingredients.count = nameCounts[3];
+            lastOrderID = lastOrder;
+            if (e instanceof BufferUnderflowException && bufferStart + buffer.limit() < fileSize
+                    && start > 0) {
+                //The Event runs past the end of the mapped window
+                map(bufferStart + start);
+                return next();
+            }
+            throw new IOException("Corrupt binary event " + (eventsRead + 1), e);
+        }
+    }
+    
+    private Event readEvent() {
+        int type = buffer.get() & 0xFF;
+        if (type >= TYPES.length) {
+            throw new IllegalArgumentException("Unknown event type " + type);
+        }
+        Event event = new Event(TYPES[type], lineNum);
+        switch (event.getType()) {
+            case ORDER:
+                lastOrderID = nextOrderID();
+                event.setOrderID(lastOrderID);
+                event.setTableNum(nextInt());
+                event.setEmployee(employees.next(buffer));
+                int dishLineNum = lineNum + 3;
+                long dishCount = Bytes.getVarLong(buffer);
+                boolean numbered = (dishCount & 1) != 0;
+                int numDishes = checkCount(dishCount >>> 1);
+                for (int i = 0; i < numDishes; i++) {
+                    Event.DishSpec dish = new Event.DishSpec(numbered ? i + 1 : nextInt(),
+                            dishLineNum);
+                    dish.setItem(items.next(buffer));
+                    int numMods = nextCount();
+                    for (int j = 0; j < numMods; j++) {
+                        dish.addMod(mods.next(buffer));
+                    }
+                    event.addDish(dish);
+                    dishLineNum += 2 + numMods;
+                }
+                lineNum = dishLineNum + 1;
+                break;
+            case SEEN:
+            case FILLED:
+                event.setEmployee(employees.next(buffer));
+                event.setOrderID(nextOrderID());
+                readDishIDs(event, nextCount());
+                lineNum += 5;
+                break;
+            case DELIVERED:
+                event.setEmployee(employees.next(buffer));
+                event.setOrderID(nextOrderID());
+                int rejected = nextCount();
+                if (rejected > 0) {
+                    event.setRejectedLine(true);
+                    readDishIDs(event, rejected - 1);
+                    lineNum++;
+                }
+                lineNum += 4;
+                break;
+            case PAID:
+                event.setTableNum(nextInt());
+                lineNum += 3;
+                break;
+            case CHECKED:
+                event.setEmployee(employees.next(buffer));
+                lineNum += 3;
+                break;
+            case RECEIVED:
+                event.setEmployee(employees.next(buffer));
+                int numIngredients = nextCount();
+                for (int i = 0; i < numIngredients; i++) {
+                    int amount = nextInt();
+                    event.addIngredient(ingredients.next(buffer), amount);
+                }
+                lineNum += 3 + numIngredients;
+                break;
+        }
+        eventsRead++;
+        return event;
+    }
+    
+    private void readDishIDs(Event event, int count) {
+        for (int i = 0; i < count; i++) {
+            event.addDishID(nextInt());
+        }
+    }
+    
+    private int nextOrderID() {
+        return Math.toIntExact(lastOrderID + Bytes.getSignedVarLong(buffer));
+    }
+    
+    private int nextInt() {
+        return Math.toIntExact(Bytes.getSignedVarLong(buffer));
+    }
+    
+    private int nextCount() {
+        return checkCount(Bytes.getVarLong(buffer));
+    }
+    
+    private int checkCount(long count) {
+        if (count < 0) { //Over 2^63, which no writer makes
+            throw new IllegalArgumentException("Bad count " + Long.toUnsignedString(count));
+        }
+        if (count > buffer.remaining()) { //Each thing counted takes at least a byte
+            throw new BufferUnderflowException();
+        }
+        return (int) count;
+    }
+    
+    private void map(long start) throws IOException {
+        bufferStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.min(WINDOW_SIZE, fileSize - start));
+    }
+    
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    /**
+     * Writes every Event in the specified binary events file to the specified events file as text
+     * that an EventReader reads back into the same Events, with the same line numbers. The text is
+     * written to a temporary file next to it that is only moved into place once every Event has
+     * been written, so if the binary file could not be read the events file is left as it was.
+     *
+     * @param binary The path of the binary events file
+     * @param text   The path of the events file to write, which is replaced if it exists
+     * @return The number of Events written
+     * @throws IOException If a file could not be read or written
+     */
+    public static long convert(Path binary, Path text) throws IOException {
+        long written = 0;
+        StringBuilder block = new StringBuilder();
+        Path temp = text.resolveSibling(text.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            try (BinaryEventReader reader = new BinaryEventReader(binary);
+                 BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                Event event = reader.next();
+                while (event != null) {
+                    block.setLength(0);
+                    event.writeText(block);
+                    out.append(block);
+                    written++;
+                    event = reader.next();
+                }
+            }
+            Files.move(temp, text, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return written;
+    }
+    
+    /**
+     * The names of one kind seen so far, by their index.
+     */
+    private static class Names {
+        
+        private String[] names = new String[64];
+        private int count = 0;
+        
+        /**
+         * Reads a name written by BinaryEventWriter.putName.
+         */
+        String next(ByteBuffer in) {
+            long index = Bytes.getVarLong(in);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown name " + Long.toUnsignedString(index));
+            }
+            if (index > 0) {
+                if (index > count) {
+                    throw new IllegalArgumentException("Unknown name " + index);
+                }
+                return names[(int) index - 1];
+            }
+            long length = Bytes.getVarLong(in);
+            if (length < 0) {
+                throw new IllegalArgumentException("Bad name length "
+                        + Long.toUnsignedString(length));
+            }
+            if (length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] encoded = new byte[(int) length];
+            in.get(encoded);
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+            }
+            String name = new String(encoded, StandardCharsets.UTF_8);
+            names[count++] = name;
+            return name;
+        }
+        
+    }
+    
+}
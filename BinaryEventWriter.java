@@ -0,0 +1,223 @@
+package restaurant;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A BinaryEventWriter writes Events to a file in a compact binary form that a BinaryEventReader
+ * reads back, for archiving events files in a fraction of the space and replaying them without
+ * parsing text.
+ *
+ * <p>The file starts with a magic number and a version. Each Event is then a byte for its type
+ * followed by its fields, with numbers written in as few bytes as they need. Order numbers are
+ * written as the difference from the last ORDER event's, so they usually take one byte, and the
+ * ids of an order's dishes are left out when they are numbered from 1 as usual. Each name of an
+ * employee, MenuItem, mod or ingredient is written out in full only the first time it appears,
+ * and after that as its index among the names of its kind, so each kind of name is a dictionary
+ * built up as the file is read.
+ *
+ * <p>The file ends with a trailer: a byte that is not an event type, followed by the number of
+ * Events in the file. It is written when the BinaryEventWriter is closed, so a BinaryEventReader
+ * refuses a file that was cut short instead of replaying part of it as if it were whole.
+ *
+ * <p>Line numbers are not written. A block of events.txt that could be read to the end takes a
+ * fixed number of lines for what it holds, so a BinaryEventReader works out the line numbers an
+ * EventReader would have given each Event of the original file. For this reason an Event with an
+ * error line cannot be written.
+ */
+public class BinaryEventWriter implements Closeable {
+    
+    static final int MAGIC = 0x52455654; //"REVT"
+    static final int VERSION = 2;
+    static final int TRAILER = 0xFF; //Starts the trailer in place of an event type
+    static final int TRAILER_SIZE = 9;
+    
+    private static final int FLUSH_SIZE = 1 << 16;
+    
+    private final FileChannel channel;
+    private final Bytes out = new Bytes(FLUSH_SIZE * 2);
+    private final Map<String, Integer> employees = new HashMap<>();
+    private final Map<String, Integer> items = new HashMap<>();
+    private final Map<String, Integer> mods = new HashMap<>();
+    private final Map<String, Integer> ingredients = new HashMap<>();
+    private int lastOrderID = 0;
+    private long eventsWritten = 0;
+    
+    /**
+     * Creates the specified file, replacing any that is there, and writes the header to it.
+     *
+     * @param path The path of the binary events file
+     * @throws IOException If the file could not be created
+     */
+    public BinaryEventWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+    }
+    
+    /**
+     * Returns the number of Events written so far.
+     *
+     * @return The number of Events written
+     */
+    public long getEventsWritten() {
+        return eventsWritten;
+    }
+    
+    /**
+     * Writes the specified Event after the ones written before it. Its line numbers must follow on
+     * from theirs, as they do when the Events are read from one events file.
+     *
+     * @param event The Event to write
+     * @throws EventFormatException If the Event has an error line, which is reported
+     * @throws IOException          If the file could not be written
+     */
+    public void write(Event event) throws IOException {
+        if (event.getErrorLineNum() > 0) {
+            throw new EventFormatException(event.getErrorLineNum());
+        }
+        out.putByte(event.getType().ordinal());
+        switch (event.getType()) {
+            case ORDER:
+                out.putSignedVarLong((long) event.getOrderID() - lastOrderID);
+                lastOrderID = event.getOrderID();
+                out.putSignedVarLong(event.getTableNum());
+                putName(employees, event.getEmployee());
+                //Twice the number of dishes, plus 1 if they are numbered from 1 and their ids left out
+                boolean numbered = true;
+                for (int i = 0; i < event.getDishes().size(); i++) {
+                    numbered &= event.getDishes().get(i).getID() == i + 1;
+                }
+                out.putVarLong(event.getDishes().size() * 2L + (numbered ? 1 : 0));
+                for (Event.DishSpec dish : event.getDishes()) {
+                    if (!numbered) {
+                        out.putSignedVarLong(dish.getID());
+                    }
+                    putName(items, dish.getItem());
+                    out.putVarLong(dish.getMods().size());
+                    for (String mod : dish.getMods()) {
+                        putName(mods, mod);
+                    }
+                }
+                break;
+            case SEEN:
+            case FILLED:
+                putName(employees, event.getEmployee());
+                out.putSignedVarLong((long) event.getOrderID() - lastOrderID);
+                putDishIDs(event, event.getDishIDCount());
+                break;
+            case DELIVERED:
+                putName(employees, event.getEmployee());
+                out.putSignedVarLong((long) event.getOrderID() - lastOrderID);
+                //One more than the number of rejected dishes, or 0 if there is no "Rejected" line
+                putDishIDs(event, event.hasRejectedLine() ? event.getDishIDCount() + 1 : 0);
+                break;
+            case PAID:
+                out.putSignedVarLong(event.getTableNum());
+                break;
+            case CHECKED:
+                putName(employees, event.getEmployee());
+                break;
+            case RECEIVED:
+                putName(employees, event.getEmployee());
+                out.putVarLong(event.getIngredientCount());
+                for (int i = 0; i < event.getIngredientCount(); i++) {
+                    out.putSignedVarLong(event.getIngredientAmount(i));
+                    putName(ingredients, event.getIngredient(i));
+                }
+                break;
+        }
+        eventsWritten++;
+        if (out.size() >= FLUSH_SIZE) {
+            out.writeTo(channel);
+            out.clear();
+        }
+    }
+    
+    private void putDishIDs(Event event, int count) {
+        out.putVarLong(count);
+        for (int i = 0; i < event.getDishIDCount(); i++) {
+            out.putSignedVarLong(event.getDishID(i));
+        }
+    }
+    
+    /**
+     * Writes a name as one more than its index among the names of its kind, or as 0 followed by the
+     * name itself if it has not been written before.
+     */
+    private void putName(Map<String, Integer> names, String name) {
+        Integer index = names.get(name);
+        if (index != null) {
+            out.putVarLong(index + 1);
+            return;
+        }
+        names.put(name, names.size());
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        out.putVarLong(0);
+        out.putVarLong(encoded.length);
+        out.put(encoded, 0, encoded.length);
+    }
+    
+    /**
+     * Writes out the Events still buffered and the trailer, and closes the file.
+     *
+     * @throws IOException If the file could not be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.putByte(TRAILER);
+            out.putLong(eventsWritten);
+            out.writeTo(channel);
+            out.clear();
+        } finally {
+            channel.close();
+        }
+    }
+    
+    /**
+     * Reads every Event from the specified EventSource and writes it to the specified file, closing
+     * both afterwards. The Events are written to a temporary file next to it that is only moved
+     * into place once every one has been written, so if one could not be read the file is left as
+     * it was.
+     *
+     * @param source Where the Events are read from
+     * @param path   The path of the binary events file to write
+     * @return The number of Events written
+     * @throws EventFormatException If an Event could not be read or has an error line
+     * @throws IOException          If a file could not be read or written
+     */
+    public static long convert(EventSource source, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        boolean moved = false;
+        try (EventSource events = source) {
+            long written;
+            try (BinaryEventWriter writer = new BinaryEventWriter(temp)) {
+                Event event = events.next();
+                while (event != null) {
+                    writer.write(event);
+                    event = events.next();
+                }
+                written = writer.getEventsWritten();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+            return written;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+    
+}
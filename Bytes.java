@@ -0,0 +1,181 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A growable array of bytes that binary files such as Checkpoints and EventLogs are written into.
+ * Numbers are written big-endian, as ByteBuffer reads them by default.
+ */
+class Bytes {
+    
+    private byte[] bytes;
+    private int size = 0;
+    
+    Bytes() {
+        this(4096);
+    }
+    
+    Bytes(int capacity) {
+        bytes = new byte[capacity];
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    void clear() {
+        size = 0;
+    }
+    
+    private void ensureRoom(int room) {
+        if (size + room > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + room, bytes.length * 2));
+        }
+    }
+    
+    void putInt(int value) {
+        ensureRoom(4);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+    
+    /**
+     * Replaces the four bytes at the specified position with an int, such as a length that was not
+     * known when it was reserved.
+     */
+    void setInt(int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+    
+    void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+    
+    void putByte(int value) {
+        ensureRoom(1);
+        bytes[size++] = (byte) value;
+    }
+    
+    /**
+     * Writes a non-negative number in as few bytes as it needs, seven bits to a byte with the low
+     * bits first and the top bit of every byte but the last set.
+     */
+    void putVarLong(long value) {
+        ensureRoom(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+    
+    /**
+     * Writes a number that may be negative with putVarLong, zigzag-encoded so that numbers near 0
+     * take one byte whatever their sign.
+     */
+    void putSignedVarLong(long value) {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+    
+    void putBoolean(boolean value) {
+        ensureRoom(1);
+        bytes[size++] = (byte) (value ? 1 : 0);
+    }
+    
+    /**
+     * Writes a String as the length of its UTF-8 encoding followed by the encoding. A null String
+     * is written as a length of -1.
+     */
+    void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        putInt(encoded.length);
+        put(encoded, 0, encoded.length);
+    }
+    
+    void put(byte[] source, int offset, int length) {
+        ensureRoom(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+    
+    void put(Bytes source) {
+        put(source.bytes, 0, source.size);
+    }
+    
+    /**
+     * Returns the CRC32 of the bytes from the specified position to the end.
+     */
+    int crc(int from) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, from, size - from);
+        return (int) crc.getValue();
+    }
+    
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+    
+    /**
+     * Writes every byte to the specified channel.
+     */
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Reads a number written by putVarLong.
+     *
+     * @throws IllegalArgumentException If the number runs on for more than ten bytes
+     */
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length number");
+    }
+    
+    /**
+     * Reads a number written by putSignedVarLong.
+     */
+    static long getSignedVarLong(ByteBuffer in) {
+        long value = getVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * Reads a String written by putString.
+     */
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] encoded = new byte[length];
+        in.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+    
+}
@@ -0,0 +1,463 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * A Checkpoint is a compact binary snapshot of everything that changes in a Restaurant while it
+ * runs: the amount of every ingredient, the Orders that have been placed and which of their dishes
+ * have ingredients held for them, the unseen dishes, the dishes each Cook is making, the ready
+ * Orders and each Table's received dishes and bill. It also
+ * records the Orders known to an EventApplier and how many Events it has applied, so that a
+ * restarted Restaurant can carry on from the next Event instead of replaying the whole history.
+ *
+ * <p>The things that come from the input files, such as the menu, staff and thresholds, are not in
+ * a Checkpoint. It is restored into a new Restaurant built from the same files, and names are used
+ * to find the ingredients, menu items, mods, Cooks and the Servers who placed Orders again.
+ *
+ * <p>Capturing a Checkpoint only copies the state into memory, which takes far less time than
+ * writing it out; writeAsync then writes it on a background thread while the Restaurant carries on.
+ * A Checkpoint should be captured between Events, by the thread applying them.
+ */
+public class Checkpoint {
+    
+    private static final int MAGIC = 0x52434B50; //"RCKP"
+    private static final int VERSION = 3;
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Checkpoint writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final byte[] data;
+    private final long eventsApplied;
+    
+    private Checkpoint(byte[] data, long eventsApplied) {
+        this.data = data;
+        this.eventsApplied = eventsApplied;
+    }
+    
+    /**
+     * Captures a Checkpoint of the specified Restaurant and EventApplier.
+     *
+     * @param restaurant The Restaurant
+     * @param applier    The EventApplier applying Events to the Restaurant
+     * @return A Checkpoint of their current state
+     */
+    public static Checkpoint capture(Restaurant restaurant, EventApplier applier) {
+        return new Writer(restaurant, applier).write();
+    }
+    
+    /**
+     * Returns the number of Events that had been applied when this Checkpoint was captured.
+     *
+     * @return The number of Events applied
+     */
+    public long getEventsApplied() {
+        return eventsApplied;
+    }
+    
+    /**
+     * Returns the size of this Checkpoint in bytes.
+     *
+     * @return The size of this Checkpoint
+     */
+    public int size() {
+        return data.length;
+    }
+    
+    /**
+     * Writes this Checkpoint to the specified file. It is written to a temporary file next to it,
+     * forced to disk and then moved into place, so the file always holds a whole Checkpoint.
+     *
+     * @param path The file to write
+     * @throws IOException If the file could not be written
+     */
+    public void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Writes this Checkpoint to the specified file on a background thread, as write does.
+     * Checkpoints written this way are written one at a time, in the order writeAsync was called.
+     *
+     * @param path The file to write
+     * @return A CompletableFuture that completes when the file has been written
+     */
+    public CompletableFuture<Void> writeAsync(Path path) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
+    }
+    
+    /**
+     * Reads a Checkpoint from the specified file.
+     *
+     * @param path The file to read
+     * @return The Checkpoint in the file
+     * @throws IOException If the file could not be read or does not hold a whole Checkpoint
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        if (data.length < 20) {
+            throw new IOException("Truncated checkpoint " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(data.length - 4) != (int) crc.getValue()) {
+            throw new IOException("Corrupt checkpoint " + path);
+        }
+        return new Checkpoint(data, buffer.getLong(8));
+    }
+    
+    /**
+     * Restores this Checkpoint into the specified Restaurant and EventApplier. The Restaurant must
+     * have been built from the same input files as the one this Checkpoint was captured from, and no
+     * Orders should have been placed in it.
+     *
+     * @param restaurant The Restaurant to restore
+     * @param applier    The EventApplier that will apply Events to the Restaurant
+     * @throws IOException If this Checkpoint names something that is not in the Restaurant
+     */
+    public void restore(Restaurant restaurant, EventApplier applier) throws IOException {
+        try {
+            new Reader(restaurant).read(applier);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt checkpoint", e);
+        }
+    }
+    
+    /**
+     * Writes the body of a Checkpoint, collecting the names it uses into a table that is written
+     * before it.
+     */
+    private static class Writer {
+        
+        private final Restaurant restaurant;
+        private final EventApplier applier;
+        private final Map<String, Integer> names = new LinkedHashMap<>();
+        private final Map<Order, Integer> orderIndexes = new IdentityHashMap<>();
+        private final List<Order> orders = new ArrayList<>();
+        private final Bytes body = new Bytes();
+        
+        Writer(Restaurant restaurant, EventApplier applier) {
+            this.restaurant = restaurant;
+            this.applier = applier;
+        }
+        
+        Checkpoint write() {
+            //Copy the live collections first, so that the Orders found are the ones written
+            int[] amounts = restaurant.getInventory().getAmounts();
+            Map<Integer, Order> numbered = new TreeMap<>(applier.getOrders());
+            long eventsApplied = applier.getEventsApplied();
+            OrderDish[] unseen = restaurant.getUnseenDishes().toArray(new OrderDish[0]);
+            Map<Cook, OrderDish[]> making = new LinkedHashMap<>();
+            for (Cook cook : restaurant.getCooks()) {
+                making.put(cook, cook.getMakingDishes().toArray(new OrderDish[0]));
+            }
+            Order[] ready = restaurant.getReadyOrders().toArray(new Order[0]);
+            OrderDish[][] received = new OrderDish[restaurant.getNumTables()][];
+            long[] bills = new long[received.length];
+            for (int i = 0; i < received.length; i++) {
+                Table table = restaurant.getTable(i + 1);
+                received[i] = table.getReceivedDishes().toArray(new OrderDish[0]);
+                bills[i] = table.getBillAmount();
+            }
+            for (Order order : numbered.values()) {
+                addOrder(order);
+            }
+            addOrders(unseen);
+            for (OrderDish[] dishes : making.values()) {
+                addOrders(dishes);
+            }
+            for (Order order : ready) {
+                addOrder(order);
+            }
+            for (OrderDish[] dishes : received) {
+                addOrders(dishes);
+            }
+            
+            IngredientTable ingredients = restaurant.getIngredientTable();
+            int numStocked = 0;
+            for (int id = 0; id < amounts.length; id++) {
+                if (restaurant.getInventory().isStocked(id)) {
+                    numStocked++;
+                }
+            }
+            body.putInt(numStocked);
+            for (int id = 0; id < amounts.length; id++) {
+                if (restaurant.getInventory().isStocked(id)) {
+                    writeName(ingredients.getName(id));
+                    body.putInt(amounts[id]);
+                }
+            }
+            Map<Order, Integer> numbers = new IdentityHashMap<>();
+            for (Map.Entry<Integer, Order> entry : numbered.entrySet()) {
+                numbers.put(entry.getValue(), entry.getKey());
+            }
+            body.putInt(orders.size());
+            for (Order order : orders) {
+                Integer number = numbers.get(order);
+                body.putBoolean(number != null);
+                body.putInt(number != null ? number : 0);
+                body.putInt(order.getTable().getNum());
+                Server server = order.getServer();
+                body.putBoolean(server != null);
+                if (server != null) {
+                    writeName(server.getName());
+                }
+                body.putInt(order.getDishes().size());
+                for (OrderDish dish : order.getDishes().values()) {
+                    body.putInt(dish.getID());
+                    writeName(dish.getItem().getName());
+                    body.putBoolean(dish.isFilled());
+                    body.putBoolean(dish.isHeld());
+                    body.putInt(dish.getMods().size());
+                    for (MenuItemMod mod : dish.getMods()) {
+                        writeName(mod.getName());
+                    }
+                }
+            }
+            writeDishes(unseen);
+            body.putInt(making.size());
+            for (Map.Entry<Cook, OrderDish[]> entry : making.entrySet()) {
+                writeName(entry.getKey().getName());
+                writeDishes(entry.getValue());
+            }
+            body.putInt(ready.length);
+            for (Order order : ready) {
+                body.putInt(orderIndexes.get(order));
+            }
+            body.putInt(received.length);
+            for (int i = 0; i < received.length; i++) {
+                body.putLong(bills[i]);
+                writeDishes(received[i]);
+            }
+            
+            Bytes out = new Bytes();
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(eventsApplied);
+            out.putInt(names.size());
+            for (String name : names.keySet()) {
+                out.putString(name);
+            }
+            out.put(body);
+            out.putInt(out.crc(0));
+            return new Checkpoint(out.toByteArray(), eventsApplied);
+        }
+        
+        private void addOrder(Order order) {
+            if (order != null && !orderIndexes.containsKey(order)) {
+                orderIndexes.put(order, orders.size());
+                orders.add(order);
+            }
+        }
+        
+        private void addOrders(OrderDish[] dishes) {
+            for (OrderDish dish : dishes) {
+                addOrder(dish.getOrder());
+            }
+        }
+        
+        private void writeName(String name) {
+            Integer index = names.get(name);
+            if (index == null) {
+                index = names.size();
+                names.put(name, index);
+            }
+            body.putInt(index);
+        }
+        
+        /**
+         * Writes each dish as the index of its Order and its id, leaving out dishes with no Order.
+         */
+        private void writeDishes(OrderDish[] dishes) {
+            int count = 0;
+            for (OrderDish dish : dishes) {
+                if (dish.getOrder() != null) {
+                    count++;
+                }
+            }
+            body.putInt(count);
+            for (OrderDish dish : dishes) {
+                if (dish.getOrder() != null) {
+                    body.putInt(orderIndexes.get(dish.getOrder()));
+                    body.putInt(dish.getID());
+                }
+            }
+        }
+        
+    }
+    
+    /**
+     * Reads a Checkpoint back into a Restaurant.
+     */
+    private class Reader {
+        
+        private final Restaurant restaurant;
+        private final ByteBuffer in;
+        private String[] names;
+        private Order[] orders;
+        
+        Reader(Restaurant restaurant) {
+            this.restaurant = restaurant;
+            in = ByteBuffer.wrap(data, 16, data.length - 20);
+        }
+        
+        void read(EventApplier applier) throws IOException {
+            names = new String[in.getInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = Bytes.getString(in);
+            }
+            
+            Inventory inventory = restaurant.getInventory();
+            int numIngredients = in.getInt();
+            for (int i = 0; i < numIngredients; i++) {
+                String ingredient = readName();
+                int id = restaurant.getIngredientTable().getID(ingredient);
+                if (!inventory.isStocked(id)) {
+                    throw new IOException("Checkpoint ingredient " + ingredient + " is not stocked");
+                }
+                inventory.restoreAmount(id, in.getInt());
+            }
+            Map<Integer, Order> numbered = new HashMap<>();
+            orders = new Order[in.getInt()];
+            for (int i = 0; i < orders.length; i++) {
+                boolean hasNumber = in.get() != 0;
+                int number = in.getInt();
+                orders[i] = readOrder();
+                if (hasNumber) {
+                    numbered.put(number, orders[i]);
+                }
+            }
+            restaurant.getUnseenDishes().addAll(readDishes());
+            int numCooks = in.getInt();
+            for (int i = 0; i < numCooks; i++) {
+                String name = readName();
+                Cook cook = restaurant.getCook(name);
+                if (cook == null) {
+                    throw new IOException("Checkpoint cook " + name + " is not in the restaurant");
+                }
+                for (OrderDish dish : readDishes()) {
+                    cook.resumeDish(dish);
+                }
+            }
+            int numReady = in.getInt();
+            for (int i = 0; i < numReady; i++) {
+                restaurant.markOrderFilled(orders[in.getInt()]);
+            }
+            int numTables = in.getInt();
+            if (numTables != restaurant.getNumTables()) {
+                throw new IOException("Checkpoint has " + numTables + " tables");
+            }
+            for (int i = 1; i <= numTables; i++) {
+                long billAmount = in.getLong();
+                restaurant.getTable(i).restoreBill(readDishes(), billAmount);
+            }
+            applier.restore(numbered, eventsApplied);
+        }
+        
+        private String readName() {
+            return names[in.getInt()];
+        }
+        
+        private Order readOrder() throws IOException {
+            int tableNum = in.getInt();
+            Table table = restaurant.getTable(tableNum);
+            if (table == null) {
+                throw new IOException("Checkpoint table " + tableNum + " is not in the restaurant");
+            }
+            Order order = new Order(table);
+            if (in.get() != 0) {
+                //Restored before the ready Orders, so they go to the Server who placed them
+                String serverName = readName();
+                Server server = restaurant.getServer(serverName);
+                if (server == null) {
+                    throw new IOException("Checkpoint server " + serverName
+                            + " is not in the restaurant");
+                }
+                order.setServer(server);
+            }
+            int numDishes = in.getInt();
+            for (int i = 0; i < numDishes; i++) {
+                int id = in.getInt();
+                String itemName = readName();
+                MenuItem item = restaurant.getMenu().getItem(itemName);
+                if (item == null) {
+                    throw new IOException("Checkpoint menu item " + itemName + " is not on the menu");
+                }
+                OrderDish dish = new OrderDish(id, item);
+                if (in.get() != 0) {
+                    dish.fill();
+                }
+                boolean held = in.get() != 0;
+                int numMods = in.getInt();
+                for (int j = 0; j < numMods; j++) {
+                    String modName = readName();
+                    MenuItemMod mod = item.getMod(modName);
+                    if (mod == null) {
+                        throw new IOException("Checkpoint mod " + modName + " is not a mod of "
+                                + itemName);
+                    }
+                    dish.addMod(mod);
+                }
+                if (held) {
+                    //The amounts restored already count what was held, so it is held again
+                    if (!restaurant.getInventory().hold(dish.getIngredientVector())) {
+                        throw new IOException("Checkpoint holds more " + itemName
+                                + " ingredients than are in stock");
+                    }
+                    dish.setHeld();
+                }
+                order.addDish(dish);
+            }
+            return order;
+        }
+        
+        private Collection<OrderDish> readDishes() {
+            int count = in.getInt();
+            List<OrderDish> dishes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                dishes.add(orders[in.getInt()].getDish(in.getInt()));
+            }
+            return dishes;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,403 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A ConfigImage is restaurant.txt, ingredients.txt and menu.txt compiled into one binary file, so
+ * that a Restaurant can be built without reading and checking the text files again. It holds the
+ * number of tables, the names of the staff, the ingredients in the order of their ids in the
+ * IngredientTable with the thresholds and starting amounts of those in stock, and each menu item
+ * with its mods in the order of their indexes. The ingredients of items and mods are written as
+ * ids, so every name is written once.
+ *
+ * <p>The file is memory-mapped when it is read and nothing is decoded until it is asked for: the
+ * names are kept as a table of offsets and each is only turned into a String the first time it is
+ * used, and the menu is only decoded when items are added to a Menu.
+ *
+ * <p>The file starts with a magic number and a version and ends with a CRC32 of everything before
+ * it, so an image that is damaged or from another version is refused instead of misread.
+ */
+public class ConfigImage {
+    
+    static final int MAGIC = 0x52434647; //"RCFG"
+    static final int VERSION = 1;
+    
+    private static final int HEADER_SIZE = 24;
+    
+    private final ByteBuffer data;
+    private final int namesStart;
+    private final int namesCount;
+    private final String[] names;
+    
+    private ConfigImage(ByteBuffer data) {
+        this.data = data;
+        namesStart = HEADER_SIZE;
+        namesCount = data.getInt(namesStart);
+        names = new String[namesCount];
+    }
+    
+    /**
+     * Captures the configuration of the specified Restaurant, which must have been built from the
+     * input files with no Events applied to it and no requests made, so that the amounts in its
+     * inventory are still the starting amounts.
+     *
+     * @param restaurant The Restaurant to capture
+     * @return The ConfigImage
+     */
+    public static ConfigImage capture(Restaurant restaurant) {
+        return new Writer().write(restaurant);
+    }
+    
+    /**
+     * Maps the ConfigImage in the specified file.
+     *
+     * @param path The file to read
+     * @return The ConfigImage in the file
+     * @throws IOException If the file could not be read or does not hold a whole ConfigImage of
+     *                     this version
+     */
+    public static ConfigImage read(Path path) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Config image " + path + " is too large");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = data.limit();
+        if (size < HEADER_SIZE + 8 || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a config image of version " + VERSION);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate().limit(size - 4));
+        if (data.getInt(size - 4) != (int) crc.getValue()) {
+            throw new IOException("Corrupt config image " + path);
+        }
+        return new ConfigImage(data);
+    }
+    
+    /**
+     * Writes this ConfigImage to the specified file, replacing any that is there. It is written to a
+     * temporary file next to it, forced to disk and then moved into place, so a failed write leaves
+     * the old file as it was.
+     *
+     * @param path The file to write
+     * @throws IOException If the file could not be written
+     */
+    public void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = data.duplicate().clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of tables.
+     *
+     * @return The number of tables
+     */
+    public int getNumTables() {
+        return data.getInt(8);
+    }
+    
+    /**
+     * Returns the names of the Cooks.
+     *
+     * @return The names of the Cooks
+     */
+    public String[] getCookNames() {
+        return staffNames(0);
+    }
+    
+    /**
+     * Returns the names of the Servers.
+     *
+     * @return The names of the Servers
+     */
+    public String[] getServerNames() {
+        return staffNames(1);
+    }
+    
+    /**
+     * Returns the names of the Managers.
+     *
+     * @return The names of the Managers
+     */
+    public String[] getManagerNames() {
+        return staffNames(2);
+    }
+    
+    /**
+     * Returns the names of the Receivers.
+     *
+     * @return The names of the Receivers
+     */
+    public String[] getReceiverNames() {
+        return staffNames(3);
+    }
+    
+    /**
+     * Gives every ingredient its compiled id in the specified Restaurant's IngredientTable, which
+     * must not have given out any ids yet, and adds the ingredients in stock to its inventory with
+     * their thresholds and starting amounts.
+     *
+     * @param restaurant The Restaurant to stock
+     * @throws IllegalStateException If the IngredientTable gives an ingredient another id
+     */
+    public void stock(Restaurant restaurant) {
+        ByteBuffer in = section(16);
+        internIngredients(in, restaurant.getIngredientTable());
+        int stocked = count(in);
+        for (int i = 0; i < stocked; i++) {
+            String ingredient = restaurant.getIngredientTable().getName(count(in));
+            int threshold = signed(in);
+            restaurant.addIngredient(ingredient, threshold, signed(in));
+        }
+    }
+    
+    /**
+     * Adds every menu item, with its ingredients and mods, to the specified Menu, in the order they
+     * were captured. The ingredients are given their compiled ids in the Menu's IngredientTable
+     * first, which must not have given any other ingredients ids.
+     *
+     * @param menu The Menu to add the items to
+     * @throws IllegalStateException If the IngredientTable gives an ingredient another id
+     */
+    public void addItems(Menu menu) {
+        IngredientTable ingredients = menu.getIngredientTable();
+        internIngredients(section(16), ingredients);
+        ByteBuffer in = section(20);
+        int numItems = count(in);
+        for (int i = 0; i < numItems; i++) {
+            MenuItem item = new MenuItem(name(count(in)), Bytes.getSignedVarLong(in));
+            int numIngredients = count(in);
+            for (int j = 0; j < numIngredients; j++) {
+                String ingredient = ingredients.getName(count(in));
+                item.setIngredientAmount(ingredient, signed(in));
+            }
+            int numMods = count(in);
+            for (int j = 0; j < numMods; j++) {
+                MenuItemMod mod = new MenuItemMod(name(count(in)), Bytes.getSignedVarLong(in));
+                int numChanges = count(in);
+                for (int k = 0; k < numChanges; k++) {
+                    String ingredient = ingredients.getName(count(in));
+                    mod.setIngredientChange(ingredient, signed(in));
+                }
+                item.addMod(mod);
+            }
+            menu.addItem(item);
+        }
+    }
+    
+    /**
+     * Returns a new Menu with every menu item in this ConfigImage on it.
+     *
+     * @return The new Menu
+     */
+    public Menu newMenu() {
+        Menu menu = new Menu();
+        addItems(menu);
+        return menu;
+    }
+    
+    private void internIngredients(ByteBuffer in, IngredientTable ingredients) {
+        int numIngredients = count(in);
+        for (int id = 0; id < numIngredients; id++) {
+            String ingredient = name(count(in));
+            if (ingredients.intern(ingredient) != id) {
+                throw new IllegalStateException("Ingredient " + ingredient + " already has id "
+                        + ingredients.getID(ingredient) + ", not " + id);
+            }
+        }
+    }
+    
+    private String[] staffNames(int kind) {
+        ByteBuffer in = section(12);
+        for (int i = 0; i < kind; i++) {
+            int skip = count(in);
+            for (int j = 0; j < skip; j++) {
+                count(in);
+            }
+        }
+        String[] staff = new String[count(in)];
+        for (int i = 0; i < staff.length; i++) {
+            staff[i] = name(count(in));
+        }
+        return staff;
+    }
+    
+    /**
+     * Returns a ByteBuffer positioned at the section whose offset is at the specified position in
+     * the header.
+     */
+    private ByteBuffer section(int offsetPosition) {
+        return data.duplicate().position(data.getInt(offsetPosition));
+    }
+    
+    /**
+     * Returns the name with the specified index, decoding it the first time it is asked for.
+     */
+    private String name(int index) {
+        if (index >= namesCount) {
+            throw new IllegalStateException("Corrupt config image: no name " + index);
+        }
+        String name = names[index];
+        if (name == null) {
+            int offsets = namesStart + 4;
+            int bytesStart = offsets + 4 * (namesCount + 1);
+            int start = data.getInt(offsets + 4 * index);
+            int end = data.getInt(offsets + 4 * (index + 1));
+            byte[] encoded = new byte[end - start];
+            data.get(bytesStart + start, encoded);
+            name = new String(encoded, StandardCharsets.UTF_8);
+            names[index] = name;
+        }
+        return name;
+    }
+    
+    private static int count(ByteBuffer in) {
+        return (int) Bytes.getVarLong(in);
+    }
+    
+    private static int signed(ByteBuffer in) {
+        return (int) Bytes.getSignedVarLong(in);
+    }
+    
+    /**
+     * Writes the sections of a ConfigImage, collecting the names they use into a table that is
+     * written before them.
+     */
+    private static class Writer {
+        
+        private final Map<String, Integer> nameIndexes = new LinkedHashMap<>();
+        private final Bytes body = new Bytes();
+        
+        ConfigImage write(Restaurant restaurant) {
+            int staffStart = body.size();
+            writeStaff(restaurant.getCooks());
+            writeStaff(restaurant.getServers());
+            writeStaff(restaurant.getManagers());
+            writeStaff(restaurant.getReceivers());
+            
+            //Give every ingredient of the menu an id before the ids are written
+            Collection<MenuItem> items = restaurant.getMenu().getItems();
+            for (MenuItem item : items) {
+                item.getIngredientVector();
+                for (MenuItemMod mod : item.getMods().values()) {
+                    mod.getIngredientVector();
+                }
+            }
+            int ingredientsStart = body.size();
+            IngredientTable ingredients = restaurant.getIngredientTable();
+            body.putVarLong(ingredients.size());
+            for (int id = 0; id < ingredients.size(); id++) {
+                writeName(ingredients.getName(id));
+            }
+            Collection<String> stocked = restaurant.getIngredients();
+            body.putVarLong(stocked.size());
+            for (String ingredient : stocked) {
+                int id = ingredients.getID(ingredient);
+                body.putVarLong(id);
+                body.putSignedVarLong(restaurant.getThreshold(id));
+                body.putSignedVarLong(restaurant.getAmount(id));
+            }
+            
+            int menuStart = body.size();
+            body.putVarLong(items.size());
+            for (MenuItem item : items) {
+                writeName(item.getName());
+                body.putSignedVarLong(item.getPrice());
+                writeVector(item.getIngredientVector());
+                body.putVarLong(item.getMods().size());
+                for (MenuItemMod mod : item.getMods().values()) {
+                    writeName(mod.getName());
+                    body.putSignedVarLong(mod.getPriceChange());
+                    writeVector(mod.getIngredientVector());
+                }
+            }
+            
+            Bytes nameBytes = new Bytes();
+            Bytes out = new Bytes(body.size() + 1024);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(restaurant.getNumTables());
+            int offsetsSize = 4 + 4 * (nameIndexes.size() + 1);
+            int namesSize = 0;
+            for (String name : nameIndexes.keySet()) {
+                byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                nameBytes.put(encoded, 0, encoded.length);
+                namesSize += encoded.length;
+            }
+            int bodyStart = HEADER_SIZE + offsetsSize + namesSize;
+            out.putInt(bodyStart + staffStart);
+            out.putInt(bodyStart + ingredientsStart);
+            out.putInt(bodyStart + menuStart);
+            out.putInt(nameIndexes.size());
+            int offset = 0;
+            out.putInt(offset);
+            for (String name : nameIndexes.keySet()) {
+                offset += name.getBytes(StandardCharsets.UTF_8).length;
+                out.putInt(offset);
+            }
+            out.put(nameBytes);
+            out.put(body);
+            out.putInt(out.crc(0));
+            return new ConfigImage(ByteBuffer.wrap(out.toByteArray()));
+        }
+        
+        private void writeStaff(Collection<? extends Employee> staff) {
+            body.putVarLong(staff.size());
+            for (Employee employee : staff) {
+                writeName(employee.getName());
+            }
+        }
+        
+        /**
+         * Writes the ids and amounts of an IngredientVector, in the order of their ids.
+         */
+        private void writeVector(IngredientVector vector) {
+            body.putVarLong(vector.size());
+            for (int i = 0; i < vector.size(); i++) {
+                body.putVarLong(vector.getID(i));
+                body.putSignedVarLong(vector.getAmount(i));
+            }
+        }
+        
+        private void writeName(String name) {
+            Integer index = nameIndexes.get(name);
+            if (index == null) {
+                index = nameIndexes.size();
+                nameIndexes.put(name, index);
+            }
+            body.putVarLong(index);
+        }
+        
+    }
+    
+}
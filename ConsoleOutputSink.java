@@ -0,0 +1,42 @@
+package restaurant;
+
+/**
+ * An OutputSink that writes each message to standard output as soon as it is written, on the thread
+ * that wrote it. Nothing is queued, so nothing is lost if the OutputSink is never closed.
+ */
+public class ConsoleOutputSink implements OutputSink {
+    
+    /**
+     * The only ConsoleOutputSink.
+     */
+    public static final ConsoleOutputSink INSTANCE = new ConsoleOutputSink();
+    
+    private final ThreadLocal<StringBuilder> buffers =
+            ThreadLocal.withInitial(() -> new StringBuilder(256));
+    
+    private ConsoleOutputSink() {
+    }
+    
+    @Override
+    public StringBuilder buffer() {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+    
+    @Override
+    public void write(CharSequence message) {
+        System.out.print(message);
+    }
+    
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+    
+    @Override
+    public void close() {
+        System.out.flush();
+    }
+    
+}
@@ -1,17 +1,17 @@
 package restaurant;
 
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The cook class is responsible to prepare an Order once it has seen it and also subtracts
- * ingredients as the dish is made and ready to deliver.
+ * ingredients as the dish is made and ready to deliver. A dish is only made if there is enough of
+ * every one of its ingredients, except when replaying events.txt, where it was already made.
  */
 public class Cook extends Employee {
     
-    private final Set<OrderDish> makingDishes = new HashSet<>();
+    private final Set<OrderDish> makingDishes = ConcurrentHashMap.newKeySet();
     
     /**
      * Creates a new Cook with the specified name and no assigned Restaurant.
@@ -37,59 +37,130 @@ public class Cook extends Employee {
      * @param dish The OrderDish to see
      */
     public void seeDish(OrderDish dish) {
+        LatencyRecorder latency = getRestaurant().getLatencyRecorder();
+        if (latency != null) {
+            long now = getRestaurant().nanoTime();
+            if (dish.getPlacedNanos() != OrderDish.NO_TIME) {
+                latency.record(LatencyRecorder.Stage.QUEUE_WAIT, now - dish.getPlacedNanos(), this,
+                        dish.getItem());
+            }
+            dish.setSeenNanos(now);
+        }
         makingDishes.add(dish);
         getRestaurant().markDishSeen(dish);
         printSeenDish(dish);
     }
     
     /**
-     * Finishes preparing the specified OrderDish, if this Cook was making it, and subtracts its
-     * ingredients from the inventory.
+     * Records that this Cook is making the specified OrderDish without reporting it, as when
+     * restoring a Checkpoint.
+     *
+     * @param dish The OrderDish this Cook is making
+     */
+    void resumeDish(OrderDish dish) {
+        makingDishes.add(dish);
+    }
+    
+    /**
+     * Stops making the specified OrderDish without preparing it, as when its Order has been
+     * cancelled because it could not be made.
+     *
+     * @param dish The OrderDish this Cook gives up on
+     */
+    void dropDish(OrderDish dish) {
+        makingDishes.remove(dish);
+    }
+    
+    /**
+     * Finishes preparing the specified OrderDish, if this Cook was making it and its Order has not
+     * been cancelled, and subtracts its ingredients from the inventory. Ingredients held for the
+     * dish when its Order was placed are always there to take; otherwise they are taken all
+     * together, and if there is not enough of one of them none are taken and the dish is not
+     * prepared, though this Cook is still making it. The dish is claimed before its ingredients are
+     * taken, so two calls for the same dish never both take them. The Cook who fills the last dish
+     * of an Order marks the Order as filled.
      *
      * @param dish the dish that needs to be prepared
      * @return Whether the OrderDish was prepared
      */
     public boolean prepareDish(OrderDish dish) {
-        if (makingDishes.contains(dish)) {
-            makingDishes.remove(dish);
-            for (Map.Entry<String, Integer> amount : dish.getIngredientAmounts().entrySet()) {
-                getRestaurant().subtractAmount(amount.getKey(), amount.getValue());
+        return finishDish(dish, false);
+    }
+    
+    /**
+     * Finishes preparing the specified OrderDish as events.txt says it was, if this Cook was making
+     * it and its Order has not been cancelled. The events have already happened, so the dish is
+     * prepared even if the inventory is short: each of its ingredients that there is enough of is
+     * subtracted on its own, and the others are left as they are.
+     *
+     * @param dish the dish that was prepared
+     * @return Whether the OrderDish was prepared
+     */
+    public boolean replayPreparedDish(OrderDish dish) {
+        return finishDish(dish, true);
+    }
+    
+    private boolean finishDish(OrderDish dish, boolean replaying) {
+        if (!makingDishes.remove(dish)) {
+            return false;
+        }
+        if (!getRestaurant().commitIngredients(dish)) {
+            Order order = dish.getOrder();
+            if (order != null && order.isCancelled()) {
+                return false;
             }
-            if (dish.getOrder().isFilled()) {
-                getRestaurant().markOrderFilled(dish.getOrder());
+            if (replaying) {
+                IngredientVector recipe = dish.getIngredientVector();
+                for (int i = 0; i < recipe.size(); i++) {
+                    getRestaurant().subtractAmount(recipe.getID(i), recipe.getAmount(i));
+                }
+            } else if (!getRestaurant().consumeIngredients(dish.getIngredientVector())) {
+                makingDishes.add(dish); //Still this Cook's to make once there is enough
+                return false;
             }
-            printPreparedDish(dish);
-            return true;
         }
-        return false;
+        LatencyRecorder latency = getRestaurant().getLatencyRecorder();
+        if (latency != null && dish.getSeenNanos() != OrderDish.NO_TIME) {
+            latency.record(LatencyRecorder.Stage.COOK_TIME,
+                    getRestaurant().nanoTime() - dish.getSeenNanos(), this, dish.getItem());
+        }
+        if (dish.fill()) {
+            getRestaurant().markOrderFilled(dish.getOrder());
+        }
+        printPreparedDish(dish);
+        return true;
     }
     
     private void printPreparedDish(OrderDish dish) {
-        StringBuilder dishString = new StringBuilder();
-        String nl = System.getProperty("line.separator");
-        String tab = "\t";
-        dishString.append(
-                dish.getItem().getName() + " for table " + dish.getOrder().getTable().getNum());
-        dishString.append(" has been prepared by Cook: " + getName());
+        OutputSink output = getRestaurant().getOutput();
+        StringBuilder dishString = output.buffer();
+        dishString.append(dish.getItem().getName())
+                .append(" for table ")
+                .append(dish.getOrder().getTable().getNum())
+                .append(" has been prepared by Cook: ")
+                .append(getName());
         if (!dish.getMods().isEmpty()) {
-            dishString.append(" with" + nl);
+            dishString.append(" with").append(OutputSink.NL);
             for (MenuItemMod mod : dish.getMods()) {
-                dishString.append(tab).append("- ").append(mod.getName()).append(tab);
+                dishString.append('\t').append("- ").append(mod.getName()).append('\t');
             }
         }
-        System.out.println(dishString);
-        System.out.println();
+        dishString.append(OutputSink.NL).append(OutputSink.NL);
+        output.write(dishString);
     }
     
     private void printSeenDish(OrderDish dish) {
-        System.out.println(
-                dish.getItem().getName()
-                        + " placed by table "
-                        + dish.getOrder().getTable().getNum()
-                        + " has been seen by "
-                        + "Cook: "
-                        + getName());
-        System.out.println();
+        OutputSink output = getRestaurant().getOutput();
+        output.write(output.buffer()
+                .append(dish.getItem().getName())
+                .append(" placed by table ")
+                .append(dish.getOrder().getTable().getNum())
+                .append(" has been seen by ")
+                .append("Cook: ")
+                .append(getName())
+                .append(OutputSink.NL)
+                .append(OutputSink.NL));
     }
     
+    
 }
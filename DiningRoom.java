@@ -0,0 +1,144 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A DiningRoom runs a Restaurant's Servers live, the way a Kitchen runs its Cooks. Each Server works
+ * on its own thread, blocking until the Restaurant hands it a filled order, then delivering the
+ * order to its table with no dishes rejected. A waiting Server uses no CPU, so a DiningRoom can run
+ * hundreds of Servers at once.
+ *
+ * <p>Threads come from a ThreadFactory, so a factory for virtual threads can be passed in on a
+ * Java version that has them.
+ */
+public class DiningRoom {
+    
+    private final Restaurant restaurant;
+    private final ThreadFactory threadFactory;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder ordersDelivered = new LongAdder();
+    private volatile boolean running = false;
+    
+    /**
+     * Creates a new DiningRoom for the specified Restaurant, whose Servers run on platform threads.
+     *
+     * @param restaurant The Restaurant whose Servers work in this DiningRoom
+     */
+    public DiningRoom(Restaurant restaurant) {
+        this(restaurant, Thread::new);
+    }
+    
+    /**
+     * Creates a new DiningRoom for the specified Restaurant, whose Servers run on threads made by
+     * the specified ThreadFactory.
+     *
+     * @param restaurant    The Restaurant whose Servers work in this DiningRoom
+     * @param threadFactory Makes the Servers' threads
+     */
+    public DiningRoom(Restaurant restaurant, ThreadFactory threadFactory) {
+        this.restaurant = restaurant;
+        this.threadFactory = threadFactory;
+    }
+    
+    /**
+     * Starts a thread for each of the Restaurant's Servers.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Collection<Server> servers = restaurant.getServers();
+        for (Server server : servers) {
+            Thread worker = threadFactory.newThread(() -> work(server));
+            worker.setName("Server: " + server.getName());
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    /**
+     * Returns the number of orders this DiningRoom's Servers have delivered.
+     *
+     * @return The number of orders delivered
+     */
+    public long getOrdersDelivered() {
+        return ordersDelivered.sum();
+    }
+    
+    /**
+     * Returns the mean time, in nanoseconds, between an order being filled and a Server picking it
+     * up, over every order the Restaurant's Servers have picked up.
+     *
+     * @return The mean pickup latency, or 0 if no order has been picked up
+     */
+    public long getMeanPickupNanos() {
+        long orders = 0;
+        long nanos = 0;
+        for (Server server : restaurant.getServers()) {
+            orders += server.getOrdersPickedUp();
+            nanos += server.getTotalPickupNanos();
+        }
+        return orders == 0 ? 0 : nanos / orders;
+    }
+    
+    /**
+     * Returns the longest time, in nanoseconds, between an order being filled and a Server picking
+     * it up.
+     *
+     * @return The largest pickup latency
+     */
+    public long getMaxPickupNanos() {
+        long max = 0;
+        for (Server server : restaurant.getServers()) {
+            max = Math.max(max, server.getMaxPickupNanos());
+        }
+        return max;
+    }
+    
+    /**
+     * Stops the Servers once each has delivered every order already in its queue, and waits for
+     * their threads to end. Shut the Kitchen down first so that no more orders are filled.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void shutdown() throws InterruptedException {
+        List<Thread> stopping;
+        synchronized (this) {
+            running = false;
+            stopping = new ArrayList<>(workers);
+            workers.clear();
+        }
+        for (Thread worker : stopping) {
+            worker.interrupt();
+        }
+        for (Thread worker : stopping) {
+            worker.join();
+        }
+    }
+    
+    private void work(Server server) {
+        try {
+            while (running) {
+                deliver(server, server.takeReadyOrder());
+            }
+        } catch (InterruptedException e) {
+            //Shutting down: deliver whatever is left without waiting for more
+        }
+        Order order;
+        while ((order = server.pollReadyOrder()) != null) {
+            deliver(server, order);
+        }
+    }
+    
+    private void deliver(Server server, Order order) {
+        server.deliverOrder(order, Collections.emptySet());
+        ordersDelivered.increment();
+    }
+    
+}
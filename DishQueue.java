@@ -0,0 +1,97 @@
+package restaurant;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A DishQueue holds the dishes a Kitchen's Cooks have not started yet and decides which Cook makes
+ * which of them. Dishes are added as their Orders are placed, and each Cook's thread takes a batch
+ * of one or more dishes at a time, which it cooks side by side.
+ *
+ * <p>The queue made by fifo() hands out one dish at a time in the order they were placed, to
+ * whichever Cook is free first. The queue made by stealing() gives each Cook its own deque, sends
+ * dishes of the same menu item to the same Cook so that they can be cooked together, and lets a
+ * Cook with nothing to do take dishes from the others.
+ */
+public interface DishQueue {
+    
+    /**
+     * Returns a DishQueue that hands out one dish at a time in the order they were added.
+     *
+     * @return A first-in, first-out DishQueue
+     */
+    static DishQueue fifo() {
+        return new FifoDishQueue();
+    }
+    
+    /**
+     * Returns a DishQueue that gives each Cook its own deque, batches up to the specified number of
+     * dishes of the same menu item and lets idle Cooks steal from busy ones.
+     *
+     * @param maxBatch The largest number of dishes a Cook takes at once
+     * @return A work-stealing DishQueue
+     */
+    static DishQueue stealing(int maxBatch) {
+        return new StealingDishQueue(maxBatch);
+    }
+    
+    /**
+     * Returns the DishQueue with the specified name: "fifo", or "stealing" optionally followed by
+     * a colon and the largest batch, as in "stealing:8".
+     *
+     * @param name The name of the DishQueue
+     * @return A new DishQueue of that kind
+     * @throws IllegalArgumentException If the name is not one of the above
+     */
+    static DishQueue forName(String name) {
+        if (name.equals("fifo")) {
+            return fifo();
+        } else if (name.equals("stealing")) {
+            return stealing(StealingDishQueue.DEFAULT_MAX_BATCH);
+        } else if (name.startsWith("stealing:")) {
+            try {
+                return stealing(Integer.parseInt(name.substring("stealing:".length())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unknown dish queue: " + name);
+            }
+        }
+        throw new IllegalArgumentException("Unknown dish queue: " + name);
+    }
+    
+    /**
+     * Prepares this queue for the specified number of Cooks, numbered from 0. Called by the Kitchen
+     * when it starts, before any dish is added.
+     *
+     * @param numCooks The number of Cooks
+     */
+    void start(int numCooks);
+    
+    /**
+     * Adds the specified dish to be made.
+     *
+     * @param dish The dish to make
+     */
+    void add(OrderDish dish);
+    
+    /**
+     * Waits up to the specified time for dishes for the specified Cook, then moves one or more of
+     * them into the batch.
+     *
+     * @param cook    The number of the Cook
+     * @param batch   The list to add the dishes to
+     * @param timeout The longest time to wait
+     * @param unit    The unit of the timeout
+     * @return The number of dishes added, or 0 if none came in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    int take(int cook, List<OrderDish> batch, long timeout, TimeUnit unit)
+            throws InterruptedException;
+    
+    /**
+     * Returns the number of dishes waiting for a Cook.
+     *
+     * @return The number of dishes in this queue
+     */
+    int size();
+    
+}
@@ -0,0 +1,575 @@
+package restaurant;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An Event is one block of events.txt, such as an order being placed or a cook seeing dishes, in
+ * typed form. Events only hold what was written in the file; the names and numbers they contain are
+ * looked up in the Restaurant when the Event is applied.
+ *
+ * <p>An Event also remembers the line numbers of its fields. If the block could not be read to the
+ * end, the Event holds the fields that came before the bad line and records that line as its error
+ * line, so the Event can still be applied up to the same point as before the error was found.
+ */
+public class Event {
+    
+    /**
+     * The kinds of blocks that can appear in events.txt.
+     */
+    public enum Type {
+        ORDER, SEEN, FILLED, DELIVERED, PAID, CHECKED, RECEIVED
+    }
+    
+    private final Type type;
+    private int lineNum;
+    private int errorLineNum = 0;
+    private int orderID;
+    private int tableNum;
+    private String employee = null;
+    private int[] dishIDs = new int[0];
+    private int dishIDCount = 0;
+    private boolean rejectedLine = false;
+    private final List<DishSpec> dishes = new ArrayList<>();
+    private final List<String> ingredients = new ArrayList<>();
+    private int[] ingredientAmounts = new int[0];
+    private Restaurant resolvedIn = null;
+    private Table table = null;
+    private Employee employeeFound = null;
+    
+    /**
+     * Creates a new Event of the specified type whose block starts on the specified line.
+     *
+     * @param type    The type of the Event
+     * @param lineNum The line number of the first line of the Event's block
+     */
+    public Event(Type type, int lineNum) {
+        this.type = type;
+        this.lineNum = lineNum;
+    }
+    
+    /**
+     * Returns the type of this Event.
+     *
+     * @return The type of this Event
+     */
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Returns the line number of the first line of this Event's block.
+     *
+     * @return The line number of the first line of this Event's block
+     */
+    public int getLineNum() {
+        return lineNum;
+    }
+    
+    /**
+     * Returns the line number of the line that could not be read in this Event's block, or 0 if the
+     * whole block was read.
+     *
+     * @return The line number of this Event's bad line, or 0 if there is none
+     */
+    public int getErrorLineNum() {
+        return errorLineNum;
+    }
+    
+    /**
+     * Records that the specified line of this Event's block could not be read. Everything that was
+     * read before that line stays in this Event.
+     *
+     * @param errorLineNum The line number of the bad line
+     * @return This Event
+     */
+    public Event fail(int errorLineNum) {
+        this.errorLineNum = errorLineNum;
+        return this;
+    }
+    
+    /**
+     * Returns whether the specified line of this Event's block was read, that is, whether it comes
+     * before this Event's error line.
+     *
+     * @param lineNum The line number to check
+     * @return Whether the line was read
+     */
+    public boolean hasLine(int lineNum) {
+        return errorLineNum == 0 || lineNum < errorLineNum;
+    }
+    
+    /**
+     * Adds the specified number to every line number in this Event, as when its block was read from
+     * a part of the file that does not start at the first line.
+     *
+     * @param offset The number of lines before the part of the file the Event was read from
+     */
+    void shiftLines(int offset) {
+        lineNum += offset;
+        if (errorLineNum > 0) {
+            errorLineNum += offset;
+        }
+        for (DishSpec dish : dishes) {
+            dish.lineNum += offset;
+        }
+    }
+    
+    /**
+     * Looks up the MenuItems and mods named by this Event's dishes in the specified Menu ahead of
+     * time, so that applying the Event to a Restaurant with that Menu does not have to.
+     *
+     * @param menu The Menu of the Restaurant the Event will be applied to
+     */
+    void resolve(Menu menu) {
+        for (DishSpec dish : dishes) {
+            dish.resolve(menu);
+        }
+    }
+    
+    /**
+     * Looks up the Table, employee, MenuItems and mods named by this Event in the specified
+     * Restaurant ahead of time, so that applying the Event to that Restaurant does not have to.
+     * Anything that is not found is looked up again when the Event is applied.
+     *
+     * @param restaurant The Restaurant the Event will be applied to
+     */
+    void resolve(Restaurant restaurant) {
+        if (type == Type.ORDER || type == Type.PAID) {
+            table = restaurant.getTable(tableNum);
+        }
+        if (employee != null) {
+            switch (type) {
+                case ORDER:
+                case DELIVERED:
+                    employeeFound = restaurant.getServer(employee);
+                    break;
+                case SEEN:
+                case FILLED:
+                    employeeFound = restaurant.getCook(employee);
+                    break;
+                case CHECKED:
+                    employeeFound = restaurant.getManager(employee);
+                    break;
+                case RECEIVED:
+                    employeeFound = restaurant.getReceiver(employee);
+                    break;
+            }
+        }
+        resolve(restaurant.getMenu());
+        resolvedIn = restaurant;
+    }
+    
+    /**
+     * Returns the Table this Event names in the specified Restaurant, or null if it has none.
+     */
+    Table findTable(Restaurant restaurant) {
+        return restaurant == resolvedIn && table != null ? table : restaurant.getTable(tableNum);
+    }
+    
+    /**
+     * Returns the Server this Event names in the specified Restaurant, or null if it has none.
+     */
+    Server findServer(Restaurant restaurant) {
+        return restaurant == resolvedIn && employeeFound instanceof Server
+                ? (Server) employeeFound : restaurant.getServer(employee);
+    }
+    
+    /**
+     * Returns the Cook this Event names in the specified Restaurant, or null if it has none.
+     */
+    Cook findCook(Restaurant restaurant) {
+        return restaurant == resolvedIn && employeeFound instanceof Cook
+                ? (Cook) employeeFound : restaurant.getCook(employee);
+    }
+    
+    /**
+     * Returns the Manager this Event names in the specified Restaurant, or null if it has none.
+     */
+    Manager findManager(Restaurant restaurant) {
+        return restaurant == resolvedIn && employeeFound instanceof Manager
+                ? (Manager) employeeFound : restaurant.getManager(employee);
+    }
+    
+    /**
+     * Returns the Receiver this Event names in the specified Restaurant, or null if it has none.
+     */
+    Receiver findReceiver(Restaurant restaurant) {
+        return restaurant == resolvedIn && employeeFound instanceof Receiver
+                ? (Receiver) employeeFound : restaurant.getReceiver(employee);
+    }
+    
+    /**
+     * Returns the number of the Order that this Event is about. For an ORDER event this is the number
+     * of the new Order.
+     *
+     * @return The number of this Event's Order
+     */
+    public int getOrderID() {
+        return orderID;
+    }
+    
+    public void setOrderID(int orderID) {
+        this.orderID = orderID;
+    }
+    
+    /**
+     * Returns the number of the Table that this Event is about, for ORDER and PAID events.
+     *
+     * @return The number of this Event's Table
+     */
+    public int getTableNum() {
+        return tableNum;
+    }
+    
+    public void setTableNum(int tableNum) {
+        this.tableNum = tableNum;
+    }
+    
+    /**
+     * Returns the name of the Employee who carries out this Event.
+     *
+     * @return The name of this Event's Employee
+     */
+    public String getEmployee() {
+        return employee;
+    }
+    
+    public void setEmployee(String employee) {
+        this.employee = employee;
+    }
+    
+    /**
+     * Returns the number of dish ids in this Event. For SEEN and FILLED events these are the dishes
+     * being seen or filled, and for DELIVERED events they are the rejected dishes.
+     *
+     * @return The number of dish ids in this Event
+     */
+    public int getDishIDCount() {
+        return dishIDCount;
+    }
+    
+    /**
+     * Returns the dish id at the specified index.
+     *
+     * @param index The index of the dish id
+     * @return The dish id at the index
+     */
+    public int getDishID(int index) {
+        return dishIDs[index];
+    }
+    
+    /**
+     * Adds a dish id to the end of this Event's dish ids.
+     *
+     * @param dishID The dish id to add
+     */
+    public void addDishID(int dishID) {
+        if (dishIDCount == dishIDs.length) {
+            dishIDs = Arrays.copyOf(dishIDs, Math.max(4, dishIDCount * 2));
+        }
+        dishIDs[dishIDCount++] = dishID;
+    }
+    
+    /**
+     * Returns whether this DELIVERED event's block has a "Rejected" line. It has one whenever dishes
+     * are rejected, but may also have one that lists none.
+     */
+    boolean hasRejectedLine() {
+        return rejectedLine || dishIDCount > 0;
+    }
+    
+    void setRejectedLine(boolean rejectedLine) {
+        this.rejectedLine = rejectedLine;
+    }
+    
+    /**
+     * Returns an unmodifiable List of the dishes ordered in an ORDER event.
+     *
+     * @return The dishes ordered in this Event
+     */
+    public List<DishSpec> getDishes() {
+        return Collections.unmodifiableList(dishes);
+    }
+    
+    /**
+     * Adds a dish to the end of the dishes ordered in this Event.
+     *
+     * @param dish The dish to add
+     */
+    public void addDish(DishSpec dish) {
+        dishes.add(dish);
+    }
+    
+    /**
+     * Returns the number of ingredients received in a RECEIVED event.
+     *
+     * @return The number of ingredients received
+     */
+    public int getIngredientCount() {
+        return ingredients.size();
+    }
+    
+    /**
+     * Returns the name of the ingredient received at the specified index.
+     *
+     * @param index The index of the ingredient
+     * @return The name of the ingredient
+     */
+    public String getIngredient(int index) {
+        return ingredients.get(index);
+    }
+    
+    /**
+     * Returns the amount of the ingredient received at the specified index.
+     *
+     * @param index The index of the ingredient
+     * @return The amount received
+     */
+    public int getIngredientAmount(int index) {
+        return ingredientAmounts[index];
+    }
+    
+    /**
+     * Adds a received ingredient to the end of this Event's ingredients.
+     *
+     * @param ingredient The name of the ingredient
+     * @param amount     The amount received
+     */
+    public void addIngredient(String ingredient, int amount) {
+        if (ingredients.size() == ingredientAmounts.length) {
+            ingredientAmounts = Arrays.copyOf(ingredientAmounts, Math.max(4, ingredients.size() * 2));
+        }
+        ingredientAmounts[ingredients.size()] = amount;
+        ingredients.add(ingredient);
+    }
+    
+    /**
+     * Writes this Event, with its line numbers, to the specified Bytes so that readFrom can make an
+     * equal Event from them.
+     *
+     * @param out The Bytes to write to
+     */
+    void writeTo(Bytes out) {
+        out.putInt(type.ordinal());
+        out.putInt(lineNum);
+        out.putInt(errorLineNum);
+        out.putInt(orderID);
+        out.putInt(tableNum);
+        out.putString(employee);
+        out.putInt(dishIDCount);
+        for (int i = 0; i < dishIDCount; i++) {
+            out.putInt(dishIDs[i]);
+        }
+        out.putInt(dishes.size());
+        for (DishSpec dish : dishes) {
+            out.putInt(dish.id);
+            out.putInt(dish.lineNum);
+            out.putString(dish.item);
+            out.putInt(dish.mods.size());
+            for (String mod : dish.mods) {
+                out.putString(mod);
+            }
+        }
+        out.putInt(ingredients.size());
+        for (int i = 0; i < ingredients.size(); i++) {
+            out.putString(ingredients.get(i));
+            out.putInt(ingredientAmounts[i]);
+        }
+    }
+    
+    /**
+     * Writes this Event's block to the specified StringBuilder as it appears in events.txt, ending
+     * with its blank line. Reading the text with an EventReader gives back an equal Event, as long
+     * as this Event has no error line.
+     *
+     * @param out The StringBuilder to write to
+     */
+    void writeText(StringBuilder out) {
+        switch (type) {
+            case ORDER:
+                out.append("Order ").append(orderID).append("\nTable: ").append(tableNum)
+                        .append("\nServer: ").append(employee).append('\n');
+                for (DishSpec dish : dishes) {
+                    out.append("Dish ").append(dish.id).append('\n').append(dish.item).append('\n');
+                    for (String mod : dish.mods) {
+                        out.append(mod).append('\n');
+                    }
+                }
+                break;
+            case SEEN:
+            case FILLED:
+                out.append(type == Type.SEEN ? "Seen" : "Filled").append("\nCook: ").append(employee)
+                        .append("\nOrder: ").append(orderID).append("\nDishes: ");
+                appendDishIDs(out);
+                break;
+            case DELIVERED:
+                out.append("Delivered\nServer: ").append(employee).append("\nOrder: ").append(orderID)
+                        .append('\n');
+                if (hasRejectedLine()) {
+                    out.append("Rejected: ");
+                    appendDishIDs(out);
+                }
+                break;
+            case PAID:
+                out.append("Paid\nTable: ").append(tableNum).append('\n');
+                break;
+            case CHECKED:
+                out.append("Checked\nManager: ").append(employee).append('\n');
+                break;
+            case RECEIVED:
+                out.append("Received\nReceiver: ").append(employee).append('\n');
+                for (int i = 0; i < ingredients.size(); i++) {
+                    out.append(ingredientAmounts[i]).append(' ').append(ingredients.get(i))
+                            .append('\n');
+                }
+                break;
+        }
+        out.append('\n');
+    }
+    
+    /**
+     * Writes this Event's dish ids separated by ", " and ends the line. An empty list is written as
+     * a lone ", ", which EventReader reads as no ids, as String.split would.
+     */
+    private void appendDishIDs(StringBuilder out) {
+        if (dishIDCount == 0) {
+            out.append(", ");
+        }
+        for (int i = 0; i < dishIDCount; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(dishIDs[i]);
+        }
+        out.append('\n');
+    }
+    
+    /**
+     * Reads an Event written by writeTo from the specified ByteBuffer.
+     *
+     * @param in The ByteBuffer to read from
+     * @return The Event that was written
+     * @throws java.nio.BufferUnderflowException If the ByteBuffer ends before the Event does
+     */
+    static Event readFrom(ByteBuffer in) {
+        Event event = new Event(Type.values()[in.getInt()], in.getInt());
+        event.errorLineNum = in.getInt();
+        event.orderID = in.getInt();
+        event.tableNum = in.getInt();
+        event.employee = Bytes.getString(in);
+        int numDishIDs = in.getInt();
+        for (int i = 0; i < numDishIDs; i++) {
+            event.addDishID(in.getInt());
+        }
+        int numDishes = in.getInt();
+        for (int i = 0; i < numDishes; i++) {
+            DishSpec dish = new DishSpec(in.getInt(), in.getInt());
+            dish.item = Bytes.getString(in);
+            int numMods = in.getInt();
+            for (int j = 0; j < numMods; j++) {
+                dish.addMod(Bytes.getString(in));
+            }
+            event.addDish(dish);
+        }
+        int numIngredients = in.getInt();
+        for (int i = 0; i < numIngredients; i++) {
+            event.addIngredient(Bytes.getString(in), in.getInt());
+        }
+        return event;
+    }
+    
+    /**
+     * A DishSpec is one "Dish" sub-block of an ORDER event: the dish's id, the name of its MenuItem
+     * and the names of its mods.
+     */
+    public static class DishSpec {
+        
+        private final int id;
+        private int lineNum;
+        private String item = null;
+        private final List<String> mods = new ArrayList<>();
+        private Menu resolvedMenu = null;
+        private MenuItem menuItem = null;
+        private MenuItemMod[] menuMods = null;
+        
+        /**
+         * Creates a new DishSpec with the specified id whose sub-block starts on the specified line.
+         *
+         * @param id      The id of the dish
+         * @param lineNum The line number of the dish's "Dish" line
+         */
+        public DishSpec(int id, int lineNum) {
+            this.id = id;
+            this.lineNum = lineNum;
+        }
+        
+        /**
+         * Returns the id of the dish.
+         */
+        public int getID() {
+            return id;
+        }
+        
+        /**
+         * Returns the line number of the dish's "Dish" line. The MenuItem's name is on the next line
+         * and the mods' names follow it.
+         */
+        public int getLineNum() {
+            return lineNum;
+        }
+        
+        /**
+         * Returns the name of the dish's MenuItem, or null if it was not read.
+         */
+        public String getItem() {
+            return item;
+        }
+        
+        public void setItem(String item) {
+            this.item = item;
+        }
+        
+        /**
+         * Returns an unmodifiable List of the names of the dish's mods.
+         */
+        public List<String> getMods() {
+            return Collections.unmodifiableList(mods);
+        }
+        
+        public void addMod(String mod) {
+            mods.add(mod);
+        }
+        
+        private void resolve(Menu menu) {
+            menuItem = item == null ? null : menu.getItem(item);
+            menuMods = new MenuItemMod[mods.size()];
+            if (menuItem != null) {
+                for (int i = 0; i < menuMods.length; i++) {
+                    menuMods[i] = menuItem.getMod(mods.get(i));
+                }
+            }
+            resolvedMenu = menu;
+        }
+        
+        /**
+         * Returns the dish's MenuItem in the specified Menu, or null if it has none by that name.
+         */
+        MenuItem getMenuItem(Menu menu) {
+            return menu == resolvedMenu ? menuItem : menu.getItem(item);
+        }
+        
+        /**
+         * Returns the mod of the specified MenuItem of the specified Menu that the dish's mod at the
+         * specified index names, or null if it has none by that name.
+         */
+        MenuItemMod getMenuMod(Menu menu, MenuItem menuItem, int index) {
+            return menu == resolvedMenu ? menuMods[index] : menuItem.getMod(mods.get(index));
+        }
+        
+    }
+    
+}
@@ -0,0 +1,257 @@
+package restaurant;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An EventApplier carries out Events in a Restaurant: it looks up the tables, employees, orders and
+ * menu items named in each Event and tells them what happened. It keeps track of the Orders that
+ * have been placed so that later Events can refer to them by number.
+ */
+public class EventApplier {
+    
+    private final Restaurant restaurant;
+    private final Map<Integer, Order> orders = new HashMap<>(); //Keep track of orders by number
+    private int lineNum = 0;
+    private long eventsApplied = 0;
+    
+    /**
+     * Creates a new EventApplier that applies Events to the specified Restaurant.
+     *
+     * @param restaurant The Restaurant to apply Events to
+     */
+    public EventApplier(Restaurant restaurant) {
+        this.restaurant = restaurant;
+    }
+    
+    /**
+     * Returns the Restaurant that this EventApplier applies Events to.
+     *
+     * @return The Restaurant
+     */
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+    
+    /**
+     * Returns the Order that was placed with the specified number, or null if there is none.
+     *
+     * @param orderID The number of the Order
+     * @return The Order with the specified number
+     */
+    public Order getOrder(int orderID) {
+        return orders.get(orderID);
+    }
+    
+    /**
+     * Returns an unmodifiable Map from the numbers of the Orders that have been placed to the Orders.
+     *
+     * @return The Orders that have been placed, by number
+     */
+    public Map<Integer, Order> getOrders() {
+        return Collections.unmodifiableMap(orders);
+    }
+    
+    /**
+     * Returns the number of Events that have been applied in full.
+     *
+     * @return The number of Events applied
+     */
+    public long getEventsApplied() {
+        return eventsApplied;
+    }
+    
+    /**
+     * Replaces the Orders this EventApplier knows about and the number of Events it has applied, as
+     * when restoring a Checkpoint.
+     *
+     * @param orders        The Orders that have been placed, by number
+     * @param eventsApplied The number of Events that have been applied
+     */
+    void restore(Map<Integer, Order> orders, long eventsApplied) {
+        this.orders.clear();
+        this.orders.putAll(orders);
+        this.eventsApplied = eventsApplied;
+    }
+    
+    /**
+     * Applies the specified Event to the Restaurant. Everything in the Event up to the first problem
+     * is applied, just as if the Event's lines were being read one by one.
+     *
+     * @param event The Event to apply
+     * @throws EventFormatException If part of the Event could not be read or refers to something
+     *                              that does not exist, or if applying the Event failed
+     */
+    public void apply(Event event) throws EventFormatException {
+        lineNum = event.getLineNum();
+        try {
+            switch (event.getType()) {
+                case ORDER:
+                    applyOrder(event);
+                    break;
+                case SEEN:
+                case FILLED:
+                    applyDishes(event);
+                    break;
+                case DELIVERED:
+                    applyDelivered(event);
+                    break;
+                case PAID:
+                    applyPaid(event);
+                    break;
+                case CHECKED:
+                    applyChecked(event);
+                    break;
+                case RECEIVED:
+                    applyReceived(event);
+                    break;
+            }
+        } catch (EventFormatException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new EventFormatException(lineNum);
+        }
+        if (event.getErrorLineNum() > 0) {
+            throw new EventFormatException(event.getErrorLineNum());
+        }
+        eventsApplied++;
+    }
+    
+    /**
+     * Moves on to the specified line of the Event, failing if that line could not be read.
+     */
+    private void advance(Event event, int lineNum) throws EventFormatException {
+        if (!event.hasLine(lineNum)) {
+            throw new EventFormatException(event.getErrorLineNum());
+        }
+        this.lineNum = lineNum;
+    }
+    
+    private EventFormatException error() {
+        return new EventFormatException(lineNum);
+    }
+    
+    private void applyOrder(Event event) throws EventFormatException {
+        advance(event, event.getLineNum() + 1);
+        Table table = event.findTable(restaurant);
+        if (table == null) {
+            throw error();
+        }
+        Order order = new Order(table);
+        advance(event, event.getLineNum() + 2);
+        Server server = event.findServer(restaurant);
+        if (server == null) {
+            throw error();
+        }
+        for (Event.DishSpec spec : event.getDishes()) {
+            advance(event, spec.getLineNum());
+            if (order.getDish(spec.getID()) != null) {
+                throw error();
+            }
+            advance(event, spec.getLineNum() + 1);
+            MenuItem item = spec.getMenuItem(restaurant.getMenu());
+            if (item == null) {
+                throw error();
+            }
+            OrderDish dish = new OrderDish(spec.getID(), item);
+            for (int i = 0; i < spec.getMods().size(); i++) {
+                advance(event, spec.getLineNum() + 2 + i);
+                MenuItemMod mod = spec.getMenuMod(restaurant.getMenu(), item, i);
+                if (mod == null) {
+                    throw error();
+                }
+                dish.addMod(mod);
+            }
+            order.addDish(dish);
+        }
+        if (event.getErrorLineNum() == 0) {
+            orders.put(event.getOrderID(), order);
+            server.placeOrder(order);
+        }
+    }
+    
+    private void applyDishes(Event event) throws EventFormatException {
+        advance(event, event.getLineNum() + 1);
+        Cook cook = event.findCook(restaurant);
+        if (cook == null) {
+            throw error();
+        }
+        advance(event, event.getLineNum() + 2);
+        Order order = orders.get(event.getOrderID());
+        if (order == null) {
+            throw error();
+        }
+        //Make the cook see or fill the appropriate dishes
+        lineNum = event.getLineNum() + 3;
+        for (int i = 0; i < event.getDishIDCount(); i++) {
+            OrderDish dish = order.getDish(event.getDishID(i));
+            if (dish == null) {
+                throw error();
+            }
+            if (event.getType() == Event.Type.SEEN) {
+                cook.seeDish(dish);
+            } else if (!cook.replayPreparedDish(dish)) {
+                throw error();
+            }
+        }
+    }
+    
+    private void applyDelivered(Event event) throws EventFormatException {
+        advance(event, event.getLineNum() + 1);
+        Server server = event.findServer(restaurant);
+        if (server == null) {
+            throw error();
+        }
+        advance(event, event.getLineNum() + 2);
+        Order order = orders.get(event.getOrderID());
+        if (order == null) {
+            throw error();
+        }
+        //Determine which dishes should be rejected by the table
+        Set<OrderDish> rejectedDishes = new HashSet<>();
+        lineNum = event.getLineNum() + 3;
+        for (int i = 0; i < event.getDishIDCount(); i++) {
+            OrderDish dish = order.getDish(event.getDishID(i));
+            if (dish == null || !rejectedDishes.add(dish)) {
+                throw error();
+            }
+        }
+        if (event.getErrorLineNum() == 0) {
+            server.deliverOrder(order, rejectedDishes);
+        }
+    }
+    
+    private void applyPaid(Event event) throws EventFormatException {
+        advance(event, event.getLineNum() + 1);
+        Table table = event.findTable(restaurant);
+        if (table == null) {
+            throw error();
+        }
+        table.payForDishes();
+    }
+    
+    private void applyChecked(Event event) throws EventFormatException {
+        advance(event, event.getLineNum() + 1);
+        Manager manager = event.findManager(restaurant);
+        if (manager == null) {
+            throw error();
+        }
+        manager.checkInventory();
+    }
+    
+    private void applyReceived(Event event) throws EventFormatException {
+        advance(event, event.getLineNum() + 1);
+        Receiver receiver = event.findReceiver(restaurant);
+        if (receiver == null) {
+            throw error();
+        }
+        for (int i = 0; i < event.getIngredientCount(); i++) {
+            lineNum = event.getLineNum() + 2 + i;
+            receiver.receiveIngredients(event.getIngredient(i), event.getIngredientAmount(i));
+        }
+    }
+    
+}
@@ -0,0 +1,34 @@
+package restaurant;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a line of an events file cannot be understood or refers to something that does not
+ * exist in the Restaurant.
+ */
+public class EventFormatException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int lineNum;
+    
+    /**
+     * Creates a new EventFormatException for the specified line.
+     *
+     * @param lineNum The line number of the bad line
+     */
+    public EventFormatException(int lineNum) {
+        super("Bad event on line " + lineNum);
+        this.lineNum = lineNum;
+    }
+    
+    /**
+     * Returns the line number of the bad line.
+     *
+     * @return The line number of the bad line
+     */
+    public int getLineNum() {
+        return lineNum;
+    }
+    
+}
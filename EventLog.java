@@ -0,0 +1,423 @@
+package restaurant;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An EventLog is a durable, append-only file of the Events that have been applied to a Restaurant,
+ * each numbered with the count of Events applied once it was. After a crash, the Restaurant is
+ * rebuilt by restoring the newest Checkpoint and replaying the logged Events that came after it.
+ *
+ * <p>Appending an Event only copies it into a pending buffer. A background thread writes the
+ * pending Events to the file and forces them to disk together, once the oldest of them has waited
+ * for the maximum delay or the buffer is full, so at peak many Events share one fsync. Threads that
+ * need an Event to be on disk before carrying on call awaitDurable.
+ *
+ * <p>Each record is its length, its number, the Event and a CRC32 of the number and Event. A record
+ * that was only partly written when the process died is found by its length or CRC and cut off
+ * when the log is opened again.
+ */
+public class EventLog implements Closeable {
+    
+    private static final int MAX_PENDING = 1 << 20;
+    
+    private final FileChannel channel;
+    private final long maxDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasEvents = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private Bytes pending = new Bytes(1 << 16);
+    private Bytes batch = new Bytes(1 << 16);
+    private long firstPendingNanos = 0;
+    private long lastSequence;
+    private long durableSequence;
+    private long syncs = 0;
+    private boolean closed = false;
+    private IOException failure = null;
+    private Thread flusher = null;
+    
+    /**
+     * Opens the EventLog in the specified file, creating it if there is none. Any partly written
+     * record at the end of the file is cut off.
+     *
+     * @param path          The file of the log
+     * @param maxDelayNanos The longest time, in nanoseconds, an appended Event waits before it is
+     *                      written and forced to disk
+     * @throws IOException If the file could not be opened
+     */
+    public EventLog(Path path, long maxDelayNanos) throws IOException {
+        this.maxDelayNanos = maxDelayNanos;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Scan scan = new Scan(channel);
+        while (scan.next()) {
+            //Find the end of the last whole record
+        }
+        channel.truncate(scan.end);
+        channel.position(scan.end);
+        lastSequence = scan.sequence;
+        durableSequence = scan.sequence;
+    }
+    
+    /**
+     * Opens the EventLog in the specified file with a maximum delay of 2 milliseconds.
+     *
+     * @param path The file of the log
+     * @return The EventLog
+     * @throws IOException If the file could not be opened
+     */
+    public static EventLog open(Path path) throws IOException {
+        return new EventLog(path, TimeUnit.MILLISECONDS.toNanos(2));
+    }
+    
+    /**
+     * Returns the number of the last Event in this log, including ones not yet on disk, or 0 if it
+     * is empty.
+     *
+     * @return The number of the last Event
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of the last Event that has been forced to disk.
+     *
+     * @return The number of the last durable Event
+     */
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns how many times this log has forced Events to disk.
+     *
+     * @return The number of fsyncs
+     */
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Appends the specified Event to this log. It is written to disk later, with the Events appended
+     * around the same time.
+     *
+     * @param sequence The number of the Event, which is the number of Events that had been applied
+     *                 once it was; it must be greater than the number of the last Event in the log
+     * @param event    The Event that was applied
+     * @throws IllegalArgumentException If the number is not greater than the last one
+     * @throws UncheckedIOException     If writing the log has failed
+     */
+    public void append(long sequence, Event event) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The event log has been closed");
+            }
+            checkFailure();
+            if (sequence <= lastSequence) {
+                throw new IllegalArgumentException("Event " + sequence + " is not after event "
+                        + lastSequence);
+            }
+            if (flusher == null) {
+                flusher = new Thread(this::run, "Event log");
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            while (pending.size() >= MAX_PENDING && failure == null) {
+                synced.awaitUninterruptibly();
+            }
+            checkFailure();
+            int start = pending.size();
+            pending.putInt(0);
+            pending.putLong(sequence);
+            event.writeTo(pending);
+            pending.putInt(pending.crc(start + 4));
+            pending.setInt(start, pending.size() - start - 4);
+            if (start == 0) {
+                firstPendingNanos = System.nanoTime();
+                hasEvents.signal();
+            } else if (pending.size() >= MAX_PENDING) {
+                hasEvents.signal();
+            }
+            lastSequence = sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Waits until the Event with the specified number, and every Event before it, has been forced
+     * to disk.
+     *
+     * @param sequence The number of the Event
+     * @throws IOException If writing the log failed
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence && failure == null && !(closed && flusher == null)) {
+                synced.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Writes and forces to disk every appended Event, stops the background thread and closes the
+     * file.
+     *
+     * @throws IOException If writing or closing the log failed
+     */
+    @Override
+    public void close() throws IOException {
+        Thread stopping;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stopping = flusher;
+            hasEvents.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (stopping != null) {
+            boolean interrupted = false;
+            while (stopping.isAlive()) {
+                try {
+                    stopping.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            flusher = null;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+    
+    /**
+     * Writes and forces batches to disk until this log is closed and everything pending has been
+     * written.
+     */
+    private void run() {
+        while (true) {
+            long batchSequence;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    hasEvents.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                //Let more Events join the batch until the oldest has waited long enough
+                long wait = firstPendingNanos + maxDelayNanos - System.nanoTime();
+                while (wait > 0 && pending.size() < MAX_PENDING && !closed) {
+                    try {
+                        wait = hasEvents.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                Bytes full = pending;
+                pending = batch;
+                batch = full;
+                batchSequence = lastSequence;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                batch.writeTo(channel);
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            batch.clear();
+            lock.lock();
+            try {
+                if (error != null) {
+                    if (failure == null) {
+                        failure = error;
+                    }
+                } else {
+                    durableSequence = batchSequence;
+                    syncs++;
+                }
+                synced.signalAll();
+                if (failure != null) {
+                    pending.clear();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Applies every Event in the log in the specified file that the specified EventApplier has not
+     * applied yet, that is, whose number is greater than its count of Events applied. Their messages
+     * are not written to the Restaurant's output, and the ingredients they run low on are not
+     * requested again, since the run that logged them requested them; the output and requests are
+     * restored afterwards.
+     *
+     * @param path    The file of the log; if there is none, nothing is replayed
+     * @param applier The EventApplier to apply the Events with
+     * @return The number of Events replayed
+     * @throws IOException If the file could not be read, an Event is missing from the log, or an
+     *                     Event could not be applied
+     */
+    public static long replay(Path path, EventApplier applier) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long replayed = 0;
+        Restaurant restaurant = applier.getRestaurant();
+        OutputSink output = restaurant.getOutput();
+        boolean requestsMuted = restaurant.isRequestsMuted();
+        restaurant.setOutput(OutputSink.none());
+        restaurant.setRequestsMuted(true);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Scan scan = new Scan(channel);
+            while (scan.next()) {
+                if (scan.sequence <= applier.getEventsApplied()) {
+                    continue;
+                }
+                if (scan.sequence != applier.getEventsApplied() + 1) {
+                    throw new IOException("Event log is missing events "
+                            + (applier.getEventsApplied() + 1) + " to " + (scan.sequence - 1));
+                }
+                applier.apply(scan.event());
+                replayed++;
+            }
+        } finally {
+            restaurant.setRequestsMuted(requestsMuted);
+            restaurant.setOutput(output);
+        }
+        return replayed;
+    }
+    
+    /**
+     * Reads the whole records of a log one at a time, stopping at the end of the file or at the
+     * first record that was only partly written.
+     */
+    private static class Scan {
+        
+        private final FileChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private ByteBuffer record = ByteBuffer.allocate(4096);
+        private long end = 0;
+        private long sequence = 0;
+        
+        Scan(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        /**
+         * Reads the next record, returning whether there was a whole one.
+         */
+        boolean next() throws IOException {
+            header.clear();
+            if (!readFully(header, end)) {
+                return false;
+            }
+            int length = header.getInt(0);
+            if (length < 12 || length > 64 * MAX_PENDING) {
+                return false;
+            }
+            if (record.capacity() < length) {
+                record = ByteBuffer.allocate(Math.max(length, record.capacity() * 2));
+            }
+            record.clear().limit(length);
+            if (!readFully(record, end + 4)) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, length - 4);
+            if (record.getInt(length - 4) != (int) crc.getValue()) {
+                return false;
+            }
+            long recordSequence = record.getLong(0);
+            if (recordSequence <= sequence) {
+                return false;
+            }
+            sequence = recordSequence;
+            end += 4 + length;
+            return true;
+        }
+        
+        /**
+         * Returns the Event in the record just read.
+         */
+        Event event() throws IOException {
+            ByteBuffer in = ByteBuffer.wrap(record.array(), 8, record.limit() - 12);
+            try {
+                return Event.readFrom(in);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt event " + sequence + " in event log", e);
+            }
+        }
+        
+        private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,358 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An EventPipeline applies the Events of an EventSource to a Restaurant in four stages, each on a
+ * thread of its own: one reads the Events, one looks up the tables, employees, MenuItems and mods
+ * they name, one applies them with an EventApplier, and the last appends them to an EventLog. The
+ * stages pass Events along a ring of slots that is made up front, in the style of a disruptor: each
+ * stage publishes how many slots it has finished with, waits for the stage before it, and handles
+ * every slot that is ready in one batch before publishing again, so the stages share no locks and
+ * a busy pipeline needs only one handoff for many Events. The reading stage waits for the last stage
+ * to finish with a slot before filling it again.
+ *
+ * <p>Events are applied in order and the first one that fails stops the pipeline, just as in a
+ * single loop, though the reading and looking up may have gone on a little further. The Events
+ * applied before it are all logged. The restaurant's messages are written by the applying stage as
+ * before, so an AsyncOutputSink is what takes writing them off that stage.
+ *
+ * <p>Each stage spins on a thread of its own while it waits, so the stages only overlap, and the
+ * pipeline only beats applying the Events in a single loop, when there is a core for each of them.
+ * On fewer cores the loop is as fast and uses one thread, which is why Phase1 only runs a pipeline
+ * when asked to.
+ */
+public class EventPipeline {
+    
+    /**
+     * The number of slots in the ring used when none is given.
+     */
+    public static final int DEFAULT_RING_SIZE = 1 << 12;
+    
+    private static final int MAX_BATCH = 256; //The most Events read before they are published
+    private static final int SPINS = 100; //How many times a stage spins before it yields
+    private static final int YIELDS = 100; //How many times a stage yields before it parks
+    private static final long PARK_NANOS = 50_000;
+    private static final int PADDING = 16; //Keeps each stage's sequence on its own cache line
+    
+    private static final int READ = 0;
+    private static final int RESOLVE = 1;
+    private static final int APPLY = 2;
+    private static final int LOG = 3;
+    private static final String[] STAGE_NAMES = {"read", "resolve", "apply", "log"};
+    
+    /**
+     * What a slot holds.
+     */
+    private enum Kind {
+        EVENT, SKIPPED, END, ERROR
+    }
+    
+    private final EventSource source;
+    private final EventApplier applier;
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLongArray sequences = new AtomicLongArray(PADDING * STAGE_NAMES.length);
+    private EventLog log = null;
+    private long eventsToSkip = 0;
+    private long checkpointInterval = 0;
+    private Runnable checkpoint = null;
+    private volatile boolean halted = false;
+    private long failedSequence = Long.MAX_VALUE;
+    private Exception failure = null;
+    
+    /**
+     * Creates a new EventPipeline that applies the Events of the specified EventSource with the
+     * specified EventApplier, through a ring of the default size.
+     *
+     * @param source  Where the Events are read from
+     * @param applier What applies the Events to its Restaurant
+     */
+    public EventPipeline(EventSource source, EventApplier applier) {
+        this(source, applier, DEFAULT_RING_SIZE);
+    }
+    
+    /**
+     * Creates a new EventPipeline that applies the Events of the specified EventSource with the
+     * specified EventApplier, through a ring of the specified size.
+     *
+     * @param source   Where the Events are read from
+     * @param applier  What applies the Events to its Restaurant
+     * @param ringSize The number of slots in the ring, a power of two
+     * @throws IllegalArgumentException If ringSize is not a power of two
+     */
+    public EventPipeline(EventSource source, EventApplier applier, int ringSize) {
+        if (ringSize < 1 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size is not a power of two: " + ringSize);
+        }
+        this.source = source;
+        this.applier = applier;
+        ring = new Slot[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new Slot();
+        }
+        mask = ringSize - 1;
+    }
+    
+    /**
+     * Sets the EventLog that every applied Event is appended to, numbered by how many Events the
+     * EventApplier had applied once it was, or null if Events are not logged.
+     *
+     * @param log The EventLog, or null
+     */
+    public void setLog(EventLog log) {
+        this.log = log;
+    }
+    
+    /**
+     * Sets the number of Events at the start of the source that are read but not applied or
+     * logged, because they were applied before, as when carrying on from a Checkpoint.
+     *
+     * @param eventsToSkip The number of Events to skip
+     */
+    public void setEventsToSkip(long eventsToSkip) {
+        this.eventsToSkip = eventsToSkip;
+    }
+    
+    /**
+     * Sets what is done each time the EventApplier has applied a multiple of the specified number
+     * of Events, such as capturing a Checkpoint. It runs on the applying stage, once every Event
+     * applied so far has been logged, so the log never falls behind a Checkpoint.
+     *
+     * @param interval   The number of Events applied between checkpoints
+     * @param checkpoint What to do, or null for nothing
+     * @throws IllegalArgumentException If checkpoint is not null and interval is not positive
+     */
+    public void setCheckpoint(long interval, Runnable checkpoint) {
+        if (checkpoint != null && interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval is not positive: " + interval);
+        }
+        this.checkpointInterval = interval;
+        this.checkpoint = checkpoint;
+    }
+    
+    /**
+     * Runs every stage until the source runs out of Events or one of them fails, and waits for them
+     * all to stop.
+     *
+     * @throws IOException           If the source could not be read or an Event could not be applied
+     * @throws UncheckedIOException  If an Event could not be logged
+     * @throws InterruptedException  If interrupted while waiting for the stages to stop
+     */
+    public void run() throws IOException, InterruptedException {
+        Runnable[] stages = {this::read, this::resolve, this::apply, this::log};
+        Thread[] threads = new Thread[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            Runnable stage = stages[i];
+            threads[i] = new Thread(() -> {
+                try {
+                    stage.run();
+                } catch (RuntimeException e) {
+                    fail(Long.MAX_VALUE - 1, e);
+                }
+            }, "Event pipeline " + STAGE_NAMES[i]);
+            threads[i].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            halted = true;
+            throw e;
+        }
+        synchronized (this) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+        }
+    }
+    
+    private void read() {
+        int size = ring.length;
+        long next = 0;
+        while (true) {
+            long free = waitFor(LOG, next - size + 1);
+            if (free < 0) {
+                return;
+            }
+            long end = Math.min(free + size, next + MAX_BATCH);
+            boolean done = false;
+            while (next < end && !done) {
+                Slot slot = ring[(int) next & mask];
+                try {
+                    slot.event = source.next();
+                    slot.kind = slot.event == null ? Kind.END : Kind.EVENT;
+                } catch (IOException e) {
+                    slot.kind = Kind.ERROR;
+                    slot.error = e;
+                }
+                done = slot.kind != Kind.EVENT;
+                next++;
+            }
+            sequences.set(READ * PADDING, next);
+            if (done) {
+                return;
+            }
+        }
+    }
+    
+    private void resolve() {
+        Restaurant restaurant = applier.getRestaurant();
+        long next = 0;
+        while (true) {
+            long available = waitFor(READ, next + 1);
+            if (available < 0) {
+                return;
+            }
+            boolean done = false;
+            while (next < available && !done) {
+                Slot slot = ring[(int) next & mask];
+                if (slot.kind == Kind.EVENT) {
+                    slot.event.resolve(restaurant);
+                } else {
+                    done = true;
+                }
+                next++;
+            }
+            sequences.set(RESOLVE * PADDING, next);
+            if (done) {
+                return;
+            }
+        }
+    }
+    
+    private void apply() {
+        long next = 0;
+        while (true) {
+            long available = waitFor(RESOLVE, next + 1);
+            if (available < 0) {
+                return;
+            }
+            boolean done = false;
+            while (next < available && !done) {
+                Slot slot = ring[(int) next & mask];
+                if (slot.kind == Kind.EVENT) {
+                    if (eventsToSkip > 0) {
+                        eventsToSkip--;
+                        slot.kind = Kind.SKIPPED;
+                    } else {
+                        try {
+                            applier.apply(slot.event);
+                            slot.sequence = applier.getEventsApplied();
+                        } catch (EventFormatException e) {
+                            slot.kind = Kind.ERROR;
+                            slot.error = e;
+                        }
+                    }
+                }
+                done = slot.kind == Kind.END || slot.kind == Kind.ERROR;
+                next++;
+                if (!done && slot.kind == Kind.EVENT && checkpoint != null
+                        && slot.sequence % checkpointInterval == 0) {
+                    sequences.set(APPLY * PADDING, next);
+                    if (waitFor(LOG, next) < 0) {
+                        return;
+                    }
+                    checkpoint.run();
+                }
+            }
+            sequences.set(APPLY * PADDING, next);
+            if (done) {
+                return;
+            }
+        }
+    }
+    
+    private void log() {
+        long next = 0;
+        while (true) {
+            long available = waitFor(APPLY, next + 1);
+            if (available < 0) {
+                return;
+            }
+            boolean done = false;
+            while (next < available && !done) {
+                Slot slot = ring[(int) next & mask];
+                if (slot.kind == Kind.EVENT) {
+                    if (log != null) {
+                        try {
+                            log.append(slot.sequence, slot.event);
+                        } catch (UncheckedIOException e) {
+                            fail(next, e);
+                            return;
+                        }
+                    }
+                } else if (slot.kind == Kind.END || slot.kind == Kind.ERROR) {
+                    if (slot.kind == Kind.ERROR) {
+                        fail(next, slot.error);
+                    }
+                    done = true;
+                }
+                slot.event = null;
+                slot.error = null;
+                next++;
+            }
+            sequences.set(LOG * PADDING, next);
+            if (done) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Waits until the specified stage has finished with at least the specified number of slots,
+     * spinning at first, then yielding, then parking.
+     *
+     * @return The number of slots the stage has finished with, or -1 if the pipeline was halted
+     */
+    private long waitFor(int stage, long sequence) {
+        int idle = 0;
+        long available = sequences.get(stage * PADDING);
+        while (available < sequence) {
+            if (halted) {
+                return -1;
+            }
+            if (idle < SPINS) {
+                Thread.onSpinWait();
+            } else if (idle < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            idle++;
+            available = sequences.get(stage * PADDING);
+        }
+        return available;
+    }
+    
+    /**
+     * Records that the slot with the specified sequence failed, keeping the earliest failure, and
+     * halts every stage.
+     */
+    private synchronized void fail(long sequence, Exception e) {
+        if (sequence < failedSequence) {
+            failedSequence = sequence;
+            failure = e;
+        }
+        halted = true;
+    }
+    
+    /**
+     * One place in the ring.
+     */
+    private static class Slot {
+        
+        private Kind kind = null;
+        private Event event = null;
+        private IOException error = null;
+        private long sequence = 0; //The number the Event is logged with
+        
+    }
+    
+}
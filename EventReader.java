@@ -0,0 +1,490 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An EventReader reads the blocks of an events file into Events. The file is memory-mapped and
+ * read byte by byte: numbers are parsed straight from the mapped bytes, and a name such as a cook's
+ * or a MenuItem's is only turned into a String the first time it is seen.
+ *
+ * <p>Lines are numbered the same way as the Scanner loop that Phase1 used to run, so the line
+ * numbers in Events and in EventFormatExceptions match the error messages users already know. Lines
+ * may end in "\n", "\r\n" or "\r", and names are read as UTF-8.
+ */
+public class EventReader implements EventSource {
+    
+    private static final long WINDOW_SIZE = 1L << 28;
+    private static final byte[] ORDER = bytes("Order ");
+    private static final byte[] SEEN = bytes("Seen");
+    private static final byte[] FILLED = bytes("Filled");
+    private static final byte[] DELIVERED = bytes("Delivered");
+    private static final byte[] PAID = bytes("Paid");
+    private static final byte[] CHECKED = bytes("Checked");
+    private static final byte[] RECEIVED = bytes("Received");
+    private static final byte[] TABLE = bytes("Table: ");
+    private static final byte[] SERVER = bytes("Server: ");
+    private static final byte[] COOK = bytes("Cook: ");
+    private static final byte[] MANAGER = bytes("Manager: ");
+    private static final byte[] RECEIVER = bytes("Receiver: ");
+    private static final byte[] ORDER_NUM = bytes("Order: ");
+    private static final byte[] DISH = bytes("Dish ");
+    private static final byte[] DISHES = bytes("Dishes: ");
+    private static final byte[] REJECTED = bytes("Rejected: ");
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+    
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private final long fileSize; //Where the part of the file being read ends
+    private MappedByteBuffer buffer = null;
+    private long bufferStart = 0;
+    private int pos = 0;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+    private int lineNum = 0;
+    private String[] names = new String[256];
+    private byte[][] nameBytes = new byte[256][];
+    private int nameCount = 0;
+    
+    /**
+     * Opens the specified events file for reading.
+     *
+     * @param path The path of the events file
+     * @throws IOException If the file could not be opened or mapped
+     */
+    public EventReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ownsChannel = true;
+        fileSize = channel.size();
+        map(0);
+    }
+    
+    /**
+     * Reads the part of an open events file between the specified positions, which must both be
+     * at the start of a block or the end of the file. Lines are numbered from the start of the
+     * part, and the file is left open when this EventReader is closed.
+     *
+     * @param channel The events file
+     * @param start   The position of the first byte to read
+     * @param end     The position after the last byte to read
+     * @throws IOException If the part could not be mapped
+     */
+    EventReader(FileChannel channel, long start, long end) throws IOException {
+        this.channel = channel;
+        ownsChannel = false;
+        fileSize = end;
+        map(start);
+    }
+    
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Returns the line number of the last line that was read.
+     *
+     * @return The line number of the last line read
+     */
+    public int getLineNum() {
+        return lineNum;
+    }
+    
+    /**
+     * Reads the next block of the file. If a line of the block cannot be read, the returned Event
+     * holds what came before that line and records it as its error line. The block's first line must
+     * name a known kind of event; if it does not, an EventFormatException is thrown instead.
+     *
+     * @return The next Event, or null if the end of the file has been reached
+     * @throws IOException If the file could not be read or a block has an unknown first line
+     */
+    @Override
+    public Event next() throws IOException {
+        if (bufferStart + pos >= fileSize) {
+            return null;
+        }
+        nextLine();
+        int start = lineStart;
+        if (lineEnd - start >= 3 && buffer.get(start) == (byte) 0xEF
+                && buffer.get(start + 1) == (byte) 0xBB && buffer.get(start + 2) == (byte) 0xBF) {
+            start += 3; //Skip the byte order mark
+        }
+        if (startsWith(start, ORDER)) {
+            long orderID = parseInt(start + ORDER.length, lineEnd);
+            if (orderID == NOT_A_NUMBER) {
+                throw new EventFormatException(lineNum);
+            }
+            return readOrder((int) orderID);
+        } else if (lineEquals(start, SEEN)) {
+            return readDishes(new Event(Event.Type.SEEN, lineNum));
+        } else if (lineEquals(start, FILLED)) {
+            return readDishes(new Event(Event.Type.FILLED, lineNum));
+        } else if (lineEquals(start, DELIVERED)) {
+            return readDelivered();
+        } else if (lineEquals(start, PAID)) {
+            return readPaid();
+        } else if (lineEquals(start, CHECKED)) {
+            return readChecked();
+        } else if (lineEquals(start, RECEIVED)) {
+            return readReceived();
+        }
+        throw new EventFormatException(lineNum);
+    }
+    
+    private Event readOrder(int orderID) throws IOException {
+        Event event = new Event(Event.Type.ORDER, lineNum);
+        event.setOrderID(orderID);
+        if (!nextLine() || !startsWith(lineStart, TABLE)) {
+            return event.fail(lineNum);
+        }
+        long tableNum = parseInt(lineStart + TABLE.length, lineEnd);
+        if (tableNum == NOT_A_NUMBER) {
+            return event.fail(lineNum);
+        }
+        event.setTableNum((int) tableNum);
+        if (!nextLine() || !startsWith(lineStart, SERVER)) {
+            return event.fail(lineNum);
+        }
+        event.setEmployee(name(lineStart + SERVER.length, lineEnd));
+        if (!nextLine()) {
+            return event.fail(lineNum);
+        }
+        while (lineEnd > lineStart) {
+            //Read dish sub-block
+            long dishID = startsWith(lineStart, DISH)
+                    ? parseInt(lineStart + DISH.length, lineEnd) : NOT_A_NUMBER;
+            if (dishID == NOT_A_NUMBER) {
+                return event.fail(lineNum);
+            }
+            Event.DishSpec dish = new Event.DishSpec((int) dishID, lineNum);
+            event.addDish(dish);
+            if (!nextLine()) {
+                return event.fail(lineNum);
+            }
+            dish.setItem(name(lineStart, lineEnd));
+            if (!nextLine()) {
+                return event.fail(lineNum);
+            }
+            while (lineEnd > lineStart && !startsWith(lineStart, DISH)) {
+                dish.addMod(name(lineStart, lineEnd));
+                if (!nextLine()) {
+                    return event.fail(lineNum);
+                }
+            }
+        }
+        return event;
+    }
+    
+    private Event readDishes(Event event) throws IOException {
+        if (!nextLine() || !startsWith(lineStart, COOK)) {
+            return event.fail(lineNum);
+        }
+        event.setEmployee(name(lineStart + COOK.length, lineEnd));
+        if (!readOrderNum(event) || !nextLine() || !startsWith(lineStart, DISHES)
+                || !readDishIDs(event, lineStart + DISHES.length)) {
+            return event.fail(lineNum);
+        }
+        return readBlankLine(event);
+    }
+    
+    private Event readDelivered() throws IOException {
+        Event event = new Event(Event.Type.DELIVERED, lineNum);
+        if (!nextLine() || !startsWith(lineStart, SERVER)) {
+            return event.fail(lineNum);
+        }
+        event.setEmployee(name(lineStart + SERVER.length, lineEnd));
+        if (!readOrderNum(event) || !nextLine()) {
+            return event.fail(lineNum);
+        }
+        if (lineEnd > lineStart) { //Are any dishes rejected at all?
+            event.setRejectedLine(true);
+            if (!startsWith(lineStart, REJECTED)
+                    || !readDishIDs(event, lineStart + REJECTED.length)) {
+                return event.fail(lineNum);
+            }
+            return readBlankLine(event);
+        }
+        return event;
+    }
+    
+    private Event readPaid() throws IOException {
+        Event event = new Event(Event.Type.PAID, lineNum);
+        if (!nextLine() || !startsWith(lineStart, TABLE)) {
+            return event.fail(lineNum);
+        }
+        long tableNum = parseInt(lineStart + TABLE.length, lineEnd);
+        if (tableNum == NOT_A_NUMBER) {
+            return event.fail(lineNum);
+        }
+        event.setTableNum((int) tableNum);
+        return readBlankLine(event);
+    }
+    
+    private Event readChecked() throws IOException {
+        Event event = new Event(Event.Type.CHECKED, lineNum);
+        if (!nextLine() || !startsWith(lineStart, MANAGER)) {
+            return event.fail(lineNum);
+        }
+        event.setEmployee(name(lineStart + MANAGER.length, lineEnd));
+        return readBlankLine(event);
+    }
+    
+    private Event readReceived() throws IOException {
+        Event event = new Event(Event.Type.RECEIVED, lineNum);
+        if (!nextLine() || !startsWith(lineStart, RECEIVER)) {
+            return event.fail(lineNum);
+        }
+        event.setEmployee(name(lineStart + RECEIVER.length, lineEnd));
+        if (!nextLine()) {
+            return event.fail(lineNum);
+        }
+        while (lineEnd > lineStart) {
+            //Read ingredient information
+            int amountEnd = indexOf(lineStart, (byte) ' ');
+            long amount = amountEnd < 0 ? NOT_A_NUMBER : parseInt(lineStart, amountEnd);
+            if (amount == NOT_A_NUMBER) {
+                return event.fail(lineNum);
+            }
+            event.addIngredient(name(amountEnd + 1, lineEnd), (int) amount);
+            if (!nextLine()) {
+                return event.fail(lineNum);
+            }
+        }
+        return event;
+    }
+    
+    private boolean readOrderNum(Event event) throws IOException {
+        if (!nextLine() || !startsWith(lineStart, ORDER_NUM)) {
+            return false;
+        }
+        long orderID = parseInt(lineStart + ORDER_NUM.length, lineEnd);
+        if (orderID == NOT_A_NUMBER) {
+            return false;
+        }
+        event.setOrderID((int) orderID);
+        return true;
+    }
+    
+    /**
+     * Reads the ", "-separated dish ids from the specified position to the end of the current line
+     * into the specified Event, stopping at the first id that is not a number. Like String.split,
+     * empty ids at the end of the list are ignored.
+     */
+    private boolean readDishIDs(Event event, int start) {
+        int end = lineEnd;
+        //Drop trailing empty ids, as String.split does
+        boolean split = false;
+        while (end - start >= 2 && buffer.get(end - 2) == ',' && buffer.get(end - 1) == ' ') {
+            end -= 2;
+            split = true;
+        }
+        if (split && end == start) {
+            return true;
+        }
+        int idStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || (buffer.get(i) == ',' && i + 1 < end && buffer.get(i + 1) == ' ')) {
+                long dishID = parseInt(idStart, i);
+                if (dishID == NOT_A_NUMBER) {
+                    return false;
+                }
+                event.addDishID((int) dishID);
+                i++;
+                idStart = i + 1;
+            }
+        }
+        return true;
+    }
+    
+    private Event readBlankLine(Event event) throws IOException {
+        if (!nextLine() || lineEnd > lineStart) {
+            return event.fail(lineNum);
+        }
+        return event;
+    }
+    
+    /**
+     * Advances to the next line of the file, whose bytes are then between lineStart and lineEnd in
+     * the buffer. The line number is advanced even if the end of the file has been reached, as
+     * reading past the end of the file is an error on that line.
+     *
+     * @return Whether there was a next line
+     */
+    private boolean nextLine() throws IOException {
+        lineNum++;
+        if (bufferStart + pos >= fileSize) {
+            return false;
+        }
+        while (true) {
+            int limit = buffer.limit();
+            boolean lastWindow = bufferStart + limit >= fileSize;
+            int i = pos;
+            while (i < limit) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                i++;
+            }
+            if (i + 1 < limit || lastWindow) {
+                lineStart = pos;
+                lineEnd = i;
+                if (i < limit && buffer.get(i) == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+                    i++;
+                }
+                pos = Math.min(i + 1, limit);
+                return true;
+            }
+            //The line runs past the end of the mapped window
+            if (pos == 0) {
+                throw new IOException("Line " + lineNum + " is too long");
+            }
+            map(bufferStart + pos);
+        }
+    }
+    
+    private void map(long start) throws IOException {
+        bufferStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.min(WINDOW_SIZE, fileSize - start));
+        pos = 0;
+    }
+    
+    private boolean startsWith(int start, byte[] prefix) {
+        if (lineEnd - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean lineEquals(int start, byte[] text) {
+        return lineEnd - start == text.length && startsWith(start, text);
+    }
+    
+    private int indexOf(int start, byte b) {
+        for (int i = start; i < lineEnd; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Parses the bytes between start and end as a decimal int, in the same way as
+     * Integer.parseInt.
+     *
+     * @return The int, or NOT_A_NUMBER if the bytes are not a valid int
+     */
+    private long parseInt(int start, int end) {
+        if (start >= end) {
+            return NOT_A_NUMBER;
+        }
+        boolean negative = false;
+        byte first = buffer.get(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+            if (start == end) {
+                return NOT_A_NUMBER;
+            }
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return NOT_A_NUMBER;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? NOT_A_NUMBER : value;
+    }
+    
+    /**
+     * Returns the name made up of the bytes between start and end. Names are kept in an
+     * open-addressing table keyed by their bytes, so a name that has been seen before is returned
+     * without creating a new String.
+     */
+    private String name(int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int mask = names.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            byte[] candidate = nameBytes[slot];
+            if (candidate == null) {
+                byte[] bytes = new byte[end - start];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = buffer.get(start + i);
+                }
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                nameBytes[slot] = bytes;
+                names[slot] = name;
+                if (++nameCount * 2 > names.length) {
+                    growNames();
+                }
+                return name;
+            }
+            if (candidate.length == end - start && sameBytes(candidate, start)) {
+                return names[slot];
+            }
+        }
+    }
+    
+    private boolean sameBytes(byte[] candidate, int start) {
+        for (int i = 0; i < candidate.length; i++) {
+            if (candidate[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void growNames() {
+        String[] oldNames = names;
+        byte[][] oldBytes = nameBytes;
+        names = new String[oldNames.length * 2];
+        nameBytes = new byte[oldBytes.length * 2][];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldBytes.length; i++) {
+            if (oldBytes[i] != null) {
+                int hash = 1;
+                for (byte b : oldBytes[i]) {
+                    hash = 31 * hash + b;
+                }
+                int slot = hash & mask;
+                while (nameBytes[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                nameBytes[slot] = oldBytes[i];
+                names[slot] = oldNames[i];
+            }
+        }
+    }
+    
+    /**
+     * Closes the events file, unless this EventReader only reads part of a file opened elsewhere.
+     *
+     * @throws IOException If the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+    
+}
@@ -0,0 +1,22 @@
+package restaurant;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An EventSource gives the blocks of an events file as Events, one at a time and in the order they
+ * appear in the file.
+ */
+public interface EventSource extends Closeable {
+    
+    /**
+     * Returns the next block of the file. If a line of the block cannot be read, the returned Event
+     * holds what came before that line and records it as its error line. The block's first line must
+     * name a known kind of event; if it does not, an EventFormatException is thrown instead.
+     *
+     * @return The next Event, or null if the end of the file has been reached
+     * @throws IOException If the file could not be read or a block has an unknown first line
+     */
+    Event next() throws IOException;
+    
+}
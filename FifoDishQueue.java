@@ -0,0 +1,41 @@
+package restaurant;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A DishQueue that hands out one dish at a time, in the order they were added, to whichever Cook
+ * asks first.
+ */
+public class FifoDishQueue implements DishQueue {
+    
+    private final BlockingQueue<OrderDish> dishes = new LinkedBlockingQueue<>();
+    
+    @Override
+    public void start(int numCooks) {
+    }
+    
+    @Override
+    public void add(OrderDish dish) {
+        dishes.add(dish);
+    }
+    
+    @Override
+    public int take(int cook, List<OrderDish> batch, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        OrderDish dish = dishes.poll(timeout, unit);
+        if (dish == null) {
+            return 0;
+        }
+        batch.add(dish);
+        return 1;
+    }
+    
+    @Override
+    public int size() {
+        return dishes.size();
+    }
+    
+}
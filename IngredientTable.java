@@ -0,0 +1,65 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An IngredientTable gives every ingredient name a dense int id, starting at 0, the first time the
+ * name is seen. The ids index the Restaurant's inventory arrays and the IngredientVectors of menu
+ * items and mods, so that the kitchen never has to look an ingredient up by name.
+ */
+public class IngredientTable {
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    
+    /**
+     * Returns the id of the ingredient with the specified name, giving it the next free id if it
+     * does not have one yet.
+     *
+     * @param name The name of the ingredient
+     * @return The id of the ingredient
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+    
+    /**
+     * Returns the id of the ingredient with the specified name, or -1 if it does not have one.
+     *
+     * @param name The name of the ingredient
+     * @return The id of the ingredient, or -1 if there is none
+     */
+    public int getID(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * Returns the name of the ingredient with the specified id.
+     *
+     * @param id The id of the ingredient
+     * @return The name of the ingredient
+     */
+    public String getName(int id) {
+        return names.get(id);
+    }
+    
+    /**
+     * Returns the number of ingredients that have ids, which is one more than the largest id.
+     *
+     * @return The number of ingredients in this IngredientTable
+     */
+    public int size() {
+        return names.size();
+    }
+    
+}
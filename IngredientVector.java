@@ -0,0 +1,120 @@
+package restaurant;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An IngredientVector is an immutable list of (ingredient id, amount) pairs, such as the ingredients
+ * needed to make a MenuItem or the ingredient changes made by a MenuItemMod. The ids come from an
+ * IngredientTable and are kept in increasing order.
+ */
+public class IngredientVector {
+    
+    /**
+     * The IngredientVector with no ingredients.
+     */
+    public static final IngredientVector EMPTY = new IngredientVector(new int[0], new int[0]);
+    
+    private final int[] ids;
+    private final int[] amounts;
+    
+    private IngredientVector(int[] ids, int[] amounts) {
+        this.ids = ids;
+        this.amounts = amounts;
+    }
+    
+    /**
+     * Returns an IngredientVector with the ingredients and amounts in the specified Map, giving
+     * ingredients ids from the specified IngredientTable.
+     *
+     * @param amounts     A Map from ingredient names to amounts
+     * @param ingredients The IngredientTable that gives the ingredients their ids
+     * @return An IngredientVector with the same ingredients and amounts as the Map
+     */
+    public static IngredientVector of(Map<String, Integer> amounts, IngredientTable ingredients) {
+        int[] ids = new int[amounts.size()];
+        int i = 0;
+        for (String ingredient : amounts.keySet()) {
+            ids[i++] = ingredients.intern(ingredient);
+        }
+        Arrays.sort(ids);
+        int[] vectorAmounts = new int[ids.length];
+        for (i = 0; i < ids.length; i++) {
+            vectorAmounts[i] = amounts.get(ingredients.getName(ids[i]));
+        }
+        return new IngredientVector(ids, vectorAmounts);
+    }
+    
+    /**
+     * Returns the number of ingredients in this IngredientVector.
+     *
+     * @return The number of ingredients
+     */
+    public int size() {
+        return ids.length;
+    }
+    
+    /**
+     * Returns the id of the ingredient at the specified index.
+     *
+     * @param index The index of the ingredient
+     * @return The id of the ingredient
+     */
+    public int getID(int index) {
+        return ids[index];
+    }
+    
+    /**
+     * Returns the amount of the ingredient at the specified index.
+     *
+     * @param index The index of the ingredient
+     * @return The amount of the ingredient
+     */
+    public int getAmount(int index) {
+        return amounts[index];
+    }
+    
+    /**
+     * Returns the amount of the ingredient with the specified id, or 0 if it is not in this
+     * IngredientVector.
+     *
+     * @param id The id of the ingredient
+     * @return The amount of the ingredient
+     */
+    public int getAmountOf(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index < 0 ? 0 : amounts[index];
+    }
+    
+    /**
+     * Returns a new IngredientVector holding the sum of the amounts in this IngredientVector and the
+     * specified one. Ingredients that are in either IngredientVector are in the sum.
+     *
+     * @param other The IngredientVector to add to this one
+     * @return The sum of the two IngredientVectors
+     */
+    public IngredientVector plus(IngredientVector other) {
+        if (other.size() == 0) {
+            return this;
+        }
+        int[] sumIDs = new int[ids.length + other.ids.length];
+        int[] sumAmounts = new int[sumIDs.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ids.length || j < other.ids.length) {
+            if (j == other.ids.length || (i < ids.length && ids[i] < other.ids[j])) {
+                sumIDs[n] = ids[i];
+                sumAmounts[n++] = amounts[i++];
+            } else if (i == ids.length || other.ids[j] < ids[i]) {
+                sumIDs[n] = other.ids[j];
+                sumAmounts[n++] = other.amounts[j++];
+            } else {
+                sumIDs[n] = ids[i];
+                sumAmounts[n++] = amounts[i++] + other.amounts[j++];
+            }
+        }
+        return new IngredientVector(Arrays.copyOf(sumIDs, n), Arrays.copyOf(sumAmounts, n));
+    }
+    
+}
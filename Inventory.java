@@ -0,0 +1,537 @@
+package restaurant;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An Inventory keeps the amount and threshold of every ingredient a Restaurant stocks, indexed by
+ * the ids of an IngredientTable. It can be used by many Cooks and Receivers at once.
+ *
+ * <p>Ingredients are spread over a fixed number of lock stripes by id, so threads working on
+ * different ingredients rarely wait for each other. Taking a whole recipe locks just the stripes of
+ * its ingredients, in increasing order so that two recipes can never deadlock, and either takes
+ * every ingredient or none of them. Because every change to an amount is made under its stripe's
+ * lock, the Listener hears about each drop below an ingredient's threshold exactly once, and an
+ * AmountListener hears about every change to an ingredient's free amount in the order they were
+ * made.
+ *
+ * <p>A recipe's ingredients can be held for a dish before it is made, in the same way as they are
+ * taken. Held ingredients stay in stock but are not free: they can only be taken by committing the
+ * hold, which cannot fail, or given back by releasing it.
+ */
+public class Inventory {
+    
+    private static final int STRIPES = 64;
+    
+    private final IngredientTable ingredients;
+    private final Listener listener;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private int[] amounts = new int[0];
+    private int[] thresholds = new int[0];
+    private int[] held = new int[0];
+    private boolean[] stocked = new boolean[0];
+    private volatile AmountListener amountListener = null;
+    
+    /**
+     * Creates a new, empty Inventory for the ingredients in the specified IngredientTable.
+     *
+     * @param ingredients The IngredientTable giving ids to the ingredients
+     * @param listener    The Listener to tell when an ingredient drops below its threshold
+     */
+    public Inventory(IngredientTable ingredients, Listener listener) {
+        this.ingredients = ingredients;
+        this.listener = listener;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Returns the IngredientTable giving ids to the ingredients in this Inventory.
+     *
+     * @return The IngredientTable of this Inventory
+     */
+    public IngredientTable getIngredientTable() {
+        return ingredients;
+    }
+    
+    /**
+     * Sets the AmountListener to tell about every change to an ingredient's amount, or stops telling
+     * one if it is null.
+     *
+     * @param amountListener The AmountListener, or null
+     */
+    public void setAmountListener(AmountListener amountListener) {
+        this.amountListener = amountListener;
+    }
+    
+    /**
+     * Runs the specified action while holding every lock of this Inventory, so that no amount can
+     * change while it runs. The action may read amounts with getAmount and getFreeAmount but must
+     * not wait for other threads that use this Inventory.
+     *
+     * @param action The action to run
+     */
+    void runLocked(Runnable action) {
+        lockAll();
+        try {
+            action.run();
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * Adds the specified ingredient to this Inventory with the specified threshold and amount,
+     * replacing what was there before. If the amount is already below the threshold, the Listener is
+     * told.
+     *
+     * @param ingredient     The name of the ingredient
+     * @param threshold      The amount below which more of the ingredient should be ordered
+     * @param startingAmount The amount of the ingredient in stock
+     * @return The id of the ingredient
+     */
+    public int addIngredient(String ingredient, int threshold, int startingAmount) {
+        int id;
+        lockAll();
+        try {
+            id = ingredients.intern(ingredient);
+            if (id >= stocked.length) {
+                int capacity = Math.max(id + 1, stocked.length * 2);
+                amounts = Arrays.copyOf(amounts, capacity);
+                thresholds = Arrays.copyOf(thresholds, capacity);
+                held = Arrays.copyOf(held, capacity);
+                stocked = Arrays.copyOf(stocked, capacity);
+            }
+            int before = stocked[id] ? amounts[id] - held[id] : 0;
+            thresholds[id] = threshold;
+            amounts[id] = startingAmount;
+            stocked[id] = true;
+            amountChanged(id, before, startingAmount - held[id]);
+        } finally {
+            unlockAll();
+        }
+        if (startingAmount < threshold) {
+            listener.ingredientLow(id);
+        }
+        return id;
+    }
+    
+    /**
+     * Returns whether the ingredient with the specified id is in this Inventory.
+     *
+     * @param id The id of the ingredient
+     * @return Whether the ingredient is stocked
+     */
+    public boolean isStocked(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            return id >= 0 && id < stocked.length && stocked[id];
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the threshold of the ingredient with the specified id.
+     *
+     * @param id The id of the ingredient
+     * @return The threshold of the ingredient
+     * @throws IllegalArgumentException If the ingredient is not in this Inventory
+     */
+    public int getThreshold(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            return thresholds[id];
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the amount in stock of the ingredient with the specified id.
+     *
+     * @param id The id of the ingredient
+     * @return The amount of the ingredient
+     * @throws IllegalArgumentException If the ingredient is not in this Inventory
+     */
+    public int getAmount(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            return amounts[id];
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the amount of the ingredient with the specified id that is in stock and not held for
+     * a dish.
+     *
+     * @param id The id of the ingredient
+     * @return The free amount of the ingredient
+     * @throws IllegalArgumentException If the ingredient is not in this Inventory
+     */
+    public int getFreeAmount(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            return amounts[id] - held[id];
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the amount of the ingredient with the specified id that is held for dishes.
+     *
+     * @param id The id of the ingredient
+     * @return The held amount of the ingredient
+     * @throws IllegalArgumentException If the ingredient is not in this Inventory
+     */
+    public int getHeldAmount(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            return held[id];
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns a copy of the amounts in stock of every ingredient, indexed by id, taken all at once
+     * so that no recipe is seen half taken. Ingredients that are not stocked have an amount of 0.
+     *
+     * @return The amounts of the ingredients
+     */
+    public int[] getAmounts() {
+        lockAll();
+        try {
+            return Arrays.copyOf(amounts, amounts.length);
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * Sets the amount in stock of the ingredient with the specified id, as when restoring a
+     * Checkpoint. The Listener is not told, even if the amount is below the threshold. Holds are
+     * kept.
+     *
+     * @param id     The id of the ingredient
+     * @param amount The amount of the ingredient
+     * @throws IllegalArgumentException If the ingredient is not in this Inventory
+     */
+    void restoreAmount(int id, int amount) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            int before = amounts[id];
+            amounts[id] = amount;
+            amountChanged(id, before - held[id], amount - held[id]);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Adds the specified amount of the ingredient with the specified id to the stock.
+     *
+     * @param id     The id of the ingredient
+     * @param amount The amount to add
+     * @throws IllegalArgumentException If the amount is negative or the ingredient is not in this
+     *                                  Inventory
+     */
+    public void add(int id, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Attempted to add a negative amount of an ingredient");
+        }
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            amounts[id] += amount;
+            amountChanged(id, amounts[id] - held[id] - amount, amounts[id] - held[id]);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Takes the specified amount of the ingredient with the specified id from the stock, if enough of
+     * it is free.
+     *
+     * @param id     The id of the ingredient
+     * @param amount The amount to take
+     * @return Whether there was enough of the ingredient
+     * @throws IllegalArgumentException If the amount is negative or the ingredient is not in this
+     *                                  Inventory
+     */
+    public boolean subtract(int id, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException(
+                    "Attempted to subtract a negative amount of an ingredient");
+        }
+        boolean crossed;
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            checkStocked(id);
+            if (amounts[id] - held[id] < amount) {
+                return false;
+            }
+            crossed = take(id, amount);
+        } finally {
+            lock.unlock();
+        }
+        if (crossed) {
+            listener.ingredientLow(id);
+        }
+        return true;
+    }
+    
+    /**
+     * Takes every ingredient in the specified IngredientVector from the stock, or none of them if
+     * not enough of one is free. No other thread can see some of the ingredients taken and not the
+     * others.
+     *
+     * @param recipe The ingredients and amounts to take
+     * @return Whether enough of every ingredient was free
+     * @throws IllegalArgumentException If an amount is negative or an ingredient is not in this
+     *                                  Inventory; nothing is taken
+     */
+    public boolean consume(IngredientVector recipe) {
+        long stripes = stripesOf(recipe);
+        int[] crossed = null;
+        int numCrossed = 0;
+        lockStripes(stripes);
+        try {
+            if (!isFree(recipe)) {
+                return false;
+            }
+            for (int i = 0; i < recipe.size(); i++) {
+                if (take(recipe.getID(i), recipe.getAmount(i))) {
+                    if (crossed == null) {
+                        crossed = new int[recipe.size()];
+                    }
+                    crossed[numCrossed++] = recipe.getID(i);
+                }
+            }
+        } finally {
+            unlockStripes(stripes);
+        }
+        for (int i = 0; i < numCrossed; i++) {
+            listener.ingredientLow(crossed[i]);
+        }
+        return true;
+    }
+    
+    /**
+     * Holds every ingredient in the specified IngredientVector for a dish, or none of them if not
+     * enough of one is free. The held ingredients stay in stock until the hold is committed or
+     * released, but cannot be taken or held for anything else.
+     *
+     * @param recipe The ingredients and amounts to hold
+     * @return Whether enough of every ingredient was free
+     * @throws IllegalArgumentException If an amount is negative or an ingredient is not in this
+     *                                  Inventory; nothing is held
+     */
+    public boolean hold(IngredientVector recipe) {
+        long stripes = stripesOf(recipe);
+        lockStripes(stripes);
+        try {
+            if (!isFree(recipe)) {
+                return false;
+            }
+            for (int i = 0; i < recipe.size(); i++) {
+                int id = recipe.getID(i);
+                int before = amounts[id] - held[id];
+                held[id] += recipe.getAmount(i);
+                amountChanged(id, before, before - recipe.getAmount(i));
+            }
+            return true;
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+    
+    /**
+     * Gives back the ingredients held by an earlier call to hold with the same IngredientVector,
+     * without taking them from the stock.
+     *
+     * @param recipe The ingredients and amounts that were held
+     */
+    public void release(IngredientVector recipe) {
+        long stripes = stripesOf(recipe);
+        lockStripes(stripes);
+        try {
+            for (int i = 0; i < recipe.size(); i++) {
+                int id = recipe.getID(i);
+                int before = amounts[id] - held[id];
+                held[id] -= recipe.getAmount(i);
+                amountChanged(id, before, before + recipe.getAmount(i));
+            }
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+    
+    /**
+     * Takes from the stock the ingredients held by an earlier call to hold with the same
+     * IngredientVector. The free amounts do not change, so the AmountListener is not told, but the
+     * Listener is told about any ingredient that drops below its threshold.
+     *
+     * @param recipe The ingredients and amounts that were held
+     */
+    public void commit(IngredientVector recipe) {
+        long stripes = stripesOf(recipe);
+        int[] crossed = null;
+        int numCrossed = 0;
+        lockStripes(stripes);
+        try {
+            for (int i = 0; i < recipe.size(); i++) {
+                int id = recipe.getID(i);
+                int before = amounts[id];
+                amounts[id] = before - recipe.getAmount(i);
+                held[id] -= recipe.getAmount(i);
+                if (before >= thresholds[id] && amounts[id] < thresholds[id]) {
+                    if (crossed == null) {
+                        crossed = new int[recipe.size()];
+                    }
+                    crossed[numCrossed++] = id;
+                }
+            }
+        } finally {
+            unlockStripes(stripes);
+        }
+        for (int i = 0; i < numCrossed; i++) {
+            listener.ingredientLow(crossed[i]);
+        }
+    }
+    
+    /**
+     * Checks, while holding the recipe's stripes' locks, that its ingredients are stocked, its
+     * amounts are not negative and enough of each ingredient is free.
+     */
+    private boolean isFree(IngredientVector recipe) {
+        for (int i = 0; i < recipe.size(); i++) {
+            int id = recipe.getID(i);
+            checkStocked(id);
+            if (recipe.getAmount(i) < 0) {
+                throw new IllegalArgumentException(
+                        "Attempted to subtract a negative amount of an ingredient");
+            }
+            if (amounts[id] - held[id] < recipe.getAmount(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Takes the amount of the ingredient, which the caller has checked is in stock, while holding
+     * its stripe's lock.
+     *
+     * @return Whether the ingredient dropped below its threshold
+     */
+    private boolean take(int id, int amount) {
+        int before = amounts[id];
+        amounts[id] = before - amount;
+        amountChanged(id, before - held[id], before - held[id] - amount);
+        return before >= thresholds[id] && before - amount < thresholds[id];
+    }
+    
+    /**
+     * Tells the AmountListener, if there is one, about a change made while holding the ingredient's
+     * stripe's lock.
+     */
+    private void amountChanged(int id, int before, int after) {
+        AmountListener listener = amountListener;
+        if (listener != null && before != after) {
+            listener.amountChanged(id, before, after);
+        }
+    }
+    
+    private void checkStocked(int id) {
+        if (id < 0 || id >= stocked.length || !stocked[id]) {
+            throw new IllegalArgumentException("Ingredient is not in the inventory");
+        }
+    }
+    
+    private ReentrantLock lockFor(int id) {
+        return locks[id & (STRIPES - 1)];
+    }
+    
+    private static long stripesOf(IngredientVector recipe) {
+        long stripes = 0;
+        for (int i = 0; i < recipe.size(); i++) {
+            stripes |= 1L << (recipe.getID(i) & (STRIPES - 1));
+        }
+        return stripes;
+    }
+    
+    private void lockStripes(long stripes) {
+        for (long left = stripes; left != 0; left &= left - 1) {
+            locks[Long.numberOfTrailingZeros(left)].lock();
+        }
+    }
+    
+    private void unlockStripes(long stripes) {
+        for (long left = stripes; left != 0; left &= left - 1) {
+            locks[Long.numberOfTrailingZeros(left)].unlock();
+        }
+    }
+    
+    private void lockAll() {
+        lockStripes(-1L);
+    }
+    
+    private void unlockAll() {
+        unlockStripes(-1L);
+    }
+    
+    /**
+     * A Listener is told when an ingredient drops below its threshold.
+     */
+    public interface Listener {
+        
+        /**
+         * Called, after the Inventory's locks have been released, when the ingredient with the
+         * specified id drops below its threshold.
+         *
+         * @param id The id of the ingredient
+         */
+        void ingredientLow(int id);
+        
+    }
+    
+    /**
+     * An AmountListener is told about every change to the free amount of an ingredient: the amount
+     * in stock that is not held for a dish.
+     */
+    public interface AmountListener {
+        
+        /**
+         * Called, while the Inventory holds the lock of the ingredient's stripe, when the free amount
+         * of the ingredient with the specified id changes. Calls for one ingredient are never made at
+         * the same time, and come in the order the changes were made. An ingredient that was not
+         * stocked before counts as having had an amount of 0.
+         *
+         * @param id     The id of the ingredient
+         * @param before The free amount before the change
+         * @param after  The free amount after the change
+         */
+        void amountChanged(int id, int before, int after);
+        
+    }
+    
+}
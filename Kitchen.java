@@ -0,0 +1,207 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A Kitchen runs a Restaurant's Cooks live instead of waiting for events.txt to say what they do.
+ * Each Cook works on its own thread, taking batches of dishes from a DishQueue as soon as they are
+ * placed, seeing them, spending the batch's prep time on them and then preparing them. The dishes of
+ * a batch are cooked side by side, so a batch takes as long as its slowest dish. The default
+ * DishQueue hands out one dish at a time in the order they were placed.
+ * A dish that cannot be made because an ingredient has run out has its Order cancelled.
+ *
+ * <p>Threads come from a ThreadFactory, so a factory for virtual threads can be passed in on a
+ * Java version that has them.
+ */
+public class Kitchen {
+    
+    private static final long POLL_MILLIS = 50;
+    
+    private final Restaurant restaurant;
+    private final ToLongFunction<OrderDish> prepNanos;
+    private final ThreadFactory threadFactory;
+    private final DishQueue dispatchQueue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder dishesPrepared = new LongAdder();
+    private final LongAdder dishesFailed = new LongAdder();
+    private final LongAdder batchesCooked = new LongAdder();
+    private volatile boolean running = false;
+    
+    /**
+     * Creates a new Kitchen for the specified Restaurant, whose cooks run on platform threads.
+     *
+     * @param restaurant The Restaurant whose Cooks work in this Kitchen
+     * @param prepNanos  Gives the number of nanoseconds it takes to make a dish
+     */
+    public Kitchen(Restaurant restaurant, ToLongFunction<OrderDish> prepNanos) {
+        this(restaurant, prepNanos, Thread::new);
+    }
+    
+    /**
+     * Creates a new Kitchen for the specified Restaurant, whose cooks run on threads made by the
+     * specified ThreadFactory.
+     *
+     * @param restaurant    The Restaurant whose Cooks work in this Kitchen
+     * @param prepNanos     Gives the number of nanoseconds it takes to make a dish
+     * @param threadFactory Makes the Cooks' threads
+     */
+    public Kitchen(Restaurant restaurant, ToLongFunction<OrderDish> prepNanos,
+                   ThreadFactory threadFactory) {
+        this(restaurant, prepNanos, threadFactory, DishQueue.fifo());
+    }
+    
+    /**
+     * Creates a new Kitchen for the specified Restaurant, whose cooks run on threads made by the
+     * specified ThreadFactory and take their dishes from the specified DishQueue.
+     *
+     * @param restaurant    The Restaurant whose Cooks work in this Kitchen
+     * @param prepNanos     Gives the number of nanoseconds it takes to make a dish
+     * @param threadFactory Makes the Cooks' threads
+     * @param dishQueue     Decides which Cook makes which dish
+     */
+    public Kitchen(Restaurant restaurant, ToLongFunction<OrderDish> prepNanos,
+                   ThreadFactory threadFactory, DishQueue dishQueue) {
+        this.restaurant = restaurant;
+        this.prepNanos = prepNanos;
+        this.threadFactory = threadFactory;
+        this.dispatchQueue = dishQueue;
+    }
+    
+    /**
+     * Starts a thread for each of the Restaurant's Cooks and has the Restaurant send placed dishes
+     * to this Kitchen.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Collection<Cook> cooks = restaurant.getCooks();
+        dispatchQueue.start(cooks.size());
+        restaurant.setKitchen(this);
+        int num = 0;
+        for (Cook cook : cooks) {
+            int cookNum = num++;
+            Thread worker = threadFactory.newThread(() -> work(cook, cookNum));
+            worker.setName("Cook: " + cook.getName());
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    /**
+     * Adds the specified dish to the DishQueue, to be made by the Cook it chooses.
+     *
+     * @param dish The dish to make
+     */
+    public void dispatch(OrderDish dish) {
+        dispatchQueue.add(dish);
+    }
+    
+    /**
+     * Returns the number of dishes waiting for a Cook.
+     *
+     * @return The number of dishes in the DishQueue
+     */
+    public int getQueueLength() {
+        return dispatchQueue.size();
+    }
+    
+    /**
+     * Returns the number of dishes this Kitchen's Cooks have prepared.
+     *
+     * @return The number of dishes prepared
+     */
+    public long getDishesPrepared() {
+        return dishesPrepared.sum();
+    }
+    
+    /**
+     * Returns the number of batches of dishes this Kitchen's Cooks have cooked.
+     *
+     * @return The number of batches cooked
+     */
+    public long getBatchesCooked() {
+        return batchesCooked.sum();
+    }
+    
+    /**
+     * Returns the number of dishes this Kitchen's Cooks could not prepare, because their Order
+     * was cancelled or there was not enough of one of their ingredients, in which case the Order
+     * was cancelled.
+     *
+     * @return The number of dishes that failed
+     */
+    public long getDishesFailed() {
+        return dishesFailed.sum();
+    }
+    
+    /**
+     * Stops taking new dishes, lets the Cooks finish every dish already in the DishQueue and
+     * waits for their threads to end.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void shutdown() throws InterruptedException {
+        List<Thread> stopping;
+        synchronized (this) {
+            running = false;
+            restaurant.setKitchen(null);
+            stopping = new ArrayList<>(workers);
+            workers.clear();
+        }
+        for (Thread worker : stopping) {
+            worker.join();
+        }
+    }
+    
+    /**
+     * Gives up on a dish the Cook could not prepare. If its Order was not cancelled there was not
+     * enough of an ingredient, and nothing in a Kitchen waits for more to arrive, so the Order is
+     * cancelled instead of never being filled.
+     */
+    private void giveUp(Cook cook, OrderDish dish) {
+        Order order = dish.getOrder();
+        if (order != null && !order.isCancelled()) {
+            restaurant.cancelOrder(order);
+        }
+        cook.dropDish(dish);
+    }
+    
+    private void work(Cook cook, int cookNum) {
+        List<OrderDish> batch = new ArrayList<>();
+        try {
+            while (running || dispatchQueue.size() > 0) {
+                batch.clear();
+                if (dispatchQueue.take(cookNum, batch, POLL_MILLIS, TimeUnit.MILLISECONDS) > 0) {
+                    long nanos = 0;
+                    for (OrderDish dish : batch) {
+                        cook.seeDish(dish);
+                        nanos = Math.max(nanos, prepNanos.applyAsLong(dish));
+                    }
+                    if (nanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(nanos);
+                    }
+                    for (OrderDish dish : batch) {
+                        if (cook.prepareDish(dish)) {
+                            dishesPrepared.increment();
+                        } else {
+                            dishesFailed.increment();
+                            giveUp(cook, dish);
+                        }
+                    }
+                    batchesCooked.increment();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+}
@@ -0,0 +1,143 @@
+package restaurant;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A LatencyHistogram counts durations in nanoseconds in log-linear buckets, in the style of an HDR
+ * histogram: each power of two is split into SUB_BUCKETS equal buckets, so any duration is counted
+ * to within about 6% of its value, from single nanoseconds up to MAX_TRACKABLE_NANOS. Longer
+ * durations are counted in the last bucket, though the largest is still kept exactly.
+ *
+ * <p>All the buckets are made up front, so recording a duration never allocates, and any number of
+ * threads can record at once while another reads the percentiles.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 4;
+    
+    /**
+     * The number of buckets each power of two is split into.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    /**
+     * The largest duration, about 19.5 hours, that has a bucket of its own.
+     */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 46) - 1;
+    
+    private static final int NUM_BUCKETS = indexOf(MAX_TRACKABLE_NANOS) + 1;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong(0);
+    
+    /**
+     * Returns the index of the bucket that counts the specified duration.
+     */
+    private static int indexOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+    
+    /**
+     * Returns the largest duration counted by the bucket at the specified index.
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    
+    /**
+     * Counts the specified duration. A negative duration, as from a clock that went backwards, is
+     * counted as 0.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(Math.min(nanos, MAX_TRACKABLE_NANOS)));
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+    
+    /**
+     * Returns the number of durations recorded.
+     *
+     * @return The number of durations recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Returns the sum of the durations recorded, in nanoseconds.
+     *
+     * @return The total of the durations recorded
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    /**
+     * Returns the mean of the durations recorded, in nanoseconds.
+     *
+     * @return The mean duration, or 0 if none has been recorded
+     */
+    public long getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+    
+    /**
+     * Returns the largest duration recorded, in nanoseconds.
+     *
+     * @return The largest duration, or 0 if none has been recorded
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+    
+    /**
+     * Returns a duration that the specified percentage of the recorded durations are no longer
+     * than, to within the precision of the buckets.
+     *
+     * @param percentile The percentage, from 0 to 100
+     * @return The duration at the percentile in nanoseconds, or 0 if none has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= wanted) {
+                long max = maxNanos.get();
+                return i == NUM_BUCKETS - 1 ? max : Math.min(highestValueAt(i), max);
+            }
+        }
+        return maxNanos.get();
+    }
+    
+}
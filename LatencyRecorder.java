@@ -0,0 +1,167 @@
+package restaurant;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A LatencyRecorder keeps a LatencyHistogram of how long each stage of an Order's life takes, for
+ * the whole Restaurant and broken down by the Cook or Server who carried the stage out and by the
+ * menu item of the dish. The Restaurant's Cooks, Servers and Tables stamp the times of each step
+ * with the Restaurant's clock while a LatencyRecorder is set, and report the stages here.
+ *
+ * <p>The histograms for each Employee and menu item are made the first time they are needed; after
+ * that, recording a stage does not allocate. The histograms can be read or written out at any time,
+ * even while stages are being recorded.
+ */
+public class LatencyRecorder {
+    
+    /**
+     * The stages of an Order's life that are timed.
+     */
+    public enum Stage {
+        /**
+         * From a dish's Order being placed until a Cook sees the dish.
+         */
+        QUEUE_WAIT,
+        /**
+         * From a Cook seeing a dish until the Cook prepares it.
+         */
+        COOK_TIME,
+        /**
+         * From an Order's last dish being prepared until a Server delivers the Order.
+         */
+        PICKUP_WAIT,
+        /**
+         * From a Table receiving its first dish since it last paid until it pays.
+         */
+        TABLE_DWELL
+    }
+    
+    private static final Stage[] STAGES = Stage.values();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    
+    private final LatencyHistogram[] totals = new LatencyHistogram[STAGES.length];
+    private final List<Map<String, LatencyHistogram>> byEmployee = new ArrayList<>();
+    private final List<Map<String, LatencyHistogram>> byItem = new ArrayList<>();
+    
+    /**
+     * Creates a new LatencyRecorder with no stages recorded.
+     */
+    public LatencyRecorder() {
+        for (int i = 0; i < STAGES.length; i++) {
+            totals[i] = new LatencyHistogram();
+            byEmployee.add(new ConcurrentHashMap<>());
+            byItem.add(new ConcurrentHashMap<>());
+        }
+    }
+    
+    /**
+     * Records that the specified stage took the specified time.
+     *
+     * @param stage    The stage
+     * @param nanos    How long the stage took, in nanoseconds
+     * @param employee The Employee who carried out the stage, or null if there was none
+     * @param item     The menu item of the dish the stage was for, or null if it was not for one
+     *                 dish
+     */
+    public void record(Stage stage, long nanos, Employee employee, MenuItem item) {
+        totals[stage.ordinal()].record(nanos);
+        if (employee != null) {
+            histogram(byEmployee, stage, employee.getName()).record(nanos);
+        }
+        if (item != null) {
+            histogram(byItem, stage, item.getName()).record(nanos);
+        }
+    }
+    
+    private static LatencyHistogram histogram(List<Map<String, LatencyHistogram>> breakdown,
+                                              Stage stage, String name) {
+        return breakdown.get(stage.ordinal()).computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+    
+    /**
+     * Returns the histogram of the specified stage for the whole Restaurant.
+     *
+     * @param stage The stage
+     * @return The stage's histogram
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return totals[stage.ordinal()];
+    }
+    
+    /**
+     * Returns the histogram of the specified stage as carried out by the Employee with the specified
+     * name, or null if that Employee has not carried it out.
+     *
+     * @param stage    The stage
+     * @param employee The name of the Employee
+     * @return The stage's histogram for the Employee, or null
+     */
+    public LatencyHistogram getEmployeeHistogram(Stage stage, String employee) {
+        return byEmployee.get(stage.ordinal()).get(employee);
+    }
+    
+    /**
+     * Returns the histogram of the specified stage for dishes of the menu item with the specified
+     * name, or null if there have been none.
+     *
+     * @param stage The stage
+     * @param item  The name of the menu item
+     * @return The stage's histogram for the menu item, or null
+     */
+    public LatencyHistogram getItemHistogram(Stage stage, String item) {
+        return byItem.get(stage.ordinal()).get(item);
+    }
+    
+    /**
+     * Writes every histogram to the specified Appendable as comma-separated values, one line for
+     * each stage for the whole Restaurant, each Employee and each menu item. The durations are in
+     * nanoseconds.
+     *
+     * @param out The Appendable to write to
+     * @throws IOException If writing failed
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("stage,by,name,count,mean,p50,p90,p99,p99.9,max").append(OutputSink.NL);
+        for (Stage stage : STAGES) {
+            writeLine(out, stage, "all", "", totals[stage.ordinal()]);
+            for (Map.Entry<String, LatencyHistogram> entry
+                    : new TreeMap<>(byEmployee.get(stage.ordinal())).entrySet()) {
+                writeLine(out, stage, "employee", entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, LatencyHistogram> entry
+                    : new TreeMap<>(byItem.get(stage.ordinal())).entrySet()) {
+                writeLine(out, stage, "item", entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    private static void writeLine(Appendable out, Stage stage, String by, String name,
+                                  LatencyHistogram histogram) throws IOException {
+        StringBuilder line = new StringBuilder();
+        line.append(stage).append(',').append(by).append(',').append(name)
+                .append(',').append(histogram.getCount())
+                .append(',').append(histogram.getMeanNanos());
+        for (double percentile : PERCENTILES) {
+            line.append(',').append(histogram.getValueAtPercentile(percentile));
+        }
+        line.append(',').append(histogram.getMaxNanos()).append(OutputSink.NL);
+        out.append(line);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writeTo(text);
+        } catch (IOException e) {
+            throw new AssertionError(e); //StringBuilder does not throw
+        }
+        return text.toString();
+    }
+    
+}
@@ -17,13 +17,18 @@ public class Manager extends Employee {
      * screen.
      */
     public void checkInventory() {
-        System.out.println("INVENTORY");
+        OutputSink output = getRestaurant().getOutput();
+        StringBuilder inventory = output.buffer();
+        inventory.append("INVENTORY").append(OutputSink.NL);
         for (String ingredient : getRestaurant().getIngredients()) {
-            System.out.println("Item: " + ingredient);
-            System.out.println("Threshold: " + getRestaurant().getThreshold(ingredient));
-            System.out.println("Current amount: " + getRestaurant().getAmount(ingredient));
+            inventory.append("Item: ").append(ingredient).append(OutputSink.NL);
+            inventory.append("Threshold: ").append(getRestaurant().getThreshold(ingredient))
+                    .append(OutputSink.NL);
+            inventory.append("Current amount: ").append(getRestaurant().getAmount(ingredient))
+                    .append(OutputSink.NL);
         }
-        System.out.println();
+        inventory.append(OutputSink.NL);
+        output.write(inventory);
     }
     
 }
@@ -1,7 +1,12 @@
 package restaurant;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * This is a menu class. This contains all the menu items that are available and offered by a
@@ -10,6 +15,18 @@ import java.util.Map;
 public class Menu {
     
     private final Map<String, MenuItem> items = new HashMap<>();
+    private final IngredientTable ingredients = new IngredientTable();
+    private final List<Consumer<MenuItem>> itemListeners = new ArrayList<>();
+    
+    /**
+     * Returns the IngredientTable that gives ids to the ingredients of this menu's items and to the
+     * ingredients in the inventory of the Restaurant that uses this menu.
+     *
+     * @return This menu's IngredientTable
+     */
+    public IngredientTable getIngredientTable() {
+        return ingredients;
+    }
     
     /**
      * Returns the menu item object of the restaurant
@@ -21,11 +38,34 @@ public class Menu {
         return items.get(name);
     }
     
+    /**
+     * Returns an unmodifiable view of the menu items of the restaurant.
+     *
+     * @return the menu items
+     */
+    public Collection<MenuItem> getItems() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+    
     /**
      * Adds the menu item to the menu of the restaurant.
      */
     public void addItem(MenuItem item) {
         items.put(item.getName(), item);
+        item.setIngredientTable(ingredients);
+        for (Consumer<MenuItem> listener : itemListeners) {
+            listener.accept(item);
+        }
+    }
+    
+    /**
+     * Has the specified listener told about every menu item added to this menu from now on, after
+     * the item has been given this menu's IngredientTable.
+     *
+     * @param listener the listener to tell about new menu items
+     */
+    void addItemListener(Consumer<MenuItem> listener) {
+        itemListeners.add(listener);
     }
     
 }
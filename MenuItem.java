@@ -1,8 +1,13 @@
 package restaurant;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class stores the number of ingredients each menuItem has.
@@ -10,17 +15,23 @@ import java.util.Map;
 public class MenuItem {
     
     private final String name;
-    private final BigDecimal price;
+    private final long price;
     private final Map<String, Integer> ingredientAmounts = new HashMap<>();
-    private final Map<String, MenuItemMod> mods = new HashMap<>();
+    private final Map<String, MenuItemMod> mods = new LinkedHashMap<>();
+    private final List<MenuItemMod> modList = new ArrayList<>();
+    private final Map<MenuItemMod, Integer> modIndexes = new IdentityHashMap<>();
+    private final Map<BitSet, Recipe> recipes = new ConcurrentHashMap<>();
+    private volatile Recipe recipe = null;
+    private IngredientTable ingredients = null;
+    private IngredientVector ingredientVector = null;
     
     /**
      * Stores the name and price relating to it.
      *
      * @param name  the name of the item on the menu
-     * @param price the price of the item on the menu
+     * @param price the price of the item on the menu, in cents
      */
-    public MenuItem(String name, BigDecimal price) {
+    public MenuItem(String name, long price) {
         this.name = name;
         this.price = price;
     }
@@ -33,14 +44,15 @@ public class MenuItem {
     }
     
     /**
-     * Returns the price of the item on the Menu
+     * Returns the price of the item on the Menu, in cents
      */
-    public BigDecimal getPrice() {
+    public long getPrice() {
         return price;
     }
     
     /**
-     * Returns the ingredients and its number the item on the menu takes to prepare.
+     * Returns the ingredients and its number the item on the menu takes to prepare. Dishes never
+     * change this Map; the ingredients of a dish with mods are in its Recipe.
      */
     public Map<String, Integer> getIngredientAmounts() {
         return ingredientAmounts;
@@ -58,6 +70,40 @@ public class MenuItem {
      */
     public void setIngredientAmount(String ingredient, int amount) {
         ingredientAmounts.put(ingredient, amount);
+        ingredientVector = null;
+        clearRecipes();
+    }
+    
+    /**
+     * Returns the ingredients and amounts this item takes to prepare as an IngredientVector, with
+     * ids from the IngredientTable of the menu this item is on.
+     *
+     * @return The ingredients this item takes to prepare
+     * @throws IllegalStateException If this item has not been added to a menu
+     */
+    public IngredientVector getIngredientVector() {
+        if (ingredientVector == null) {
+            if (ingredients == null) {
+                throw new IllegalStateException(name + " is not on a menu");
+            }
+            ingredientVector = IngredientVector.of(ingredientAmounts, ingredients);
+        }
+        return ingredientVector;
+    }
+    
+    /**
+     * Records the IngredientTable of the menu this item has been added to, which gives ids to the
+     * ingredients of this item and its mods.
+     *
+     * @param ingredients The IngredientTable of this item's menu
+     */
+    public void setIngredientTable(IngredientTable ingredients) {
+        this.ingredients = ingredients;
+        ingredientVector = null;
+        clearRecipes();
+        for (MenuItemMod mod : mods.values()) {
+            mod.setIngredientTable(ingredients);
+        }
     }
     
     /**
@@ -86,7 +132,74 @@ public class MenuItem {
      * Adds modifications to a dish, if customised.
      */
     public void addMod(MenuItemMod mod) {
-        mods.put(mod.getName(), mod);
+        MenuItemMod replaced = mods.put(mod.getName(), mod);
+        if (replaced != null) {
+            int index = modIndexes.remove(replaced);
+            modList.set(index, mod);
+            modIndexes.put(mod, index);
+        } else {
+            modIndexes.put(mod, modList.size());
+            modList.add(mod);
+        }
+        clearRecipes();
+        if (ingredients != null) {
+            mod.setIngredientTable(ingredients);
+        }
+    }
+    
+    /**
+     * Returns the index of the specified mod in this MenuItem's list of mods, or -1 if it is not one
+     * of this MenuItem's mods.
+     *
+     * @param mod The mod
+     * @return The index of the mod
+     */
+    public int getModIndex(MenuItemMod mod) {
+        Integer index = modIndexes.get(mod);
+        return index == null ? -1 : index;
+    }
+    
+    /**
+     * Returns the Recipe for this MenuItem with no mods. Recipes with mods are reached from it with
+     * Recipe.withMod.
+     *
+     * <p>Recipes are made from this MenuItem and its mods as they are when the Recipe is first
+     * needed. Changing this MenuItem's ingredients or mods makes new Recipes; changing a mod's
+     * ingredients or price after it has been ordered does not.
+     *
+     * @return The Recipe for this MenuItem with no mods
+     */
+    public Recipe getRecipe() {
+        Recipe base = recipe;
+        if (base == null) {
+            base = getRecipe(new BitSet());
+            recipe = base;
+        }
+        return base;
+    }
+    
+    /**
+     * Returns the Recipe for this MenuItem with the mods at the specified indexes, making it if this
+     * combination has not been asked for before.
+     *
+     * @param indexes The indexes of the mods in this MenuItem's list of mods
+     * @return The Recipe with those mods
+     */
+    Recipe getRecipe(BitSet indexes) {
+        Recipe result = recipes.get(indexes);
+        if (result == null) {
+            result = new Recipe(this, indexes, modList);
+            Recipe existing = recipes.putIfAbsent(indexes, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+    
+    private void clearRecipes() {
+        recipes.clear();
+        recipe = null;
     }
     
 }
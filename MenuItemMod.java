@@ -1,6 +1,5 @@
 package restaurant;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,13 +11,15 @@ import java.util.Map;
 public class MenuItemMod {
     
     private final String name;
-    private final BigDecimal priceChange;
+    private final long priceChange;
     private final Map<String, Integer> ingredientChanges = new HashMap<>();
+    private IngredientTable ingredients = null;
+    private IngredientVector ingredientVector = null;
     
     /**
-     * Stores the name of the modification and the price to be applied.
+     * Stores the name of the modification and the price to be applied, in cents.
      */
-    public MenuItemMod(String name, BigDecimal priceChange) {
+    public MenuItemMod(String name, long priceChange) {
         this.name = name;
         this.priceChange = priceChange;
     }
@@ -31,9 +32,9 @@ public class MenuItemMod {
     }
     
     /**
-     * Returns the price of the modification applied.
+     * Returns the price of the modification applied, in cents.
      */
-    public BigDecimal getPriceChange() {
+    public long getPriceChange() {
         return priceChange;
     }
     
@@ -56,6 +57,34 @@ public class MenuItemMod {
      */
     public void setIngredientChange(String ingredient, int change) {
         ingredientChanges.put(ingredient, change);
+        ingredientVector = null;
+    }
+    
+    /**
+     * Returns the ingredient amount changes of this modification as an IngredientVector, with ids
+     * from the IngredientTable of the menu its item is on.
+     *
+     * @return The ingredient amount changes of this modification
+     * @throws IllegalStateException If this modification's item has not been added to a menu
+     */
+    public IngredientVector getIngredientVector() {
+        if (ingredientVector == null) {
+            if (ingredients == null) {
+                throw new IllegalStateException(name + " is not on a menu");
+            }
+            ingredientVector = IngredientVector.of(ingredientChanges, ingredients);
+        }
+        return ingredientVector;
+    }
+    
+    /**
+     * Records the IngredientTable of the menu this modification's item has been added to.
+     *
+     * @param ingredients The IngredientTable of the menu
+     */
+    public void setIngredientTable(IngredientTable ingredients) {
+        this.ingredients = ingredients;
+        ingredientVector = null;
     }
     
 }
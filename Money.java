@@ -0,0 +1,122 @@
+package restaurant;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money holds the operations on amounts of money, which the restaurant keeps as a long number of
+ * cents. Prices, bills and taxes are added and printed as plain longs, so billing a table does not
+ * create any objects.
+ *
+ * <p>Tax rates are kept as a whole number of basis points, that is, hundredths of a percent, so a
+ * rate of 12% is 1200.
+ */
+public final class Money {
+    
+    /**
+     * The tax rate, in basis points, that a restaurant charges unless it is told otherwise.
+     */
+    public static final int DEFAULT_TAX_RATE = 1200;
+    
+    private Money() {
+    }
+    
+    /**
+     * Returns the number of cents in an amount written in dollars, such as "8.50" or "-1". Amounts
+     * with fractions of a cent are rounded to the nearest cent, with halves going to the even cent.
+     *
+     * @param dollars The amount in dollars
+     * @return The amount in cents
+     * @throws NumberFormatException If the amount is not a number or does not fit in a long
+     */
+    public static long parse(String dollars) {
+        try {
+            return new BigDecimal(dollars).movePointRight(2).setScale(0, RoundingMode.HALF_EVEN)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + dollars);
+        }
+    }
+    
+    /**
+     * Returns the number of basis points in a rate written as a percentage, such as "12" or "12.5".
+     *
+     * @param percent The rate as a percentage
+     * @return The rate in basis points
+     * @throws NumberFormatException If the rate is not a number or is negative
+     */
+    public static int parseRate(String percent) {
+        long rate = parse(percent);
+        if (rate < 0 || rate > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Bad tax rate: " + percent);
+        }
+        return (int) rate;
+    }
+    
+    /**
+     * Returns the tax on an amount at the specified rate: the difference between the amount with tax
+     * and the amount.
+     *
+     * @param cents The amount in cents
+     * @param rate  The tax rate in basis points
+     * @return The tax in cents
+     * @throws ArithmeticException If the tax does not fit in a long
+     */
+    public static long tax(long cents, int rate) {
+        return withTax(cents, rate) - cents;
+    }
+    
+    /**
+     * Returns an amount plus the tax on it at the specified rate, rounded to the nearest cent with
+     * halves going to the even cent.
+     *
+     * @param cents The amount in cents
+     * @param rate  The tax rate in basis points
+     * @return The amount with tax, in cents
+     * @throws ArithmeticException If the amount with tax does not fit in a long
+     */
+    public static long withTax(long cents, int rate) {
+        return divideHalfEven(Math.multiplyExact(cents, 10000L + rate), 10000);
+    }
+    
+    private static long divideHalfEven(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * (dividend - quotient * divisor);
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+    
+    /**
+     * Appends an amount to the specified StringBuilder in dollars with two decimal places, such as
+     * "8.50" or "-0.75".
+     *
+     * @param out   The StringBuilder to append to
+     * @param cents The amount in cents
+     * @return The StringBuilder
+     */
+    public static StringBuilder append(StringBuilder out, long cents) {
+        long dollars = cents / 100;
+        int fraction = (int) Math.abs(cents % 100);
+        if (cents < 0 && dollars == 0) {
+            out.append('-');
+        }
+        out.append(dollars).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+    
+    /**
+     * Returns an amount in dollars with two decimal places, such as "8.50" or "-0.75".
+     *
+     * @param cents The amount in cents
+     * @return The amount in dollars
+     */
+    public static String toString(long cents) {
+        return append(new StringBuilder(), cents).toString();
+    }
+    
+}
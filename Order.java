@@ -2,6 +2,7 @@ package restaurant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This Order class records information that represents a complete order placed by a customer
@@ -10,7 +11,11 @@ import java.util.Map;
 public class Order {
     
     private final Map<Integer, OrderDish> dishes = new HashMap<>();
+    private final AtomicInteger unfilledDishes = new AtomicInteger();
     private Table table;
+    private volatile Server server = null;
+    private volatile long filledNanos = 0;
+    private volatile boolean cancelled = false;
     
     /**
      * Creates a new Order object that stores that stores all dishes order and the table which ordered
@@ -29,6 +34,45 @@ public class Order {
         return table;
     }
     
+    /**
+     * Returns the server who placed this order, or null if it has not been placed.
+     */
+    public Server getServer() {
+        return server;
+    }
+    
+    /**
+     * Records the server who placed this order.
+     *
+     * @param server the server who placed this order
+     */
+    public void setServer(Server server) {
+        this.server = server;
+    }
+    
+    /**
+     * Returns the time on the restaurant's clock at which this order was last marked filled, or 0 if
+     * it never was.
+     */
+    public long getFilledNanos() {
+        return filledNanos;
+    }
+    
+    void setFilledNanos(long filledNanos) {
+        this.filledNanos = filledNanos;
+    }
+    
+    /**
+     * Returns whether this order has been cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    void setCancelled() {
+        this.cancelled = true;
+    }
+    
     /**
      * Returns all the dishes in this order.
      */
@@ -51,20 +95,37 @@ public class Order {
      * @param dish the dish ordered by the customer is being added.
      */
     public void addDish(OrderDish dish) {
-        dishes.put(dish.getID(), dish);
+        OrderDish replaced = dishes.put(dish.getID(), dish);
+        if (replaced != null && !replaced.isFilled()) {
+            unfilledDishes.decrementAndGet();
+        }
         dish.setOrder(this);
+        if (!dish.isFilled()) {
+            unfilledDishes.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Returns the number of dishes in this Order that have not been filled yet.
+     */
+    public int getUnfilledDishCount() {
+        return unfilledDishes.get();
     }
     
     /**
      * Returns whether all the dishes have been filled and are ready to be made.
      */
     public boolean isFilled() {
-        for (OrderDish dish : dishes.values()) {
-            if (!dish.isFilled()) {
-                return false;
-            }
-        }
-        return true;
+        return unfilledDishes.get() == 0;
+    }
+    
+    /**
+     * Records that one of this Order's dishes has just been filled.
+     *
+     * @return Whether that was the last unfilled dish
+     */
+    boolean dishFilled() {
+        return unfilledDishes.decrementAndGet() == 0;
     }
     
 }
@@ -1,19 +1,31 @@
 package restaurant;
 
-import java.math.BigDecimal;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class OrderDish {
     
+    /**
+     * The time of a step that has not happened, or was not timed.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+    
+    private static final int NOT_HELD = 0;
+    private static final int HELD = 1;
+    private static final int COMMITTED = 2;
+    private static final int RELEASED = 3;
+    
     private final int id;
-    private final Set<MenuItemMod> mods = new HashSet<>();
-    private final Map<String, Integer> ingredientAmounts;
     private Order order = null;
     private MenuItem item;
-    private BigDecimal price;
-    private boolean filled = false;
+    private Recipe recipe;
+    private final AtomicBoolean filled = new AtomicBoolean();
+    private final AtomicInteger hold = new AtomicInteger(NOT_HELD);
+    private volatile AdmissionControl admission = null;
+    private long placedNanos = NO_TIME;
+    private long seenNanos = NO_TIME;
     
     /**
      * Creates an OrderDish object with no assigned Order, an id, and item.
@@ -24,17 +36,16 @@ public class OrderDish {
     public OrderDish(int id, MenuItem item) {
         this.id = id;
         this.item = item;
-        this.price = item.getPrice();
-        this.ingredientAmounts = item.getIngredientAmounts();
+        this.recipe = item.getRecipe();
     }
     
     /**
-     * Returns a set of the MenuItemMods to which this OrderDish is assigned.
+     * Returns an unmodifiable set of the MenuItemMods to which this OrderDish is assigned.
      *
      * @return A set of the MenuItemMods to which this OrderDish is assigned
      */
     public Set<MenuItemMod> getMods() {
-        return mods;
+        return recipe.getMods();
     }
     
     /**
@@ -72,46 +83,132 @@ public class OrderDish {
     }
     
     /**
-     * Adds a modification to the item ordered.
+     * Adds a modification to the item ordered. The dish switches to the shared Recipe for its item
+     * with the new set of mods, so neither the MenuItem nor other dishes are changed. Adding a mod
+     * the dish already has does nothing.
      *
      * @param mod represents a MenuItemMod containing all the modification to the item.
      */
     public void addMod(MenuItemMod mod) {
-        mods.add(mod);
-        for (String ingredient : mod.getIngredientChanges().keySet()) {
-            ingredientAmounts.put(
-                    ingredient,
-                    ingredientAmounts.getOrDefault(ingredient, 0) + mod.getIngredientChange(ingredient));
-        }
-        price = price.add(mod.getPriceChange());
+        recipe = recipe.withMod(mod);
     }
     
     /**
-     * Returns the price of the OrderDish.
+     * Returns the Recipe this OrderDish is made with: its item, mods, ingredients and price.
      */
-    public BigDecimal getPrice() {
-        return price;
+    public Recipe getRecipe() {
+        return recipe;
     }
     
     /**
-     * Returns the Amount of ingredients that the item in this OrderDish has.
+     * Returns the price of the OrderDish, in cents.
+     */
+    public long getPrice() {
+        return recipe.getPrice();
+    }
+    
+    /**
+     * Returns the Amount of ingredients that the item in this OrderDish has, including the changes
+     * made by its mods.
      */
     public Map<String, Integer> getIngredientAmounts() {
-        return ingredientAmounts;
+        return recipe.getIngredientAmounts();
+    }
+    
+    /**
+     * Returns the ingredients and amounts this OrderDish takes to prepare, including the changes made
+     * by its mods, as an IngredientVector.
+     */
+    public IngredientVector getIngredientVector() {
+        return recipe.getIngredientVector();
+    }
+    
+    /**
+     * Returns the time on the restaurant's clock at which this dish's Order was placed, or NO_TIME if
+     * it was not timed.
+     */
+    public long getPlacedNanos() {
+        return placedNanos;
+    }
+    
+    void setPlacedNanos(long placedNanos) {
+        this.placedNanos = placedNanos;
+    }
+    
+    /**
+     * Returns the time on the restaurant's clock at which a Cook last saw this dish, or NO_TIME if it
+     * was not timed.
+     */
+    public long getSeenNanos() {
+        return seenNanos;
+    }
+    
+    void setSeenNanos(long seenNanos) {
+        this.seenNanos = seenNanos;
+    }
+    
+    /**
+     * Returns the AdmissionControl that admitted this dish and has not had its place back, or null.
+     */
+    AdmissionControl getAdmission() {
+        return admission;
+    }
+    
+    void setAdmission(AdmissionControl admission) {
+        this.admission = admission;
+    }
+    
+    /**
+     * Returns whether this dish's ingredients are held in the inventory, waiting to be taken when it
+     * is prepared.
+     */
+    public boolean isHeld() {
+        return hold.get() == HELD;
+    }
+    
+    /**
+     * Records that this dish's ingredients have been held in the inventory.
+     */
+    void setHeld() {
+        hold.set(HELD);
+    }
+    
+    /**
+     * Records that this dish's held ingredients are being taken, unless they are no longer held.
+     * Only one of commitHold and releaseHold succeeds for each hold.
+     *
+     * @return Whether the ingredients were held and are now to be taken
+     */
+    boolean commitHold() {
+        return hold.compareAndSet(HELD, COMMITTED);
+    }
+    
+    /**
+     * Records that this dish's held ingredients are being given back, unless they are no longer
+     * held.
+     *
+     * @return Whether the ingredients were held and are now to be given back
+     */
+    boolean releaseHold() {
+        return hold.compareAndSet(HELD, RELEASED);
     }
     
     /**
      * Return whether the order has been filled or not.
      */
     public boolean isFilled() {
-        return filled;
+        return filled.get();
     }
     
     /**
-     * Assert that order has been filled.
+     * Assert that this dish has been filled. Filling a dish that is already filled does nothing, so
+     * when Cooks fill the dishes of one Order at the same time exactly one of them is told that the
+     * Order is complete.
+     *
+     * @return Whether this call filled the last unfilled dish of this dish's Order
      */
-    public void fill() {
-        filled = true;
+    public boolean fill() {
+        return filled.compareAndSet(false, true) && order != null && order.dishFilled();
     }
     
 }
@@ -0,0 +1,118 @@
+package restaurant;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * An OutputSink is where a Restaurant's messages go: dishes seen and prepared, orders placed and
+ * delivered, ingredients received, inventory checks and bills. Messages are formatted into the
+ * StringBuilder returned by buffer(), which is reused by each thread, and then passed to write().
+ *
+ * <p>The sink made by console(), which a Restaurant starts with, writes each message straight away.
+ * The sinks made by asyncConsole() and file() write on a background thread in batches, so the
+ * threads running the Restaurant never wait for I/O, but messages still queued are lost unless the
+ * sink is closed. The sink made by none() throws everything away, which is useful for measuring the
+ * rest of the program.
+ */
+public interface OutputSink {
+    
+    /**
+     * The line separator that messages should use.
+     */
+    String NL = System.lineSeparator();
+    
+    /**
+     * Returns an OutputSink that writes to standard output as each message is written.
+     *
+     * @return A console OutputSink
+     */
+    static OutputSink console() {
+        return ConsoleOutputSink.INSTANCE;
+    }
+    
+    /**
+     * Returns an OutputSink that writes to standard output in the background. It must be closed for
+     * the last messages to be written.
+     *
+     * @return A background console OutputSink
+     */
+    static OutputSink asyncConsole() {
+        return new AsyncOutputSink(new OutputStreamWriter(System.out), false);
+    }
+    
+    /**
+     * Returns an OutputSink that writes to the specified file in the background, replacing what was
+     * in it. It must be closed for the last messages to be written.
+     *
+     * @param path The path of the file
+     * @return A file OutputSink
+     * @throws IOException If the file could not be opened
+     */
+    static OutputSink file(String path) throws IOException {
+        return new AsyncOutputSink(Files.newBufferedWriter(Paths.get(path)), true);
+    }
+    
+    /**
+     * Returns an OutputSink that throws away everything written to it.
+     *
+     * @return A null OutputSink
+     */
+    static OutputSink none() {
+        return NullOutputSink.INSTANCE;
+    }
+    
+    /**
+     * Returns the OutputSink with the specified name: "console" for asyncConsole(), "none", or
+     * "file:" followed by the path of a file. Whoever asks for one by name must close it.
+     *
+     * @param name The name of the OutputSink
+     * @return The OutputSink with that name
+     * @throws IOException              If a file could not be opened
+     * @throws IllegalArgumentException If the name is not one of the above
+     */
+    static OutputSink forName(String name) throws IOException {
+        if (name.equals("console")) {
+            return asyncConsole();
+        } else if (name.equals("none")) {
+            return none();
+        } else if (name.startsWith("file:")) {
+            return file(name.substring("file:".length()));
+        }
+        throw new IllegalArgumentException("Unknown output: " + name);
+    }
+    
+    /**
+     * Returns an empty StringBuilder to format a message into. Each thread gets its own
+     * StringBuilder, which is reused the next time that thread calls this method.
+     *
+     * @return An empty StringBuilder
+     */
+    StringBuilder buffer();
+    
+    /**
+     * Queues the specified message to be written. The message is copied, so its StringBuilder can be
+     * reused as soon as this method returns.
+     *
+     * @param message The message, including its line separators
+     */
+    void write(CharSequence message);
+    
+    /**
+     * Waits until every message written before this call has been written out.
+     *
+     * @throws UncheckedIOException If writing failed
+     */
+    void flush();
+    
+    /**
+     * Writes out every queued message and stops the background thread. Nothing may be written after
+     * the OutputSink is closed.
+     *
+     * @throws UncheckedIOException If writing failed
+     */
+    void close();
+    
+}
@@ -0,0 +1,253 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A ParallelEventReader reads an events file on several threads at once. The file is split into
+ * chunks of about the same size, each ending just after a blank line, so that every chunk starts at
+ * the start of a block. Worker threads read the chunks into Events with an EventReader each, and look
+ * up the MenuItems and mods of ORDER events in the Restaurant's Menu as they go. The Events are then
+ * handed out by next in file order, with the same line numbers as a single EventReader would give
+ * them, so the thread applying them sees exactly what it would have seen before.
+ *
+ * <p>Only a few chunks are read ahead of the one being handed out, so a large file is never held in
+ * memory all at once. If a block cannot be read, the blocks after it in the same chunk may be read
+ * differently than by a single EventReader, which does not matter because an Event with an error
+ * line stops the events file from being applied any further.
+ */
+public class ParallelEventReader implements EventSource {
+    
+    /**
+     * The size a chunk is made at least, unless it is the last one.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 1L << 20;
+    
+    private static final long SCAN_WINDOW = 1L << 20;
+    private static final byte[] DISH = "Dish ".getBytes(StandardCharsets.UTF_8);
+    private static final int CHUNKS_PER_THREAD = 2; //How many chunks each worker may read ahead
+    
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long chunkSize;
+    private final Menu menu;
+    private final ExecutorService workers;
+    private final int maxChunksReading;
+    private final ArrayDeque<Future<Chunk>> reading = new ArrayDeque<>();
+    private long nextChunkStart = 0;
+    private Chunk chunk = null;
+    private int nextEvent = 0;
+    private int lineOffset = 0; //The number of lines before the chunk being handed out
+    private MappedByteBuffer scan = null;
+    private long scanStart = 0;
+    
+    /**
+     * Opens the specified events file for reading on the specified number of threads, in chunks of
+     * the default size.
+     *
+     * @param path    The path of the events file
+     * @param threads The number of worker threads
+     * @param menu    The Menu to look up the MenuItems of ORDER events in, or null to leave that to
+     *                whatever applies the Events
+     * @throws IOException If the file could not be opened
+     */
+    public ParallelEventReader(Path path, int threads, Menu menu) throws IOException {
+        this(path, threads, menu, DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Opens the specified events file for reading on the specified number of threads, in chunks of
+     * at least the specified size.
+     *
+     * @param path      The path of the events file
+     * @param threads   The number of worker threads
+     * @param menu      The Menu to look up the MenuItems of ORDER events in, or null to leave that
+     *                  to whatever applies the Events
+     * @param chunkSize The number of bytes each chunk has at least, unless it is the last
+     * @throws IOException              If the file could not be opened
+     * @throws IllegalArgumentException If threads or chunkSize is less than 1
+     */
+    public ParallelEventReader(Path path, int threads, Menu menu, long chunkSize)
+            throws IOException {
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Bad threads or chunk size: " + threads + ", "
+                    + chunkSize);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileSize = channel.size();
+        this.chunkSize = chunkSize;
+        this.menu = menu;
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "Event reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maxChunksReading = threads * CHUNKS_PER_THREAD;
+    }
+    
+    @Override
+    public Event next() throws IOException {
+        while (true) {
+            if (chunk != null) {
+                if (nextEvent < chunk.events.size()) {
+                    Event event = chunk.events.get(nextEvent++);
+                    event.shiftLines(lineOffset);
+                    return event;
+                }
+                if (chunk.error instanceof EventFormatException) {
+                    throw new EventFormatException(
+                            ((EventFormatException) chunk.error).getLineNum() + lineOffset);
+                } else if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                lineOffset += chunk.lineCount;
+                chunk = null;
+            }
+            while (reading.size() < maxChunksReading && nextChunkStart < fileSize) {
+                long start = nextChunkStart;
+                long end = blockStartAfter(Math.min(fileSize, start + chunkSize));
+                reading.add(workers.submit(() -> read(start, end)));
+                nextChunkStart = end;
+            }
+            Future<Chunk> next = reading.poll();
+            if (next == null) {
+                return null;
+            }
+            chunk = await(next);
+            nextEvent = 0;
+        }
+    }
+    
+    /**
+     * Reads the Events of the chunk between the specified positions, numbering its lines from 1.
+     * Called on a worker thread.
+     */
+    private Chunk read(long start, long end) throws IOException {
+        EventReader reader = new EventReader(channel, start, end);
+        List<Event> events = new ArrayList<>();
+        IOException error = null;
+        try {
+            Event event = reader.next();
+            while (event != null) {
+                if (menu != null && event.getType() == Event.Type.ORDER) {
+                    event.resolve(menu);
+                }
+                events.add(event);
+                event = reader.next();
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        return new Chunk(events, reader.getLineNum(), error);
+    }
+    
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading events", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+    
+    /**
+     * Returns the position just after the first blank line that starts after the specified
+     * position and ends a block, or the end of the file if there is none. Lines end in "\n", "\r\n"
+     * or "\r", as for EventReader. A blank line just after a "Dish" line is the name of the dish's
+     * MenuItem, so it does not end the block.
+     */
+    private long blockStartAfter(long position) throws IOException {
+        long i = position;
+        long lineStart = -1; //Only known once a line end has been passed
+        boolean afterDish = false;
+        while (true) {
+            int b = byteAt(i);
+            if (b < 0) {
+                return fileSize;
+            }
+            if (b == '\n' || b == '\r') {
+                boolean blank = lineStart == i;
+                //The line the position is in might be a "Dish" line
+                boolean dish = lineStart < 0 || startsWith(lineStart, DISH);
+                i += b == '\r' && byteAt(i + 1) == '\n' ? 2 : 1;
+                if (blank && !afterDish) {
+                    return i;
+                }
+                afterDish = dish;
+                lineStart = i;
+            } else {
+                i++;
+            }
+        }
+    }
+    
+    private boolean startsWith(long position, byte[] prefix) throws IOException {
+        for (int i = 0; i < prefix.length; i++) {
+            if (byteAt(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int byteAt(long position) throws IOException {
+        if (position >= fileSize) {
+            return -1;
+        }
+        if (scan == null || position < scanStart || position >= scanStart + scan.limit()) {
+            scanStart = position;
+            scan = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(SCAN_WINDOW, fileSize - position));
+        }
+        return scan.get((int) (position - scanStart));
+    }
+    
+    /**
+     * Stops the worker threads and closes the events file.
+     *
+     * @throws IOException If the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        workers.shutdownNow();
+        channel.close();
+    }
+    
+    /**
+     * The Events read from one chunk, the number of lines in it, and the exception that stopped it
+     * being read, if there was one.
+     */
+    private static class Chunk {
+        
+        private final List<Event> events;
+        private final int lineCount;
+        private final IOException error;
+        
+        private Chunk(List<Event> events, int lineCount, IOException error) {
+            this.events = events;
+            this.lineCount = lineCount;
+            this.error = error;
+        }
+        
+    }
+    
+}
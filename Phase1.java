@@ -3,8 +3,17 @@ package restaurant;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * This is the place where the Main Simulation of the entire program begins. It is controller that
@@ -16,6 +25,16 @@ import java.util.*;
  */
 public class Phase1 {
     
+    /**
+     * The number of events applied between the checkpoints written while events.txt is simulated.
+     */
+    private static final int CHECKPOINT_INTERVAL = 10000;
+    
+    /**
+     * The seed of the Simulation run by "--simulate", so that the same input gives the same summary.
+     */
+    private static final long SIMULATION_SEED = 1;
+    
     /**
      * Returns the specified input, modified to ensure that the Unicode byte order mark character is
      * absent from its front.
@@ -47,112 +66,41 @@ public class Phase1 {
     }
     
     /**
-     * The main method of the Phase 1 program. It reads in information about a restaurant from several
-     * input files, then reads through events.txt to simulate events occuring in the restaurant.
+     * Returns the comma-separated positive numbers in the specified argument.
      *
-     * @param args Unused
-     * @see restaurant Contains the information about employees in the restaurant.
+     * @param arg The argument
+     * @return The numbers
+     * @throws IllegalArgumentException If one of them is not a positive number
      */
-    public static void main(String[] args) {
-        //Get restaurant.txt information
-        Scanner input;
-        try {
-            File restaurantFile = new File("restaurant.txt");
-            input = new Scanner(restaurantFile);
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: Could not find restaurant.txt");
-            return;
-        }
-        List<String> lines = new ArrayList<>();
-        while (input.hasNextLine()) {
-            lines.add(input.nextLine());
-        }
-        input.close();
-        if (lines.size() != 6) {
-            System.out.println("Error: restaurant.txt has the wrong number of lines");
-            return;
-        }
-        int numTables;
-        String[] cookNames, serverNames, managerNames, receiverNames;
-        int lineNum = 1;
-        try {
-            numTables = Integer.parseInt(stripInputPrefix(removeByteOrderMark(lines.get(0)), "Tables: "));
-            lineNum = 2;
-            cookNames = stripInputPrefix(lines.get(1), "Cooks: ").split(", ");
-            lineNum = 3;
-            serverNames = stripInputPrefix(lines.get(2), "Servers: ").split(", ");
-            lineNum = 4;
-            managerNames = stripInputPrefix(lines.get(3), "Managers: ").split(", ");
-            lineNum = 5;
-            receiverNames = stripInputPrefix(lines.get(4), "Receivers: ").split(", ");
-            lineNum = 6;
-            if (lines.get(5).length() > 0) {
-                throw new IOException();
+    private static int[] parseCounts(String arg) {
+        String[] parts = arg.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i]);
+            if (counts[i] < 1) {
+                throw new IllegalArgumentException();
             }
-        } catch (Exception e) {
-            System.out.println("Error: Could not parse restaurant.txt line " + lineNum);
-            return;
         }
-        //Make restaurant and its menu
-        Menu menu = new Menu();
-        Restaurant restaurant = new Restaurant(menu, numTables);
-        for (String cookName : cookNames) {
-            restaurant.addCook(new Cook(cookName));
-        }
-        for (String serverName : serverNames) {
-            restaurant.addServer(new Server(serverName));
-        }
-        for (String managerName : managerNames) {
-            restaurant.addManager(new Manager(managerName));
-        }
-        for (String receiverName : receiverNames) {
-            restaurant.addReceiver(new Receiver(receiverName));
-        }
-        //Add ingredients.txt information to restaurant
-        try {
-            File ingredientsFile = new File("ingredients.txt");
-            input = new Scanner(ingredientsFile);
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: Could not find ingredients.txt");
-            return;
-        }
-        lineNum = 0;
-        try {
-            while (input.hasNextLine()) {
-                //Parse ingredient block
-                lineNum++;
-                String ingredient = removeByteOrderMark(input.nextLine());
-                lineNum++;
-                int threshold = Integer.parseInt(stripInputPrefix(input.nextLine(), "Threshold: "));
-                lineNum++;
-                int startingAmount = Integer.parseInt(stripInputPrefix(input.nextLine(), "Starting: "));
-                lineNum++;
-                if (input.nextLine().length() > 0) {
-                    throw new IOException();
-                }
-                restaurant.addIngredient(ingredient, threshold, startingAmount);
-            }
-        } catch (Exception e) {
-            System.out.println("Error: Could not parse ingredients.txt line " + lineNum);
-            return;
-        }
-        input.close();
-        //Add menu.txt information to restaurant
-        try {
-            File menuFile = new File("menu.txt");
-            input = new Scanner(menuFile);
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: Could not find menu.txt");
-            return;
-        }
-        lineNum = 0;
+        return counts;
+    }
+    
+    /**
+     * Reads the menu items in menu.txt, with their ingredients and mods, from the specified Scanner
+     * and adds them to the specified Menu.
+     *
+     * @param input The Scanner to read menu.txt from
+     * @param menu  The Menu to add the menu items to
+     * @return The number of the line that could not be parsed, or 0 if all of menu.txt was read
+     */
+    static int readMenu(Scanner input, Menu menu) {
+        int lineNum = 0;
         try {
             while (input.hasNextLine()) {
                 //Parse menu item block
                 lineNum++;
                 String itemName = removeByteOrderMark(input.nextLine());
                 lineNum++;
-                BigDecimal itemPrice = new BigDecimal(input.nextLine());
+                long itemPrice = Money.parse(input.nextLine());
                 MenuItem item = new MenuItem(itemName, itemPrice);
                 lineNum++;
                 String line = input.nextLine();
@@ -181,7 +129,7 @@ public class Phase1 {
                     }
                     //Extract price change
                     lineNum = infoStartNum + modInfo.size() - 1;
-                    BigDecimal modPriceChange = new BigDecimal(modInfo.get(modInfo.size() - 1));
+                    long modPriceChange = Money.parse(modInfo.get(modInfo.size() - 1));
                     MenuItemMod mod = new MenuItemMod(modName, modPriceChange);
                     //Extract ingredient changes
                     lineNum = infoStartNum;
@@ -199,200 +147,492 @@ public class Phase1 {
                 menu.addItem(item);
             }
         } catch (Exception e) {
-            System.out.println("Error: Could not parse menu.txt line " + lineNum);
-            return;
+            return lineNum;
         }
-        input.close();
-        //Simulate events in events.txt
+        return 0;
+    }
+    
+    /**
+     * Opens the specified events file, which may be text or binary. Text is read on the specified
+     * number of threads, looking up its MenuItems in the specified Menu if there is more than one.
+     */
+    private static EventSource openEvents(Path path, int threads, Menu menu) throws IOException {
+        if (BinaryEventReader.isBinary(path)) {
+            return new BinaryEventReader(path);
+        } else if (threads > 1) {
+            return new ParallelEventReader(path, threads, menu);
+        }
+        return new EventReader(path);
+    }
+    
+    /**
+     * Writes the events in the specified file to the other file, as binary if they are text and as
+     * text if they are binary, and prints how many there were.
+     */
+    private static void convertEvents(Path from, Path to, int threads) {
+        long converted;
         try {
-            File eventsFile = new File("events.txt");
-            input = new Scanner(eventsFile);
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: Could not find events.txt");
+            if (BinaryEventReader.isBinary(from)) {
+                converted = BinaryEventReader.convert(from, to);
+            } else {
+                converted = BinaryEventWriter.convert(openEvents(from, threads, null), to);
+            }
+        } catch (EventFormatException e) {
+            System.out.println("Error: Could not parse " + from + " line " + e.getLineNum());
+            return;
+        } catch (IOException e) {
+            System.out.println("Error: Could not convert " + from + " to " + to);
             return;
         }
-        Map<Integer, Order> orders = new HashMap<>(); //Keep track of orders by number
-        lineNum = 0;
+        System.out.println("Converted " + converted + " events from " + from + " to " + to);
+    }
+    
+    /**
+     * The main method of the Phase 1 program. It reads in information about a restaurant from several
+     * input files, then reads through events.txt to simulate events occuring in the restaurant.
+     *
+     * <p>Each option is followed by its value:
+     * <ul>
+     *     <li>"--output": where the restaurant's messages go: "console" (the default), "none", or
+     *     "file:" followed by a file name
+     *     <li>"--tax": the percentage charged as tax on bills, 12 by default
+     *     <li>"--checkpoint": a file the restaurant's state is restored from, if it exists, and
+     *     saved to as events are applied
+     *     <li>"--log": a file every applied event is logged to, and replayed from on top of the
+     *     checkpoint if it exists
+     *     <li>"--parse-threads": the number of threads events.txt is read on, one per core by
+     *     default
+     *     <li>"--pipeline": "on" to read, look up, apply and log the events on four threads at once
+     *     through an EventPipeline, which only pays with cores to spare, or "off" (the default)
+     *     <li>"--events": a file to read the events from instead of events.txt, as text or as
+     *     written by a BinaryEventWriter
+     *     <li>"--convert": a file the events are written to instead of being applied, as binary if
+     *     they are text and as text if they are binary
+     *     <li>"--config": a file written by "--compile-config" to build the restaurant from instead
+     *     of restaurant.txt, ingredients.txt and menu.txt
+     *     <li>"--compile-config": a file to compile restaurant.txt, ingredients.txt and menu.txt
+     *     into as a ConfigImage, instead of doing anything else
+     *     <li>"--simulate": a number of days of service to run a Simulation for instead of applying
+     *     events, whose summary is printed; the messages go nowhere unless "--output" is given
+     *     <li>"--tables", "--cooks" and "--servers": with "--simulate", comma-separated numbers to
+     *     try instead of those in restaurant.txt, running a SimulationSweep over every combination
+     * </ul>
+     * "--checkpoint" and "--log" cannot be used with "--convert" or "--simulate", which cannot be
+     * used together, and "--compile-config" cannot be used with any of them or "--config".
+     *
+     * @param args The options and their values
+     * @see restaurant Contains the information about employees in the restaurant.
+     */
+    public static void main(String[] args) {
+        String outputName = null;
+        int taxRate = Money.DEFAULT_TAX_RATE;
+        Path checkpointPath = null;
+        Path logPath = null;
+        int simulateDays = 0;
+        int parseThreads = Runtime.getRuntime().availableProcessors();
+        boolean pipelined = false;
+        Path eventsPath = Paths.get("events.txt");
+        Path convertPath = null;
+        Path configPath = null;
+        Path compilePath = null;
+        int[] sweepTables = null;
+        int[] sweepCooks = null;
+        int[] sweepServers = null;
         try {
-            while (input.hasNextLine()) {
-                //Parse event
-                lineNum++;
-                String event = removeByteOrderMark(input.nextLine());
-                if (event.startsWith("Order ")) {
-                    //Parse order to be placed
-                    int orderID = Integer.parseInt(event.substring("Order ".length()));
-                    lineNum++;
-                    Table table =
-                            restaurant.getTable(Integer.parseInt(stripInputPrefix(input.nextLine(), "Table: ")));
-                    if (table == null) {
-                        throw new IOException();
-                    }
-                    Order order = new Order(table);
-                    lineNum++;
-                    Server server = restaurant.getServer(stripInputPrefix(input.nextLine(), "Server: "));
-                    if (server == null) {
-                        throw new IOException();
-                    }
-                    lineNum++;
-                    String line = input.nextLine();
-                    while (line.length() > 0) {
-                        //Parse dish sub-block
-                        int dishID = Integer.parseInt(stripInputPrefix(line, "Dish "));
-                        if (order.getDish(dishID) != null) {
-                            throw new IOException();
-                        }
-                        lineNum++;
-                        line = input.nextLine();
-                        MenuItem item = menu.getItem(line);
-                        if (item == null) {
-                            throw new IOException();
-                        }
-                        OrderDish dish = new OrderDish(dishID, item);
-                        lineNum++;
-                        line = input.nextLine();
-                        while (line.length() > 0 && !line.startsWith("Dish ")) {
-                            //Parse modification
-                            MenuItemMod mod = item.getMod(line);
-                            if (mod == null) {
-                                throw new IOException();
-                            }
-                            dish.addMod(mod);
-                            lineNum++;
-                            line = input.nextLine();
-                        }
-                        order.addDish(dish);
-                    }
-                    orders.put(orderID, order);
-                    server.placeOrder(order);
-                } else if (event.equals("Seen")) {
-                    //Parse an order's dishes being seen by a cook
-                    lineNum++;
-                    Cook cook = restaurant.getCook(stripInputPrefix(input.nextLine(), "Cook: "));
-                    if (cook == null) {
-                        throw new IOException();
-                    }
-                    lineNum++;
-                    Order order = orders.get(Integer.parseInt(stripInputPrefix(input.nextLine(), "Order: ")));
-                    if (order == null) {
-                        throw new IOException();
+            if (args.length % 2 != 0) {
+                throw new IllegalArgumentException();
+            }
+            for (int i = 0; i < args.length; i += 2) {
+                if (args[i].equals("--output")) {
+                    outputName = args[i + 1];
+                } else if (args[i].equals("--tax")) {
+                    taxRate = Money.parseRate(args[i + 1]);
+                } else if (args[i].equals("--checkpoint")) {
+                    checkpointPath = Paths.get(args[i + 1]);
+                } else if (args[i].equals("--log")) {
+                    logPath = Paths.get(args[i + 1]);
+                } else if (args[i].equals("--parse-threads")) {
+                    parseThreads = Integer.parseInt(args[i + 1]);
+                    if (parseThreads < 1) {
+                        throw new IllegalArgumentException();
                     }
-                    //Make the cook see the appropriate dishes
-                    lineNum++;
-                    String[] dishIDs = stripInputPrefix(input.nextLine(), "Dishes: ").split(", ");
-                    for (String dishID : dishIDs) {
-                        OrderDish dish = order.getDish(Integer.parseInt(dishID));
-                        if (dish == null) {
-                            throw new IOException();
-                        }
-                        cook.seeDish(dish);
+                } else if (args[i].equals("--pipeline")) {
+                    if (!args[i + 1].equals("on") && !args[i + 1].equals("off")) {
+                        throw new IllegalArgumentException();
                     }
-                    lineNum++;
-                    if (input.nextLine().length() > 0) {
-                        throw new IOException();
+                    pipelined = args[i + 1].equals("on");
+                } else if (args[i].equals("--events")) {
+                    eventsPath = Paths.get(args[i + 1]);
+                } else if (args[i].equals("--convert")) {
+                    convertPath = Paths.get(args[i + 1]);
+                } else if (args[i].equals("--config")) {
+                    configPath = Paths.get(args[i + 1]);
+                } else if (args[i].equals("--compile-config")) {
+                    compilePath = Paths.get(args[i + 1]);
+                } else if (args[i].equals("--tables")) {
+                    sweepTables = parseCounts(args[i + 1]);
+                } else if (args[i].equals("--cooks")) {
+                    sweepCooks = parseCounts(args[i + 1]);
+                } else if (args[i].equals("--servers")) {
+                    sweepServers = parseCounts(args[i + 1]);
+                } else if (args[i].equals("--simulate")) {
+                    simulateDays = Integer.parseInt(args[i + 1]);
+                    if (simulateDays < 1) {
+                        throw new IllegalArgumentException();
                     }
-                } else if (event.equals("Filled")) {
-                    //Parse an order's dishes being filled by a cook
+                } else {
+                    throw new IllegalArgumentException();
+                }
+            }
+            if ((simulateDays > 0 || convertPath != null)
+                    && (checkpointPath != null || logPath != null)) {
+                throw new IllegalArgumentException();
+            }
+            if (compilePath != null && (configPath != null || simulateDays > 0
+                    || convertPath != null || checkpointPath != null || logPath != null)) {
+                throw new IllegalArgumentException();
+            }
+            if (simulateDays > 0 && convertPath != null) {
+                throw new IllegalArgumentException();
+            }
+            boolean sweeping = sweepTables != null || sweepCooks != null || sweepServers != null;
+            if (sweeping && simulateDays == 0) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: Phase1 [--output console|none|file:<file name>]"
+                    + " [--tax <percentage>] [--checkpoint <file name>] [--log <file name>]"
+                    + " [--parse-threads <n>] [--pipeline on|off] [--events <file name>]"
+                    + " [--convert <file name>] [--config <file name>]"
+                    + " | [--simulate <days> [--tables <n>,...] [--cooks <n>,...]"
+                    + " [--servers <n>,...]] | [--compile-config <file name>]");
+            return;
+        }
+        if (convertPath != null) {
+            convertEvents(eventsPath, convertPath, parseThreads);
+            return;
+        }
+        //Get restaurant.txt information, or the compiled configuration
+        ConfigImage config = null;
+        if (configPath != null) {
+            try {
+                config = ConfigImage.read(configPath);
+            } catch (IOException e) {
+                System.out.println("Error: Could not read config image " + configPath);
+                return;
+            }
+        }
+        int numTables;
+        String[] cookNames, serverNames, managerNames, receiverNames;
+        Scanner input;
+        int lineNum;
+        if (config != null) {
+            numTables = config.getNumTables();
+            cookNames = config.getCookNames();
+            serverNames = config.getServerNames();
+            managerNames = config.getManagerNames();
+            receiverNames = config.getReceiverNames();
+        } else {
+            try {
+                File restaurantFile = new File("restaurant.txt");
+                input = new Scanner(restaurantFile);
+            } catch (FileNotFoundException e) {
+                System.out.println("Error: Could not find restaurant.txt");
+                return;
+            }
+            List<String> lines = new ArrayList<>();
+            while (input.hasNextLine()) {
+                lines.add(input.nextLine());
+            }
+            input.close();
+            if (lines.size() != 6) {
+                System.out.println("Error: restaurant.txt has the wrong number of lines");
+                return;
+            }
+            lineNum = 1;
+            try {
+                numTables = Integer.parseInt(stripInputPrefix(removeByteOrderMark(lines.get(0)), "Tables: "));
+                lineNum = 2;
+                cookNames = stripInputPrefix(lines.get(1), "Cooks: ").split(", ");
+                lineNum = 3;
+                serverNames = stripInputPrefix(lines.get(2), "Servers: ").split(", ");
+                lineNum = 4;
+                managerNames = stripInputPrefix(lines.get(3), "Managers: ").split(", ");
+                lineNum = 5;
+                receiverNames = stripInputPrefix(lines.get(4), "Receivers: ").split(", ");
+                lineNum = 6;
+                if (lines.get(5).length() > 0) {
+                    throw new IOException();
+                }
+            } catch (Exception e) {
+                System.out.println("Error: Could not parse restaurant.txt line " + lineNum);
+                return;
+            }
+        }
+        //Make restaurant and its menu
+        Menu menu = new Menu();
+        //A restored restaurant keeps the requests made before it was restarted
+        boolean hasCheckpoint = checkpointPath != null && Files.exists(checkpointPath);
+        boolean restoring = hasCheckpoint || (logPath != null && Files.exists(logPath));
+        //A simulated restaurant restocks itself instead of making requests, and events carry no
+        //times to merge requests by, so every request they make is written
+        Restaurant restaurant = new Restaurant(menu, numTables, simulateDays > 0
+                || compilePath != null ? null : Restaurant.openRequests(restoring, 0));
+        restaurant.setTaxRate(taxRate);
+        //Its stock and replayed events made their requests before it was restarted
+        restaurant.setRequestsMuted(restoring);
+        if (outputName == null) {
+            outputName = simulateDays > 0 || compilePath != null ? "none" : "console";
+        }
+        //Named outputs write in the background, so the restaurant is closed on every way out
+        try {
+            restaurant.setOutput(OutputSink.forName(outputName));
+        } catch (Exception e) {
+            System.out.println("Error: Could not open output " + outputName);
+            restaurant.close();
+            return;
+        }
+        for (String cookName : cookNames) {
+            restaurant.addCook(new Cook(cookName));
+        }
+        for (String serverName : serverNames) {
+            restaurant.addServer(new Server(serverName));
+        }
+        for (String managerName : managerNames) {
+            restaurant.addManager(new Manager(managerName));
+        }
+        for (String receiverName : receiverNames) {
+            restaurant.addReceiver(new Receiver(receiverName));
+        }
+        if (config != null) {
+            config.stock(restaurant);
+            config.addItems(menu);
+        } else {
+            //Add ingredients.txt information to restaurant
+            try {
+                File ingredientsFile = new File("ingredients.txt");
+                input = new Scanner(ingredientsFile);
+            } catch (FileNotFoundException e) {
+                System.out.println("Error: Could not find ingredients.txt");
+                restaurant.close();
+                return;
+            }
+            lineNum = 0;
+            try {
+                while (input.hasNextLine()) {
+                    //Parse ingredient block
                     lineNum++;
-                    Cook cook = restaurant.getCook(stripInputPrefix(input.nextLine(), "Cook: "));
-                    if (cook == null) {
-                        throw new IOException();
-                    }
+                    String ingredient = removeByteOrderMark(input.nextLine());
                     lineNum++;
-                    Order order = orders.get(Integer.parseInt(stripInputPrefix(input.nextLine(), "Order: ")));
-                    if (order == null) {
-                        throw new IOException();
-                    }
-                    //Make the cook fill the appropriate dishes
+                    int threshold = Integer.parseInt(stripInputPrefix(input.nextLine(), "Threshold: "));
                     lineNum++;
-                    String[] dishIDs = stripInputPrefix(input.nextLine(), "Dishes: ").split(", ");
-                    for (String dishID : dishIDs) {
-                        OrderDish dish = order.getDish(Integer.parseInt(dishID));
-                        if (dish == null || !cook.prepareDish(dish)) {
-                            throw new IOException();
-                        }
-                    }
+                    int startingAmount = Integer.parseInt(stripInputPrefix(input.nextLine(), "Starting: "));
                     lineNum++;
                     if (input.nextLine().length() > 0) {
                         throw new IOException();
                     }
-                } else if (event.equals("Delivered")) {
-                    //Parse an order's dishes being delivered by a server
-                    lineNum++;
-                    Server server = restaurant.getServer(stripInputPrefix(input.nextLine(), "Server: "));
-                    if (server == null) {
-                        throw new IOException();
-                    }
-                    lineNum++;
-                    Order order = orders.get(Integer.parseInt(stripInputPrefix(input.nextLine(), "Order: ")));
-                    if (order == null) {
-                        throw new IOException();
-                    }
-                    //Determine which dishes should be rejected by the table
-                    Set<OrderDish> rejectedDishes = new HashSet<>();
-                    lineNum++;
-                    String line = input.nextLine();
-                    if (line.length() > 0) { //Should any dishes be rejected at all?
-                        String[] rejectedIDs = stripInputPrefix(line, "Rejected: ").split(", ");
-                        for (String rejectedID : rejectedIDs) {
-                            OrderDish dish = order.getDish(Integer.parseInt(rejectedID));
-                            if (dish == null || !rejectedDishes.add(dish)) {
-                                throw new IOException();
-                            }
+                    restaurant.addIngredient(ingredient, threshold, startingAmount);
+                }
+            } catch (Exception e) {
+                System.out.println("Error: Could not parse ingredients.txt line " + lineNum);
+                restaurant.close();
+                return;
+            }
+            input.close();
+            //Add menu.txt information to restaurant
+            try {
+                File menuFile = new File("menu.txt");
+                input = new Scanner(menuFile);
+            } catch (FileNotFoundException e) {
+                System.out.println("Error: Could not find menu.txt");
+                restaurant.close();
+                return;
+            }
+            int badLineNum = readMenu(input, menu);
+            if (badLineNum > 0) {
+                System.out.println("Error: Could not parse menu.txt line " + badLineNum);
+                restaurant.close();
+                return;
+            }
+            input.close();
+        }
+        if (compilePath != null) {
+            try {
+                ConfigImage.capture(restaurant).write(compilePath);
+            } catch (IOException e) {
+                System.out.println("Error: Could not write config image " + compilePath);
+                restaurant.close();
+                return;
+            }
+            restaurant.close();
+            System.out.println("Compiled restaurant.txt, ingredients.txt and menu.txt to "
+                    + compilePath);
+            return;
+        }
+        if (sweepTables != null || sweepCooks != null || sweepServers != null) {
+            Supplier<Menu> menus;
+            if (config != null) {
+                menus = config::newMenu;
+            } else {
+                String menuText;
+                try {
+                    menuText = new String(Files.readAllBytes(Paths.get("menu.txt")),
+                            Charset.defaultCharset());
+                } catch (IOException e) {
+                    System.out.println("Error: Could not find menu.txt");
+                    restaurant.close();
+                    return;
+                }
+                menus = () -> {
+                    Menu sweepMenu = new Menu();
+                    readMenu(new Scanner(menuText), sweepMenu);
+                    return sweepMenu;
+                };
+            }
+            Restaurant stocked = restaurant;
+            SimulationSweep sweep = new SimulationSweep(menus, sweepRestaurant -> {
+                for (String ingredient : stocked.getIngredients()) {
+                    sweepRestaurant.addIngredient(ingredient, stocked.getThreshold(ingredient),
+                            stocked.getAmount(ingredient));
+                }
+            });
+            sweep.setDays(simulateDays);
+            sweep.setSeed(SIMULATION_SEED);
+            sweep.setTables(sweepTables != null ? sweepTables : new int[]{numTables});
+            sweep.setCooks(sweepCooks != null ? sweepCooks : new int[]{cookNames.length});
+            sweep.setServers(sweepServers != null ? sweepServers : new int[]{serverNames.length});
+            restaurant.close();
+            try {
+                SimulationSweep.writeReport(sweep.run(), System.out);
+            } catch (IllegalStateException e) {
+                System.out.println("Error: " + e.getMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); //System.out does not throw
+            }
+            return;
+        }
+        if (simulateDays > 0) {
+            Simulation simulation = new Simulation(restaurant, SIMULATION_SEED);
+            try {
+                simulation.run(simulateDays);
+            } catch (IllegalStateException e) {
+                System.out.println("Error: " + e.getMessage());
+                restaurant.close();
+                return;
+            }
+            restaurant.close();
+            System.out.println(simulation);
+            return;
+        }
+        //Simulate events in events.txt
+        EventSource reader;
+        try {
+            reader = openEvents(eventsPath, parseThreads, menu);
+        } catch (NoSuchFileException e) {
+            System.out.println("Error: Could not find " + eventsPath);
+            restaurant.close();
+            return;
+        } catch (IOException e) {
+            //Such as a binary events file that has been cut short
+            System.out.println("Error: Could not read " + eventsPath);
+            restaurant.close();
+            return;
+        }
+        EventApplier applier = new EventApplier(restaurant);
+        if (hasCheckpoint) {
+            //Carry on from the checkpoint instead of the start of events.txt
+            try {
+                Checkpoint.read(checkpointPath).restore(restaurant, applier);
+            } catch (IOException e) {
+                System.out.println("Error: Could not restore checkpoint " + checkpointPath);
+                restaurant.close();
+                return;
+            }
+        }
+        EventLog log = null;
+        if (logPath != null) {
+            //Replay the events logged after the checkpoint, then keep logging
+            try {
+                EventLog.replay(logPath, applier);
+                log = EventLog.open(logPath);
+            } catch (IOException e) {
+                System.out.println("Error: Could not recover from event log " + logPath);
+                restaurant.close();
+                return;
+            }
+        }
+        restaurant.setRequestsMuted(false);
+        AtomicReference<CompletableFuture<Void>> checkpointWritten =
+                new AtomicReference<>(CompletableFuture.completedFuture(null));
+        String error = null;
+        try {
+            if (pipelined) {
+                //Read, look up, apply and log on four threads at once
+                EventPipeline pipeline = new EventPipeline(reader, applier);
+                pipeline.setLog(log);
+                pipeline.setEventsToSkip(applier.getEventsApplied());
+                if (checkpointPath != null) {
+                    Path path = checkpointPath;
+                    pipeline.setCheckpoint(CHECKPOINT_INTERVAL, () -> checkpointWritten.set(
+                            Checkpoint.capture(restaurant, applier).writeAsync(path)));
+                }
+                pipeline.run();
+            } else {
+                long eventsToSkip = applier.getEventsApplied();
+                Event event = reader.next();
+                while (event != null) {
+                    if (eventsToSkip > 0) {
+                        eventsToSkip--;
+                    } else {
+                        applier.apply(event);
+                        if (log != null) {
+                            log.append(applier.getEventsApplied(), event);
                         }
-                        lineNum++;
-                        if (input.nextLine().length() > 0) {
-                            throw new IOException();
+                        if (checkpointPath != null
+                                && applier.getEventsApplied() % CHECKPOINT_INTERVAL == 0) {
+                            checkpointWritten.set(Checkpoint.capture(restaurant, applier)
+                                    .writeAsync(checkpointPath));
                         }
                     }
-                    server.deliverOrder(order, rejectedDishes);
-                } else if (event.equals("Paid")) {
-                    //Parse a table paying for their food
-                    lineNum++;
-                    restaurant.getTable(Integer.parseInt(
-                            stripInputPrefix(input.nextLine(), "Table: "))).payForDishes();
-                    lineNum++;
-                    if (input.nextLine().length() > 0) {
-                        throw new IOException();
-                    }
-                } else if (event.equals("Checked")) {
-                    //Parse a manager checking the inventory
-                    lineNum++;
-                    Manager manager = restaurant.getManager(stripInputPrefix(input.nextLine(), "Manager: "));
-                    if (manager == null) {
-                        throw new IOException();
-                    }
-                    manager.checkInventory();
-                    lineNum++;
-                    if (input.nextLine().length() > 0) {
-                        throw new IOException();
-                    }
-                } else if (event.equals("Received")) {
-                    //Parse a receiver receiving ingredients
-                    lineNum++;
-                    Receiver receiver = restaurant.getReceiver(stripInputPrefix(input.nextLine(), "Receiver: "));
-                    if (receiver == null) {
-                        throw new IOException();
-                    }
-                    lineNum++;
-                    String line = input.nextLine();
-                    while (line.length() > 0) {
-                        //Parse ingredient information
-                        int ingredientAmountEnd = line.indexOf(' ');
-                        int ingredientAmount = Integer.parseInt(line.substring(0, ingredientAmountEnd));
-                        String ingredient = line.substring(ingredientAmountEnd + 1);
-                        receiver.receiveIngredients(ingredient, ingredientAmount);
-                        lineNum++;
-                        line = input.nextLine();
-                    }
-                } else {
-                    throw new IOException();
+                    event = reader.next();
                 }
             }
-        } catch (Exception e) {
-            System.out.println("Error: Could not parse events.txt line " + lineNum);
-            return;
+            reader.close();
+            if (checkpointPath != null) {
+                checkpointWritten.set(Checkpoint.capture(restaurant, applier)
+                        .writeAsync(checkpointPath));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Error: Interrupted while simulating " + eventsPath;
+        } catch (EventFormatException e) {
+            error = "Error: Could not parse " + eventsPath + " line " + e.getLineNum();
+        } catch (IOException e) {
+            error = "Error: Could not read " + eventsPath;
+        } catch (UncheckedIOException e) {
+            error = "Error: Could not write event log " + logPath;
+        }
+        try {
+            checkpointWritten.get().join();
+        } catch (CompletionException e) {
+            if (error == null) {
+                error = "Error: Could not write checkpoint " + checkpointPath;
+            }
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = "Error: Could not write event log " + logPath;
+                }
+            }
+        }
+        //Write out the restaurant's messages and requests before any error
+        restaurant.close();
+        if (error != null) {
+            System.out.println(error);
         }
-        input.close();
     }
     
 }
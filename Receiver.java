@@ -17,8 +17,15 @@ public class Receiver extends Employee {
      */
     public void receiveIngredients(String ingredient, int amount) {
         getRestaurant().addAmount(ingredient, amount);
-        System.out.println(amount + " units of " + ingredient + " has been received by " + getName());
-        System.out.println();
+        OutputSink output = getRestaurant().getOutput();
+        output.write(output.buffer()
+                .append(amount)
+                .append(" units of ")
+                .append(ingredient)
+                .append(" has been received by ")
+                .append(getName())
+                .append(OutputSink.NL)
+                .append(OutputSink.NL));
     }
     
 }
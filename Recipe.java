@@ -0,0 +1,138 @@
+package restaurant;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A Recipe is a MenuItem together with a set of its MenuItemMods, resolved into the final
+ * ingredient amounts and price of a dish made that way. Recipes are immutable and are made once by
+ * their MenuItem for each set of mods that is ordered, then shared by every OrderDish that uses
+ * them.
+ *
+ * <p>A Recipe remembers the Recipes reached from it by adding each mod, so once a combination has
+ * been ordered, ordering it again does not create any objects.
+ */
+public class Recipe {
+    
+    private final MenuItem item;
+    private final BitSet modIndexes;
+    private final Set<MenuItemMod> mods;
+    private final IngredientVector ingredientVector;
+    private final Map<String, Integer> ingredientAmounts;
+    private final long price;
+    private final AtomicReferenceArray<Recipe> withMods;
+    
+    /**
+     * Creates the Recipe for the specified MenuItem with the mods at the specified indexes of its
+     * list of mods. Only MenuItem should create Recipes, so that each combination is made once.
+     *
+     * @param item       The MenuItem being made
+     * @param modIndexes The indexes of the mods in the item's list of mods
+     * @param itemMods   The item's list of mods
+     */
+    Recipe(MenuItem item, BitSet modIndexes, List<MenuItemMod> itemMods) {
+        this.item = item;
+        this.modIndexes = modIndexes;
+        Set<MenuItemMod> mods = new LinkedHashSet<>();
+        IngredientVector ingredientVector = item.getIngredientVector();
+        Map<String, Integer> ingredientAmounts = new HashMap<>(item.getIngredientAmounts());
+        long price = item.getPrice();
+        for (int i = modIndexes.nextSetBit(0); i >= 0; i = modIndexes.nextSetBit(i + 1)) {
+            MenuItemMod mod = itemMods.get(i);
+            mods.add(mod);
+            ingredientVector = ingredientVector.plus(mod.getIngredientVector());
+            for (Map.Entry<String, Integer> change : mod.getIngredientChanges().entrySet()) {
+                ingredientAmounts.merge(change.getKey(), change.getValue(), Integer::sum);
+            }
+            price += mod.getPriceChange();
+        }
+        this.mods = Collections.unmodifiableSet(mods);
+        this.ingredientVector = ingredientVector;
+        this.ingredientAmounts = Collections.unmodifiableMap(ingredientAmounts);
+        this.price = price;
+        withMods = new AtomicReferenceArray<>(itemMods.size());
+    }
+    
+    /**
+     * Returns the MenuItem that this Recipe makes.
+     *
+     * @return The MenuItem that this Recipe makes
+     */
+    public MenuItem getItem() {
+        return item;
+    }
+    
+    /**
+     * Returns an unmodifiable Set of the mods in this Recipe, in the order they were added to the
+     * MenuItem.
+     *
+     * @return The mods in this Recipe
+     */
+    public Set<MenuItemMod> getMods() {
+        return mods;
+    }
+    
+    /**
+     * Returns the ingredients and amounts this Recipe takes, including the changes made by its mods.
+     *
+     * @return The ingredients this Recipe takes
+     */
+    public IngredientVector getIngredientVector() {
+        return ingredientVector;
+    }
+    
+    /**
+     * Returns an unmodifiable Map from the names of the ingredients this Recipe takes to their
+     * amounts.
+     *
+     * @return The ingredients this Recipe takes, by name
+     */
+    public Map<String, Integer> getIngredientAmounts() {
+        return ingredientAmounts;
+    }
+    
+    /**
+     * Returns the price of a dish made with this Recipe: the price of the MenuItem plus the price
+     * changes of the mods, in cents.
+     *
+     * @return The price of this Recipe, in cents
+     */
+    public long getPrice() {
+        return price;
+    }
+    
+    /**
+     * Returns the Recipe with the same MenuItem as this one and the mods of this Recipe plus the
+     * specified mod. If the mod is already in this Recipe, this Recipe is returned.
+     *
+     * @param mod The mod to add
+     * @return The Recipe with the mod added
+     * @throws IllegalArgumentException If the mod is not one of the MenuItem's mods
+     */
+    public Recipe withMod(MenuItemMod mod) {
+        int index = item.getModIndex(mod);
+        if (index < 0) {
+            throw new IllegalArgumentException(mod.getName() + " is not a mod of " + item.getName());
+        }
+        if (modIndexes.get(index)) {
+            return this;
+        }
+        Recipe recipe = index < withMods.length() ? withMods.get(index) : null;
+        if (recipe == null) {
+            BitSet indexes = (BitSet) modIndexes.clone();
+            indexes.set(index);
+            recipe = item.getRecipe(indexes);
+            if (index < withMods.length()) {
+                withMods.set(index, recipe);
+            }
+        }
+        return recipe;
+    }
+    
+}
@@ -0,0 +1,248 @@
+package restaurant;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A ReorderJournal records requests for more of an ingredient, such as the ones in requests.txt that
+ * the manager copies into an email. Requests are only ever appended. They are collected in memory
+ * and written to the file together by a background thread at a fixed interval, so a burst of
+ * ingredients going below their thresholds costs one write rather than one per request.
+ *
+ * <p>A request for an ingredient that was already requested within the coalescing window is merged
+ * into the earlier request instead of being written again. The window is measured on the clock the
+ * requests are made with, which for a Restaurant is its own clock, so a simulated restaurant
+ * coalesces in simulated time. Requests replayed from events.txt carry no time worth comparing, so
+ * Phase1 opens its journal with no window and every request is written.
+ */
+public class ReorderJournal implements Closeable {
+    
+    /**
+     * The amount of an ingredient that is requested when it goes below its threshold.
+     */
+    public static final int DEFAULT_QUANTITY = 20;
+    
+    private final Writer writer;
+    private final long flushIntervalMillis;
+    private final long coalesceNanos;
+    private final Map<String, Long> lastRequested = new HashMap<>();
+    private StringBuilder pending = new StringBuilder();
+    private StringBuilder batch = new StringBuilder();
+    private long requestsWritten = 0;
+    private long requestsMerged = 0;
+    private boolean closed = false;
+    private IOException failure = null;
+    private ScheduledExecutorService flusher = null;
+    
+    /**
+     * Creates a new ReorderJournal that writes to the specified Writer.
+     *
+     * @param writer              The Writer to append requests to
+     * @param flushIntervalMillis How often, in milliseconds, collected requests are written
+     * @param coalesceMillis      How long, in milliseconds, after a request for an ingredient
+     *                            further requests for it are merged into it
+     */
+    public ReorderJournal(Writer writer, long flushIntervalMillis, long coalesceMillis) {
+        this.writer = writer;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.coalesceNanos = TimeUnit.MILLISECONDS.toNanos(coalesceMillis);
+    }
+    
+    /**
+     * Returns a ReorderJournal that writes to a new file at the specified path, replacing any file
+     * already there, every 100 milliseconds, and merges requests made within a second of each other.
+     *
+     * @param path The path of the file
+     * @return A ReorderJournal writing to the file
+     * @throws IOException If the file could not be created
+     */
+    public static ReorderJournal open(String path) throws IOException {
+        return open(path, false);
+    }
+    
+    /**
+     * Returns a ReorderJournal like the one returned by open(path), except that if append is true
+     * requests are added to the end of any file already there.
+     *
+     * @param path   The path of the file
+     * @param append Whether to keep the requests already in the file
+     * @return A ReorderJournal writing to the file
+     * @throws IOException If the file could not be opened or created
+     */
+    public static ReorderJournal open(String path, boolean append) throws IOException {
+        return open(path, append, 1000);
+    }
+    
+    /**
+     * Returns a ReorderJournal like the one returned by open(path, append), except that requests
+     * are merged within the specified window, or never if it is 0.
+     *
+     * @param path           The path of the file
+     * @param append         Whether to keep the requests already in the file
+     * @param coalesceMillis How long, in milliseconds, after a request for an ingredient further
+     *                       requests for it are merged into it
+     * @return A ReorderJournal writing to the file
+     * @throws IOException If the file could not be opened or created
+     */
+    public static ReorderJournal open(String path, boolean append, long coalesceMillis)
+            throws IOException {
+        OpenOption[] options = append
+                ? new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.APPEND}
+                : new OpenOption[0];
+        return new ReorderJournal(Files.newBufferedWriter(Paths.get(path), options), 100,
+                coalesceMillis);
+    }
+    
+    /**
+     * Requests the specified quantity of an ingredient now, by System.nanoTime, unless it was
+     * already requested within the coalescing window.
+     *
+     * @param ingredient The name of the ingredient
+     * @param quantity   The amount of the ingredient wanted
+     * @return Whether a new request was made, rather than merged into an earlier one
+     */
+    public boolean request(String ingredient, int quantity) {
+        return request(ingredient, quantity, System.nanoTime());
+    }
+    
+    /**
+     * Requests the specified quantity of an ingredient at the specified time, unless it was already
+     * requested within the coalescing window before it. Times must come from one clock.
+     *
+     * @param ingredient The name of the ingredient
+     * @param quantity   The amount of the ingredient wanted
+     * @param now        The time of the request, in nanoseconds
+     * @return Whether a new request was made, rather than merged into an earlier one
+     */
+    public synchronized boolean request(String ingredient, int quantity, long now) {
+        if (closed) {
+            throw new IllegalStateException("The journal has been closed");
+        }
+        Long last = lastRequested.get(ingredient);
+        if (last != null && now - last < coalesceNanos) {
+            requestsMerged++;
+            return false;
+        }
+        lastRequested.put(ingredient, now);
+        pending.append("ITEM REQUIRED : ").append(ingredient).append(' ').append(quantity)
+                .append(System.lineSeparator());
+        requestsWritten++;
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Reorder journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis,
+                    flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the number of requests that have been made, including ones not yet written.
+     *
+     * @return The number of requests made
+     */
+    public synchronized long getRequestsWritten() {
+        return requestsWritten;
+    }
+    
+    /**
+     * Returns the number of requests that were merged into earlier ones.
+     *
+     * @return The number of requests merged
+     */
+    public synchronized long getRequestsMerged() {
+        return requestsMerged;
+    }
+    
+    /**
+     * Writes every collected request to the file.
+     *
+     * @throws IOException If writing failed, now or in the background
+     */
+    public void flush() throws IOException {
+        synchronized (writer) {
+            synchronized (this) {
+                if (failure != null) {
+                    throw failure;
+                }
+                StringBuilder full = pending;
+                pending = batch;
+                batch = full;
+            }
+            if (batch.length() > 0) {
+                try {
+                    writer.append(batch);
+                    writer.flush();
+                } finally {
+                    batch.setLength(0);
+                }
+            }
+        }
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+            }
+        }
+    }
+    
+    /**
+     * Writes every collected request, stops the background thread and closes the file.
+     *
+     * @throws IOException If writing or closing failed
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stopping = flusher;
+        }
+        if (stopping != null) {
+            stopping.shutdown();
+            try {
+                stopping.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            flush();
+        } finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Closes this ReorderJournal, turning any IOException into an UncheckedIOException.
+     */
+    void closeUnchecked() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+}
@@ -1,24 +1,42 @@
 package restaurant;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * The restaurant class deals with a particular restaurant. All different employees that belong to a
  * particular restaurant, the tables associated with it and the processes that happen in and from
  * this restaurant occur here.
+ *
+ * <p>The inventory and the sets of unseen dishes and ready orders can be used by many threads at
+ * once, so that the Cooks can work on their own threads in a Kitchen. A filled order is handed to
+ * the Server who should pick it up, so Servers can wait for their orders instead of looking through
+ * the ready orders.
  */
 public class Restaurant {
     
     private final Menu menu;
-    private final Map<String, IngredientData> ingredientData = new HashMap<>();
+    private final IngredientTable ingredients;
+    private final Inventory inventory;
+    private final AvailabilityIndex availability;
     private final List<Table> tables;
     private final Map<String, Cook> cooks = new HashMap<>();
     private final Map<String, Server> servers = new HashMap<>();
     private final Map<String, Manager> managers = new HashMap<>();
     private final Map<String, Receiver> receivers = new HashMap<>();
-    private final Set<OrderDish> unseenDishes = new HashSet<>();
-    private final Set<Order> readyOrders = new HashSet<>();
-    private Formatter formatter = null;
+    private final Set<OrderDish> unseenDishes = ConcurrentHashMap.newKeySet();
+    private final Set<Order> readyOrders = ConcurrentHashMap.newKeySet();
+    private volatile Kitchen kitchen = null;
+    private OutputSink output = OutputSink.console();
+    private volatile int taxRate = Money.DEFAULT_TAX_RATE;
+    private volatile LongSupplier clock = System::nanoTime;
+    private volatile LatencyRecorder latency = null;
+    private volatile boolean rejectUnavailable = false;
+    private volatile boolean holdIngredients = false;
+    private volatile AdmissionControl admission = null;
+    private volatile boolean requestsMuted = false;
+    private final ReorderJournal journal;
     
     /**
      * This parameterised constructor instantiates tables for that restaurant for the customers to
@@ -29,18 +47,51 @@ public class Restaurant {
      * @param numTables the number of tables that the restaurant has.
      */
     public Restaurant(Menu menu, int numTables) {
+        this(menu, numTables, openRequests(false, 1000));
+    }
+    
+    /**
+     * Creates a restaurant with the specified menu and number of tables whose ingredient requests go
+     * to the specified ReorderJournal, or nowhere if it is null.
+     *
+     * @param menu      the menu that the restaurant is dealt with.
+     * @param numTables the number of tables that the restaurant has.
+     * @param journal   the ReorderJournal that ingredient requests are written to, or null.
+     */
+    public Restaurant(Menu menu, int numTables, ReorderJournal journal) {
         //assigns the menu to the particular restaurant
         this.menu = menu;
+        ingredients = menu.getIngredientTable();
+        inventory = new Inventory(ingredients, id -> orderIngredient(ingredients.getName(id)));
+        availability = new AvailabilityIndex(inventory);
+        inventory.setAmountListener(availability);
+        for (MenuItem item : menu.getItems()) {
+            availability.addItem(item);
+        }
+        menu.addItemListener(availability::addItem);
         tables = new ArrayList<>(numTables);
         //initialises the different number of tables present in the restaurant.
         for (int i = 1; i <= numTables; i++) {
             tables.add(new Table(this, i));
         }
-        //creates a requests.txt file as soon as restaurant class has been instantiated.
+        this.journal = journal;
+    }
+    
+    /**
+     * Creates a requests.txt file, as soon as restaurant class has been instantiated, or adds to the
+     * one there if append is true.
+     *
+     * @param append         whether to keep the requests already in requests.txt.
+     * @param coalesceMillis how long after a request for an ingredient further requests for it are
+     *                       merged into it, or 0 to write every request.
+     * @return the ReorderJournal writing to requests.txt, or null if it could not be opened.
+     */
+    static ReorderJournal openRequests(boolean append, long coalesceMillis) {
         try {
-            formatter = new Formatter("requests.txt");
+            return ReorderJournal.open("requests.txt", append, coalesceMillis);
         } catch (Exception e) {
             System.out.println("Error: Could not find or create requests.txt");
+            return null;
         }
     }
     
@@ -54,62 +105,349 @@ public class Restaurant {
     }
     
     /**
-     * The set of the IngredientsData Hashmap is returned.
+     * Returns the names of the ingredients in this restaurant's inventory, in the order they were
+     * added.
      *
-     * @return the Set of the ingredientsData HashMap that contains ingredients and their amounts.
+     * @return the Set of the names of the ingredients in the inventory.
      */
     public Set<String> getIngredients() {
-        return ingredientData.keySet();
+        Set<String> names = new LinkedHashSet<>();
+        for (int id = 0; id < ingredients.size(); id++) {
+            if (inventory.isStocked(id)) {
+                names.add(ingredients.getName(id));
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * Returns the IngredientTable that gives ids to the ingredients in this restaurant's inventory.
+     * It is the IngredientTable of the restaurant's menu.
+     *
+     * @return the IngredientTable of this restaurant.
+     */
+    public IngredientTable getIngredientTable() {
+        return ingredients;
+    }
+    
+    /**
+     * Returns the OutputSink that this restaurant's employees and tables write their messages to.
+     * It writes to the console unless another one has been set.
+     *
+     * @return the OutputSink of this restaurant.
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+    
+    /**
+     * Sets the OutputSink that this restaurant's employees and tables write their messages to. The
+     * old OutputSink is not closed.
+     *
+     * @param output the new OutputSink of this restaurant.
+     */
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+    
+    /**
+     * Returns the current time on this restaurant's clock, in nanoseconds. The clock is
+     * System.nanoTime unless another one has been set.
+     *
+     * @return the current time in nanoseconds.
+     */
+    public long nanoTime() {
+        return clock.getAsLong();
+    }
+    
+    /**
+     * Sets the clock that this restaurant times its orders with, such as a simulated clock.
+     *
+     * @param clock gives the current time in nanoseconds.
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * Returns the clock that this restaurant times its orders with.
+     *
+     * @return the clock.
+     */
+    LongSupplier getClock() {
+        return clock;
+    }
+    
+    /**
+     * Returns the LatencyRecorder that the stages of this restaurant's orders are timed into, or null
+     * if they are not timed.
+     *
+     * @return the LatencyRecorder of this restaurant, or null.
+     */
+    public LatencyRecorder getLatencyRecorder() {
+        return latency;
+    }
+    
+    /**
+     * Sets the LatencyRecorder that the stages of this restaurant's orders are timed into, or stops
+     * timing them if it is null. Only orders placed after it is set are timed in full.
+     *
+     * @param latency the new LatencyRecorder, or null.
+     */
+    public void setLatencyRecorder(LatencyRecorder latency) {
+        this.latency = latency;
+    }
+    
+    /**
+     * Returns the AvailabilityIndex that knows which of this restaurant's menu items can be made
+     * from its inventory.
+     *
+     * @return the AvailabilityIndex of this restaurant.
+     */
+    public AvailabilityIndex getAvailability() {
+        return availability;
+    }
+    
+    /**
+     * Returns whether Servers turn away orders with a dish that cannot be made from the inventory.
+     *
+     * @return whether orders with unavailable dishes are turned away.
+     */
+    public boolean isRejectingUnavailable() {
+        return rejectUnavailable;
+    }
+    
+    /**
+     * Sets whether Servers turn away orders with a dish that cannot be made from the inventory when
+     * they place them. It is off by default, since an events file records orders that were already
+     * placed.
+     *
+     * @param rejectUnavailable whether to turn away orders with unavailable dishes.
+     */
+    public void setRejectUnavailable(boolean rejectUnavailable) {
+        this.rejectUnavailable = rejectUnavailable;
+    }
+    
+    /**
+     * Returns whether the ingredients of an order's dishes are held in the inventory when it is
+     * placed.
+     *
+     * @return whether ingredients are held for placed orders.
+     */
+    public boolean isHoldingIngredients() {
+        return holdIngredients;
+    }
+    
+    /**
+     * Sets whether the ingredients of an order's dishes are held in the inventory when it is
+     * placed, so that an order is only placed if every dish can be made and a Cook never finds an
+     * ingredient missing. It is off by default, since an events file records orders that were
+     * already placed. Orders placed while it is off are made from whatever is free when they are
+     * prepared.
+     *
+     * @param holdIngredients whether to hold ingredients for placed orders.
+     */
+    public void setHoldIngredients(boolean holdIngredients) {
+        this.holdIngredients = holdIngredients;
+    }
+    
+    /**
+     * Returns the AdmissionControl that limits how many dishes can wait for a Cook, or null if there
+     * is no limit.
+     *
+     * @return the AdmissionControl of this restaurant, or null.
+     */
+    public AdmissionControl getAdmissionControl() {
+        return admission;
+    }
+    
+    /**
+     * Sets the AdmissionControl that limits how many dishes can wait for a Cook, or removes the
+     * limit if it is null. Dishes already waiting do not count towards a new limit.
+     *
+     * @param admission the new AdmissionControl, or null.
+     */
+    public void setAdmissionControl(AdmissionControl admission) {
+        this.admission = admission;
+    }
+    
+    /**
+     * Asks the AdmissionControl, if there is one, to admit the dishes of the specified Order before
+     * it is placed. Servers call this before marking an Order placed; each admitted dish gives its
+     * place back when it is seen, when its Order is cancelled, or if the Order cannot be placed.
+     *
+     * @param order the Order to admit.
+     * @return whether the Order's dishes were admitted.
+     */
+    public boolean admitOrder(Order order) {
+        AdmissionControl control = admission;
+        if (control == null) {
+            return true;
+        }
+        if (!control.admit(order.getDishes().size())) {
+            return false;
+        }
+        for (OrderDish dish : order.getDishes().values()) {
+            dish.setAdmission(control);
+        }
+        return true;
+    }
+    
+    private static void releaseAdmission(OrderDish dish) {
+        AdmissionControl control = dish.getAdmission();
+        if (control != null) {
+            dish.setAdmission(null);
+            control.release(1);
+        }
+    }
+    
+    /**
+     * Returns the Inventory that keeps this restaurant's ingredient amounts and thresholds.
+     *
+     * @return the Inventory of this restaurant.
+     */
+    public Inventory getInventory() {
+        return inventory;
     }
     
     /**
      * A request is created in the requests.txt file, for the manager to cut and paste into the email.
-     * The manager can also manually changed the quantity that needs to be ordered.
+     * The manager can also manually changed the quantity that needs to be ordered. Requests for the
+     * same ingredient close together are merged by the ReorderJournal. Nothing is requested while
+     * requests are muted.
      *
      * @param ingredient the item (string) that needs to be ordered.
      */
     private void orderIngredient(String ingredient) {
-        if (formatter != null) {
-            formatter.format("%s %s %s", "ITEM REQUIRED :", ingredient, "20");
-            formatter.close();
+        if (journal != null && !requestsMuted) {
+            journal.request(ingredient, ReorderJournal.DEFAULT_QUANTITY, nanoTime());
+        }
+    }
+    
+    /**
+     * Returns the tax rate charged on bills, in basis points (hundredths of a percent).
+     *
+     * @return the tax rate of this restaurant.
+     */
+    public int getTaxRate() {
+        return taxRate;
+    }
+    
+    /**
+     * Sets the tax rate charged on bills, in basis points (hundredths of a percent).
+     *
+     * @param taxRate the new tax rate of this restaurant.
+     * @throws IllegalArgumentException if the tax rate is negative.
+     */
+    public void setTaxRate(int taxRate) {
+        if (taxRate < 0) {
+            throw new IllegalArgumentException("Negative tax rate: " + taxRate);
+        }
+        this.taxRate = taxRate;
+    }
+    
+    /**
+     * Returns whether ingredient requests are being dropped instead of written to the
+     * ReorderJournal.
+     *
+     * @return whether ingredient requests are muted.
+     */
+    boolean isRequestsMuted() {
+        return requestsMuted;
+    }
+    
+    /**
+     * Stops or starts writing ingredient requests to the ReorderJournal. Requests are muted while a
+     * restarted restaurant is rebuilt and the events it had already applied are replayed, since the
+     * requests they make were written before the restart.
+     *
+     * @param muted whether ingredient requests should be dropped.
+     */
+    void setRequestsMuted(boolean muted) {
+        this.requestsMuted = muted;
+    }
+    
+    /**
+     * Returns the ReorderJournal that ingredient requests are written to, or null if there is none.
+     *
+     * @return the ReorderJournal of this restaurant.
+     */
+    public ReorderJournal getJournal() {
+        return journal;
+    }
+    
+    /**
+     * Writes out all of this restaurant's messages and ingredient requests and closes its OutputSink
+     * and ReorderJournal.
+     */
+    public void close() {
+        output.close();
+        if (journal != null) {
+            journal.closeUnchecked();
         }
     }
     
     /**
      * As it receives input after reading a file, this method adds a particular ingredient with its
-     * respective values to the hashMap so that it could be used in the program. Additionally, it
-     * checks whether the current amount of that ingredient is not less than the threshold. If it is
-     * then it it signals to add that ingredient in the requests.txt file.
+     * respective values to the inventory so that it could be used in the program. The ingredient is
+     * given an id in the IngredientTable if it does not have one already. Additionally, it checks
+     * whether the current amount of that ingredient is not less than the threshold. If it is then it
+     * it signals to add that ingredient in the requests.txt file.
      *
      * @param ingredient     ingredient(String) that is present in the restaurant and constitutes dishes.
      * @param threshold      limiting amount that is passed by the file.
      * @param startingAmount the initial number of that particular ingredient the restaurant has.
      */
     public void addIngredient(String ingredient, int threshold, int startingAmount) {
-        ingredientData.put(ingredient, new IngredientData(threshold, startingAmount));
-        if (startingAmount < threshold) {
-            orderIngredient(ingredient);
-        }
+        inventory.addIngredient(ingredient, threshold, startingAmount);
+    }
+    
+    /**
+     * Returns the id of the specified ingredient, or -1 if it has none. The Inventory checks that
+     * the id is in stock.
+     */
+    private int idOf(String ingredient) {
+        return ingredients.getID(ingredient);
     }
     
     /**
      * This method returns the threshold value of a particular ingredient in a restaurant.
      *
      * @param ingredient Ingredient whose threshold value needs to be found.
-     * @return the threshold value of the ingredient by accessing it through the key of the Map.
+     * @return the threshold value of the ingredient.
      */
     public int getThreshold(String ingredient) {
-        return ingredientData.get(ingredient).threshold;
+        return getThreshold(idOf(ingredient));
+    }
+    
+    /**
+     * This method returns the threshold value of the ingredient with the specified id.
+     *
+     * @param id The id of the ingredient whose threshold value needs to be found.
+     * @return the threshold value of the ingredient.
+     */
+    public int getThreshold(int id) {
+        return inventory.getThreshold(id);
     }
     
     /**
      * This method returns the current amount of a particular ingredient in a restaurant.
      *
      * @param ingredient Ingredient whose current amount needs to be found.
-     * @return the current amount of the ingredient by accessing it through the key of the Map.
+     * @return the current amount of the ingredient.
      */
     public int getAmount(String ingredient) {
-        return ingredientData.get(ingredient).amount;
+        return getAmount(idOf(ingredient));
+    }
+    
+    /**
+     * This method returns the current amount of the ingredient with the specified id.
+     *
+     * @param id The id of the ingredient whose current amount needs to be found.
+     * @return the current amount of the ingredient.
+     */
+    public int getAmount(int id) {
+        return inventory.getAmount(id);
     }
     
     /**
@@ -118,11 +456,17 @@ public class Restaurant {
      * @param ingredient Ingredient whose current amount needs to be updated.
      */
     public void addAmount(String ingredient, int amount) {
-        if (amount < 0) {
-            throw new RuntimeException("Attempted to add a negative amount of an ingredient");
-        }
-        IngredientData data = ingredientData.get(ingredient);
-        data.amount += amount;
+        addAmount(idOf(ingredient), amount);
+    }
+    
+    /**
+     * This method updates the current amount of the ingredient with the specified id as its brought
+     * by a receiver.
+     *
+     * @param id The id of the ingredient whose current amount needs to be updated.
+     */
+    public void addAmount(int id, int amount) {
+        inventory.add(id, amount);
     }
     
     /**
@@ -135,18 +479,32 @@ public class Restaurant {
      * @return if subtraction can be done after all the constraints are applied then it returns true
      */
     public boolean subtractAmount(String ingredient, int amount) {
-        if (amount < 0) {
-            throw new RuntimeException("Attempted to subtract a negative amount of an ingredient");
-        }
-        IngredientData data = ingredientData.get(ingredient);
-        if (data.amount < amount) {
-            return false;
-        }
-        if (data.amount >= data.threshold && data.amount - amount < data.threshold) {
-            orderIngredient(ingredient);
-        }
-        data.amount -= amount;
-        return true;
+        return subtractAmount(idOf(ingredient), amount);
+    }
+    
+    /**
+     * Subtracts the specified amount of the ingredient with the specified id from the inventory, as
+     * subtractAmount(String, int) does. This is the version used in the kitchen, where ingredients
+     * are known by id.
+     *
+     * @param id     the id of the ingredient whose value needs to be subtracted.
+     * @param amount the current value of the ingredient that needs to be subtracted
+     * @return if subtraction can be done after all the constraints are applied then it returns true
+     */
+    public boolean subtractAmount(int id, int amount) {
+        return inventory.subtract(id, amount);
+    }
+    
+    /**
+     * Subtracts every ingredient of a recipe from the inventory as one step: either there is enough
+     * of all of them and they are all subtracted, or nothing is. Ingredients that go below their
+     * threshold are requested in the requests.txt file, once each time they cross it.
+     *
+     * @param recipe the ingredients and amounts a dish takes.
+     * @return whether there was enough of every ingredient.
+     */
+    public boolean consumeIngredients(IngredientVector recipe) {
+        return inventory.consume(recipe);
     }
     
     /**
@@ -181,6 +539,15 @@ public class Restaurant {
         return cooks.get(name);
     }
     
+    /**
+     * Returns an unmodifiable view of the Cooks that work in this restaurant.
+     *
+     * @return the Cooks of this restaurant.
+     */
+    public Collection<Cook> getCooks() {
+        return Collections.unmodifiableCollection(cooks.values());
+    }
+    
     /**
      * Adds to the Map of Cooks that are responsible to make dishes in a particular restaurant.
      *
@@ -202,6 +569,15 @@ public class Restaurant {
         return servers.get(name);
     }
     
+    /**
+     * Returns an unmodifiable view of the Servers that work in this restaurant.
+     *
+     * @return the Servers of this restaurant.
+     */
+    public Collection<Server> getServers() {
+        return Collections.unmodifiableCollection(servers.values());
+    }
+    
     /**
      * Adds the server to the Map of Servers that are responsible to collect orders and serve dishes
      * in a particular restaurant.
@@ -213,6 +589,28 @@ public class Restaurant {
         server.setRestaurant(this);
     }
     
+    /**
+     * Puts the tables with numbers from firstTable to lastTable, inclusive, in the specified Server's
+     * section, so that the Server picks up their orders whoever placed them.
+     *
+     * @param server     The Server whose section the tables are in
+     * @param firstTable The number of the first table in the section
+     * @param lastTable  The number of the last table in the section
+     * @throws IllegalArgumentException If the Server does not work in this Restaurant or the tables
+     *                                  are not in this Restaurant
+     */
+    public void assignSection(Server server, int firstTable, int lastTable) {
+        if (servers.get(server.getName()) != server) {
+            throw new IllegalArgumentException(server.getName() + " does not work here");
+        }
+        if (firstTable < 1 || lastTable > tables.size() || firstTable > lastTable) {
+            throw new IllegalArgumentException("No tables " + firstTable + " to " + lastTable);
+        }
+        for (int i = firstTable; i <= lastTable; i++) {
+            getTable(i).setServer(server);
+        }
+    }
+    
     /**
      * Returns the Manager assigned to this Restaurant with the specified name, or null if there is
      * none.
@@ -224,6 +622,15 @@ public class Restaurant {
         return managers.get(name);
     }
     
+    /**
+     * Returns an unmodifiable view of the Managers that work in this restaurant.
+     *
+     * @return the Managers of this restaurant.
+     */
+    public Collection<Manager> getManagers() {
+        return Collections.unmodifiableCollection(managers.values());
+    }
+    
     /**
      * Adds the Manager to the Map of Managers that can access the inventory and send emails of and
      * from a particular restaurant.
@@ -245,6 +652,15 @@ public class Restaurant {
         return receivers.get(name);
     }
     
+    /**
+     * Returns an unmodifiable view of the Receivers that work in this restaurant.
+     *
+     * @return the Receivers of this restaurant.
+     */
+    public Collection<Receiver> getReceivers() {
+        return Collections.unmodifiableCollection(receivers.values());
+    }
+    
     /**
      * Adds the Receiver to the Map of Receiver that scan items and add ingredients to the inventory
      * of a restaurant.
@@ -258,12 +674,96 @@ public class Restaurant {
     
     /**
      * Reports that the specified Order was placed, which records that its dishes need to be seen by
-     * Cooks.
+     * Cooks. If ingredients are being held, every dish's ingredients are held first, and if there
+     * is not enough for one of them none are held and the Order is not placed.
      *
      * @param order The Order to mark as placed
+     * @return Whether the Order was placed
      */
-    public void markOrderPlaced(Order order) {
+    public boolean markOrderPlaced(Order order) {
+        if (holdIngredients && !holdDishes(order)) {
+            for (OrderDish dish : order.getDishes().values()) {
+                releaseAdmission(dish);
+            }
+            return false;
+        }
+        if (latency != null) {
+            long now = nanoTime();
+            for (OrderDish dish : order.getDishes().values()) {
+                dish.setPlacedNanos(now);
+            }
+        }
         unseenDishes.addAll(order.getDishes().values());
+        Kitchen live = kitchen;
+        if (live != null) {
+            for (OrderDish dish : order.getDishes().values()) {
+                live.dispatch(dish);
+            }
+        }
+        return true;
+    }
+    
+    private boolean holdDishes(Order order) {
+        for (OrderDish dish : order.getDishes().values()) {
+            if (!inventory.hold(dish.getIngredientVector())) {
+                for (OrderDish held : order.getDishes().values()) {
+                    releaseIngredients(held);
+                }
+                return false;
+            }
+            dish.setHeld();
+        }
+        return true;
+    }
+    
+    /**
+     * Takes the ingredients held for the specified dish from the inventory, if they are still held.
+     * A Cook calls this when preparing the dish; if it returns false the Cook takes the ingredients
+     * from what is free instead, unless the dish's Order has been cancelled.
+     *
+     * @param dish the dish being prepared.
+     * @return whether the dish's ingredients were held and have now been taken.
+     */
+    public boolean commitIngredients(OrderDish dish) {
+        if (dish.commitHold()) {
+            inventory.commit(dish.getIngredientVector());
+            return true;
+        }
+        return false;
+    }
+    
+    private void releaseIngredients(OrderDish dish) {
+        if (dish.releaseHold()) {
+            inventory.release(dish.getIngredientVector());
+        }
+    }
+    
+    /**
+     * Cancels the specified Order. Its dishes that have not been prepared will not be, and the
+     * ingredients held for them are given back to the inventory. If the Order is ready it is no
+     * longer waiting to be picked up.
+     *
+     * @param order the Order to cancel.
+     */
+    public void cancelOrder(Order order) {
+        order.setCancelled();
+        for (OrderDish dish : order.getDishes().values()) {
+            if (unseenDishes.remove(dish)) {
+                releaseAdmission(dish);
+            }
+            releaseIngredients(dish);
+        }
+        readyOrders.remove(order);
+    }
+    
+    /**
+     * Records the Kitchen that placed dishes are sent to, or null if Cooks are told what to do by
+     * events.txt instead. Called by Kitchen when it starts and stops.
+     *
+     * @param kitchen The Kitchen running this restaurant's Cooks, or null
+     */
+    public void setKitchen(Kitchen kitchen) {
+        this.kitchen = kitchen;
     }
     
     /**
@@ -281,56 +781,69 @@ public class Restaurant {
      * @param dish The OrderDish to mark as seen
      */
     public void markDishSeen(OrderDish dish) {
-        unseenDishes.remove(dish);
+        if (unseenDishes.remove(dish)) {
+            releaseAdmission(dish);
+        }
     }
     
     /**
      * This method is an indication that the order has been prepared and is ready for the server to
-     * pick up and deliver to the customer. It appends the order to the list of readyOrders.
+     * pick up and deliver to the customer. It appends the order to the list of readyOrders and hands
+     * it to the Server whose section its table is in, or if there is none to the Server who placed
+     * it.
      *
      * @param order order that has been prepared and ready to deliver.
      */
     public void markOrderFilled(Order order) {
-        readyOrders.add(order);
+        order.setFilledNanos(nanoTime());
+        if (readyOrders.add(order)) {
+            Server server = pickupServer(order);
+            if (server != null) {
+                server.orderReady(order);
+            }
+        }
     }
     
     /**
-     * Returns orders that have been prepared.
+     * Returns an unmodifiable Set view of the orders that have been prepared and not yet picked up
+     * or delivered.
      *
-     * @return the unseen orders list
+     * @return the ready orders
      */
     public Set<Order> getReadyOrders() {
-        return readyOrders;
+        return Collections.unmodifiableSet(readyOrders);
+    }
+    
+    /**
+     * Takes the specified order off the ready orders, if it is still there, for a Server to deliver.
+     * When more than one Server tries to pick up the same order only one of them succeeds.
+     *
+     * @param order the order to pick up
+     * @return whether the order was ready and has now been picked up
+     */
+    boolean claimReadyOrder(Order order) {
+        return readyOrders.remove(order);
     }
     
     /**
      * This method is an indication whether an order has been successfully delivered to a customer. It
-     * removes that order from the readyOrders list.
+     * removes that order from the readyOrders list and from the queue of the Server who would have
+     * picked it up.
      *
      * @param order order that has been delivered to a customer.
      */
     public void markOrderDelivered(Order order) {
-        readyOrders.remove(order);
+        if (readyOrders.remove(order)) {
+            Server server = pickupServer(order);
+            if (server != null) {
+                server.orderDelivered(order);
+            }
+        }
     }
     
-    private class IngredientData {
-        /**
-         * The ingredient class is a class that keeps track of a particular ingredient's starting amount
-         * that the restaurant currently has and the threshold value that the restaurant will be needing
-         * to create a request if the amount goes below it. This is done to ensure that the restaurant
-         * does not run out of a particular ingredient to ensure the well functioning of the restaurant.
-         *
-         * @param threshold the limiting factor to ensure that ingredients do not run out of.
-         * @param startingAmount the amount that the restaurant currently has at that instant.
-         */
-        private int threshold;
-        
-        private int amount;
-        
-        private IngredientData(int threshold, int startingAmount) {
-            this.threshold = threshold;
-            amount = startingAmount;
-        }
+    private static Server pickupServer(Order order) {
+        Server server = order.getTable().getServer();
+        return server != null ? server : order.getServer();
     }
     
 }
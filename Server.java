@@ -1,12 +1,27 @@
 package restaurant;
 
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The Server class is responsible to take an order from the customer and deliver the order was it
  * has been made after receiving the appropriate signals and method calls.
+ *
+ * <p>Each Server has its own queue of ready orders, which the Restaurant adds to when an order the
+ * Server should pick up is filled. A Server's thread can block on takeReadyOrder until one arrives,
+ * so any number of Servers can wait at once without looking through the Restaurant's ready orders.
  */
 public class Server extends Employee {
+    
+    private final BlockingQueue<Order> readyQueue = new LinkedBlockingQueue<>();
+    private final LongAdder ordersPickedUp = new LongAdder();
+    private final LongAdder pickupNanos = new LongAdder();
+    private final LongAccumulator maxPickupNanos = new LongAccumulator(Math::max, 0);
+    
     /**
      * Creates a new Server Object with a name.
      *
@@ -23,6 +38,11 @@ public class Server extends Employee {
      * @param rejectedDishes The Set of OrderDishes from the Order that the Table rejected
      */
     public void deliverOrder(Order order, Set<OrderDish> rejectedDishes) {
+        LatencyRecorder latency = getRestaurant().getLatencyRecorder();
+        if (latency != null && order.isFilled()) {
+            latency.record(LatencyRecorder.Stage.PICKUP_WAIT,
+                    getRestaurant().nanoTime() - order.getFilledNanos(), this, null);
+        }
         for (OrderDish dish : order.getDishes().values()) {
             if (!rejectedDishes.contains(dish)) {
                 order.getTable().receiveDish(dish);
@@ -33,50 +53,189 @@ public class Server extends Employee {
     }
 
     /**
-     * Takes an order from the customer and marks that the order has been placed.
+     * Takes an order from the customer and marks that the order has been placed. If the Restaurant
+     * is turning away orders with unavailable dishes and one of the order's dishes cannot be made
+     * from the inventory, its AdmissionControl does not admit the order's dishes, or it is holding
+     * ingredients and cannot hold them all, the order is not placed.
      *
      * @param order The order given by the customer.
+     * @return Whether the order was placed
      */
-    public void placeOrder(Order order) {
-        getRestaurant().markOrderPlaced(order);
+    public boolean placeOrder(Order order) {
+        Restaurant restaurant = getRestaurant();
+        if (restaurant.isRejectingUnavailable()) {
+            OrderDish unavailable = restaurant.getAvailability().findUnavailable(order);
+            if (unavailable != null) {
+                printOrderNotPlaced(order, unavailable.getItem().getName() + " is unavailable");
+                return false;
+            }
+        }
+        if (!restaurant.admitOrder(order)) {
+            printOrderNotPlaced(order, "the kitchen is full");
+            return false;
+        }
+        order.setServer(this);
+        if (!restaurant.markOrderPlaced(order)) {
+            order.setServer(null);
+            printOrderNotPlaced(order, "its ingredients could not be held");
+            return false;
+        }
         printOrderPlaced(order);
+        return true;
     }
     
-    private void printOrderPlaced(Order order){
-        StringBuilder orderString = new StringBuilder();
-        orderString.append("Order for table " + order.getTable().getNum() +
-                " has been placed by Server: " + getName() + "\n");
-        String nl = System.getProperty("line.separator");
-        String tab = "\t";
-        orderString.append("Dishes:").append(nl);
-        for (OrderDish dish : order.getDishes().values()) {
-            orderString.append(dish.getItem().getName()).append(tab);
-
-            for (MenuItemMod mod : dish.getMods()) {
-                orderString.append(tab).append("- ").append(mod.getName()).append(tab);
+    /**
+     * Waits until one of the orders this Server should pick up is ready, then picks it up.
+     *
+     * @return The Order that was picked up
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Order takeReadyOrder() throws InterruptedException {
+        while (true) {
+            Order order = readyQueue.take();
+            if (pickUp(order)) {
+                return order;
             }
-            orderString.append(nl);
         }
-        System.out.println(orderString);
+    }
+    
+    /**
+     * Picks up one of the orders this Server should pick up if one is ready, without waiting.
+     *
+     * @return The Order that was picked up, or null if none was ready
+     */
+    public Order pollReadyOrder() {
+        Order order;
+        while ((order = readyQueue.poll()) != null) {
+            if (pickUp(order)) {
+                return order;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Waits up to the specified time for one of the orders this Server should pick up to be ready,
+     * then picks it up.
+     *
+     * @param timeout How long to wait
+     * @param unit    The unit of the timeout
+     * @return The Order that was picked up, or null if none was ready in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public Order pollReadyOrder(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Order order = readyQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (order == null || pickUp(order)) {
+                return order;
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of ready orders waiting for this Server to pick them up.
+     *
+     * @return The number of orders in this Server's queue
+     */
+    public int getReadyOrderCount() {
+        return readyQueue.size();
+    }
+    
+    /**
+     * Returns the number of orders this Server has picked up.
+     *
+     * @return The number of orders picked up
+     */
+    public long getOrdersPickedUp() {
+        return ordersPickedUp.sum();
+    }
+    
+    /**
+     * Returns the total time, in nanoseconds, between orders being filled and this Server picking
+     * them up.
+     *
+     * @return The total pickup latency
+     */
+    public long getTotalPickupNanos() {
+        return pickupNanos.sum();
+    }
+    
+    /**
+     * Returns the longest time, in nanoseconds, between an order being filled and this Server
+     * picking it up.
+     *
+     * @return The largest pickup latency
+     */
+    public long getMaxPickupNanos() {
+        return maxPickupNanos.get();
+    }
+    
+    /**
+     * Adds the specified ready order to this Server's queue, waking the Server if it is waiting.
+     */
+    void orderReady(Order order) {
+        readyQueue.add(order);
+    }
+    
+    /**
+     * Removes the specified order from this Server's queue because it was delivered some other way.
+     */
+    void orderDelivered(Order order) {
+        readyQueue.remove(order);
+    }
+    
+    private boolean pickUp(Order order) {
+        if (!getRestaurant().claimReadyOrder(order)) {
+            return false; //Delivered or picked up by someone else since it was queued
+        }
+        long latency = getRestaurant().nanoTime() - order.getFilledNanos();
+        ordersPickedUp.increment();
+        pickupNanos.add(latency);
+        maxPickupNanos.accumulate(latency);
+        return true;
+    }
+    
+    private void printOrderPlaced(Order order){
+        OutputSink output = getRestaurant().getOutput();
+        StringBuilder orderString = output.buffer();
+        orderString.append("Order for table ").append(order.getTable().getNum())
+                .append(" has been placed by Server: ").append(getName()).append('\n');
+        appendDishes(orderString, order);
+        output.write(orderString);
+    }
+    
+    private void printOrderNotPlaced(Order order, String reason){
+        OutputSink output = getRestaurant().getOutput();
+        StringBuilder orderString = output.buffer();
+        orderString.append("Order for table ").append(order.getTable().getNum())
+                .append(" could not be placed by Server: ").append(getName())
+                .append(" because ").append(reason)
+                .append(OutputSink.NL).append(OutputSink.NL);
+        output.write(orderString);
     }
     
     private void printOrderDelivered(Order order){
-        StringBuilder orderString = new StringBuilder();
-        orderString.append("Order has been delivered to table : " + order.getTable().getNum() + " by " + getName() + "\n");
-        String nl = System.getProperty("line.separator");
-        String tab = "\t";
-        orderString.append("Dishes:").append(nl);
+        OutputSink output = getRestaurant().getOutput();
+        StringBuilder orderString = output.buffer();
+        orderString.append("Order has been delivered to table : ").append(order.getTable().getNum())
+                .append(" by ").append(getName()).append('\n');
+        appendDishes(orderString, order);
+        output.write(orderString);
+    }
+    
+    private void appendDishes(StringBuilder orderString, Order order) {
+        orderString.append("Dishes:").append(OutputSink.NL);
         for (OrderDish dish : order.getDishes().values()) {
-            orderString.append(dish.getItem().getName()).append(tab);
-
+            orderString.append(dish.getItem().getName()).append('\t');
+            
             for (MenuItemMod mod : dish.getMods()) {
-                orderString.append(tab).append("- ").append(mod.getName()).append(tab);
+                orderString.append('\t').append("- ").append(mod.getName()).append('\t');
             }
-
-            orderString.append(nl);
+            orderString.append(OutputSink.NL);
         }
-
-        System.out.println(orderString);
+        orderString.append(OutputSink.NL);
     }
     
+    
 }
@@ -0,0 +1,675 @@
+package restaurant;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A Simulation runs a Restaurant through days of service on a virtual clock instead of events.txt
+ * or a live Kitchen. Parties of customers arrive at random while the restaurant is open, wait in
+ * line for a free table, and give up if none frees in time. Once seated a party orders one dish
+ * each through its Table's Server, choosing from what the inventory can make; a customer who
+ * chooses a dish that cannot be made goes without, and a party with nothing to order leaves. The
+ * ingredients of an Order are held when it is placed, so the dishes wait for a free Cook, who sees
+ * each one and always has what it takes to prepare it after a prep time drawn for its menu item. A
+ * filled Order waits for its Server, who spends a delivery time taking it to the Table, and the
+ * party pays after a dining time and leaves.
+ *
+ * <p>Everything that happens is a pending action in a PriorityQueue ordered by virtual time, so no
+ * time passes between actions and a year of service takes seconds. The Restaurant's clock is the
+ * virtual clock while the Simulation runs, so its LatencyRecorder, if it has one, times the stages
+ * of orders in simulated time. Every ingredient is topped back up to the amount it started with
+ * when the restaurant opens each day, and when one drops below its threshold it is ordered and
+ * topped back up after a restock time.
+ *
+ * <p>Durations are drawn in minutes from Distributions, and the same seed gives the same run. When
+ * each party arrives, how many customers are in it and which menu items they choose are drawn from
+ * a stream of random numbers of their own, apart from the durations. Runs with the same seed, arrival
+ * rate and menu therefore see the same parties however the restaurant is staffed.
+ */
+public class Simulation {
+    
+    /**
+     * A random duration, in minutes.
+     */
+    public interface Distribution {
+        
+        /**
+         * Draws a duration.
+         *
+         * @param random The source of randomness
+         * @return The duration in minutes, which is treated as 0 if it is negative
+         */
+        double sample(Random random);
+        
+        /**
+         * Returns a Distribution that is always the specified duration.
+         *
+         * @param minutes The duration in minutes
+         * @return The Distribution
+         */
+        static Distribution fixed(double minutes) {
+            return random -> minutes;
+        }
+        
+        /**
+         * Returns a Distribution spread evenly between the specified durations.
+         *
+         * @param min The shortest duration in minutes
+         * @param max The longest duration in minutes
+         * @return The Distribution
+         */
+        static Distribution uniform(double min, double max) {
+            return random -> min + (max - min) * random.nextDouble();
+        }
+        
+        /**
+         * Returns an exponential Distribution, the time between arrivals that happen at random.
+         *
+         * @param mean The mean duration in minutes
+         * @return The Distribution
+         */
+        static Distribution exponential(double mean) {
+            return random -> -mean * Math.log(1 - random.nextDouble());
+        }
+        
+        /**
+         * Returns a log-normal Distribution with the specified mean and standard deviation, which
+         * suits tasks that usually take about as long but sometimes take much longer.
+         *
+         * @param mean              The mean duration in minutes
+         * @param standardDeviation The standard deviation in minutes
+         * @return The Distribution
+         */
+        static Distribution logNormal(double mean, double standardDeviation) {
+            double variance = Math.log(1 + standardDeviation * standardDeviation / (mean * mean));
+            double mu = Math.log(mean) - variance / 2;
+            double sigma = Math.sqrt(variance);
+            return random -> Math.exp(mu + sigma * random.nextGaussian());
+        }
+        
+    }
+    
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long DAY_NANOS = TimeUnit.DAYS.toNanos(1);
+    
+    private final Restaurant restaurant;
+    private final long seed;
+    private int openHour = 11;
+    private int closeHour = 23;
+    private double partiesPerHour;
+    private int minPartySize = 1;
+    private int maxPartySize = 4;
+    private Distribution patience = Distribution.fixed(20);
+    private Distribution orderTime = Distribution.exponential(5);
+    private Distribution defaultPrepTime = Distribution.logNormal(8, 3);
+    private final Map<MenuItem, Distribution> prepTimes = new HashMap<>();
+    private Distribution deliveryTime = Distribution.uniform(0.5, 2);
+    private Distribution diningTime = Distribution.logNormal(45, 15);
+    private Distribution restockTime = Distribution.fixed(120);
+    
+    //The state of a run
+    private Random arrivals; //When parties arrive, their sizes and their choices
+    private Random random; //Everything else
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(
+            Comparator.comparingLong((Pending p) -> p.time).thenComparingLong(p -> p.seq));
+    private long nextSeq;
+    private long now;
+    private MenuItem[] items;
+    private List<Server> servers;
+    private int nextServer;
+    private int[] parAmounts; //The amount of each ingredient the run started with, by id
+    private final Set<Integer> restocking = new HashSet<>(); //Ingredients ordered but not delivered
+    private final ArrayDeque<Table> freeTables = new ArrayDeque<>();
+    private final ArrayDeque<Party> line = new ArrayDeque<>();
+    private final ArrayDeque<OrderDish> waitingDishes = new ArrayDeque<>();
+    private final ArrayDeque<Cook> freeCooks = new ArrayDeque<>();
+    private final Set<Server> busyServers = new HashSet<>();
+    private LatencyHistogram tableWait = new LatencyHistogram();
+    
+    //What happened in the last run
+    private int daysRun;
+    private long actionsRun;
+    private long partiesArrived;
+    private long partiesSeated;
+    private long partiesLost;
+    private long ordersNotPlaced;
+    private long ordersDelivered;
+    private long dishesPrepared;
+    private long dishesShort;
+    private long revenue;
+    
+    /**
+     * Creates a new Simulation of the specified Restaurant, which must have at least one Cook and
+     * one Server. By default the restaurant is open from 11:00 to 23:00 and a party of one to four
+     * arrives for each of its tables every hour.
+     *
+     * @param restaurant The Restaurant to simulate
+     * @param seed       The seed for the random parties and durations
+     */
+    public Simulation(Restaurant restaurant, long seed) {
+        this.restaurant = restaurant;
+        this.seed = seed;
+        this.partiesPerHour = restaurant.getNumTables();
+    }
+    
+    /**
+     * Sets the hours the restaurant is open each day. Parties only arrive while it is open, but
+     * those already there are served after it closes.
+     *
+     * @param openHour  The hour of the day it opens, from 0 to 23
+     * @param closeHour The hour of the day it closes, after openHour and at most 24
+     * @throws IllegalArgumentException If the hours are out of order or out of range
+     */
+    public void setOpeningHours(int openHour, int closeHour) {
+        if (openHour < 0 || closeHour <= openHour || closeHour > 24) {
+            throw new IllegalArgumentException("Bad opening hours: " + openHour + " to " + closeHour);
+        }
+        this.openHour = openHour;
+        this.closeHour = closeHour;
+    }
+    
+    /**
+     * Sets the mean number of parties that arrive each hour the restaurant is open. Parties arrive
+     * independently of each other, so the time between them is exponential.
+     *
+     * @param partiesPerHour The arrival rate
+     * @throws IllegalArgumentException If the rate is not positive
+     */
+    public void setArrivalRate(double partiesPerHour) {
+        if (!(partiesPerHour > 0)) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + partiesPerHour);
+        }
+        this.partiesPerHour = partiesPerHour;
+    }
+    
+    /**
+     * Sets the range of party sizes, each equally likely. Each customer orders one dish.
+     *
+     * @param min The smallest party
+     * @param max The largest party
+     * @throws IllegalArgumentException If min is less than 1 or more than max
+     */
+    public void setPartySize(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Bad party sizes: " + min + " to " + max);
+        }
+        this.minPartySize = min;
+        this.maxPartySize = max;
+    }
+    
+    /**
+     * Sets how long a party waits in line for a table before giving up.
+     *
+     * @param patience The waiting time
+     */
+    public void setPatience(Distribution patience) {
+        this.patience = patience;
+    }
+    
+    /**
+     * Sets the time from a party being seated to its Order being placed.
+     *
+     * @param orderTime The ordering time
+     */
+    public void setOrderTime(Distribution orderTime) {
+        this.orderTime = orderTime;
+    }
+    
+    /**
+     * Sets the time a Cook takes to make a dish of a menu item that has no prep time of its own.
+     *
+     * @param prepTime The prep time
+     */
+    public void setDefaultPrepTime(Distribution prepTime) {
+        this.defaultPrepTime = prepTime;
+    }
+    
+    /**
+     * Sets the time a Cook takes to make a dish of the specified menu item.
+     *
+     * @param item     The menu item
+     * @param prepTime The prep time
+     */
+    public void setPrepTime(MenuItem item, Distribution prepTime) {
+        prepTimes.put(item, prepTime);
+    }
+    
+    /**
+     * Sets the time a Server takes to deliver a filled Order, during which it delivers no other.
+     *
+     * @param deliveryTime The delivery time
+     */
+    public void setDeliveryTime(Distribution deliveryTime) {
+        this.deliveryTime = deliveryTime;
+    }
+    
+    /**
+     * Sets the time from an Order being delivered to its party paying and leaving.
+     *
+     * @param diningTime The dining time
+     */
+    public void setDiningTime(Distribution diningTime) {
+        this.diningTime = diningTime;
+    }
+    
+    /**
+     * Sets the time from an ingredient dropping below its threshold to it being topped back up to
+     * the amount it started with.
+     *
+     * @param restockTime The restock time
+     */
+    public void setRestockTime(Distribution restockTime) {
+        this.restockTime = restockTime;
+    }
+    
+    /**
+     * Runs the restaurant through the specified number of days, starting at midnight, until every
+     * party that arrived has left. The Restaurant holds the ingredients of placed Orders during the
+     * run, and its clock and whether it holds ingredients are put back when the run ends.
+     *
+     * @param days The number of days the restaurant opens
+     * @throws IllegalStateException If the Restaurant has no Cooks, Servers or menu items
+     */
+    public void run(int days) {
+        items = restaurant.getMenu().getItems().toArray(new MenuItem[0]);
+        servers = new ArrayList<>(restaurant.getServers());
+        if (restaurant.getCooks().isEmpty() || servers.isEmpty() || items.length == 0) {
+            throw new IllegalStateException("A simulation needs Cooks, Servers and menu items");
+        }
+        Random seeds = new Random(seed);
+        arrivals = new Random(seeds.nextLong());
+        random = new Random(seeds.nextLong());
+        pending.clear();
+        nextSeq = 0;
+        now = 0;
+        nextServer = 0;
+        parAmounts = restaurant.getInventory().getAmounts();
+        restocking.clear();
+        freeTables.clear();
+        for (int i = 1; i <= restaurant.getNumTables(); i++) {
+            freeTables.add(restaurant.getTable(i));
+        }
+        line.clear();
+        waitingDishes.clear();
+        freeCooks.clear();
+        freeCooks.addAll(restaurant.getCooks());
+        busyServers.clear();
+        tableWait = new LatencyHistogram();
+        daysRun = days;
+        actionsRun = 0;
+        partiesArrived = 0;
+        partiesSeated = 0;
+        partiesLost = 0;
+        ordersNotPlaced = 0;
+        ordersDelivered = 0;
+        dishesPrepared = 0;
+        dishesShort = 0;
+        revenue = 0;
+        for (int day = 0; day < days; day++) {
+            long open = day * DAY_NANOS + TimeUnit.HOURS.toNanos(openHour);
+            long close = day * DAY_NANOS + TimeUnit.HOURS.toNanos(closeHour);
+            scheduleAt(open, () -> openDoors(close));
+        }
+        LongSupplier clock = restaurant.getClock();
+        boolean holding = restaurant.isHoldingIngredients();
+        restaurant.setClock(() -> now);
+        restaurant.setHoldIngredients(true);
+        try {
+            while (!pending.isEmpty()) {
+                Pending next = pending.poll();
+                now = next.time;
+                next.action.run();
+                actionsRun++;
+            }
+        } finally {
+            restaurant.setClock(clock);
+            restaurant.setHoldIngredients(holding);
+        }
+    }
+    
+    private void scheduleAt(long time, Runnable action) {
+        pending.add(new Pending(time, nextSeq++, action));
+    }
+    
+    private void schedule(Distribution duration, Runnable action) {
+        double minutes = duration.sample(random);
+        scheduleAt(now + (minutes > 0 ? (long) (minutes * MINUTE_NANOS) : 0), action);
+    }
+    
+    private long nextArrival() {
+        double minutes = -60 / partiesPerHour * Math.log(1 - arrivals.nextDouble());
+        return now + (long) (minutes * MINUTE_NANOS);
+    }
+    
+    private void openDoors(long close) {
+        Inventory inventory = restaurant.getInventory();
+        for (int id = 0; id < parAmounts.length; id++) {
+            if (inventory.isStocked(id)) {
+                topUp(id);
+            }
+        }
+        long first = nextArrival();
+        if (first < close) {
+            scheduleAt(first, () -> arrive(close));
+        }
+    }
+    
+    private void arrive(long close) {
+        partiesArrived++;
+        int[] choices = new int[minPartySize + arrivals.nextInt(maxPartySize - minPartySize + 1)];
+        for (int i = 0; i < choices.length; i++) {
+            choices[i] = arrivals.nextInt(items.length);
+        }
+        Party party = new Party(now, choices);
+        if (!freeTables.isEmpty() && line.isEmpty()) {
+            seat(party, freeTables.poll());
+        } else {
+            line.add(party);
+            schedule(patience, () -> giveUp(party));
+        }
+        long next = nextArrival();
+        if (next < close) {
+            scheduleAt(next, () -> arrive(close));
+        }
+    }
+    
+    private void giveUp(Party party) {
+        if (!party.seated && !party.gone) {
+            party.gone = true;
+            partiesLost++;
+        }
+    }
+    
+    private void seat(Party party, Table table) {
+        party.seated = true;
+        partiesSeated++;
+        tableWait.record(now - party.arrivedNanos);
+        schedule(orderTime, () -> placeOrder(party, table));
+    }
+    
+    private void freeTable(Table table) {
+        Party party = line.poll();
+        while (party != null && party.gone) {
+            party = line.poll();
+        }
+        if (party != null) {
+            seat(party, table);
+        } else {
+            freeTables.add(table);
+        }
+    }
+    
+    private void topUp(int id) {
+        int missing = parAmounts[id] - restaurant.getInventory().getAmount(id);
+        if (missing > 0) {
+            restaurant.addAmount(id, missing);
+        }
+    }
+    
+    private void placeOrder(Party party, Table table) {
+        Order order = new Order(table);
+        AvailabilityIndex availability = restaurant.getAvailability();
+        int numDishes = 0;
+        for (int choice : party.choices) {
+            MenuItem item = items[choice];
+            if (availability.isAvailable(item)) {
+                order.addDish(new OrderDish(++numDishes, item));
+            } else {
+                dishesShort++;
+            }
+        }
+        if (numDishes == 0) {
+            ordersNotPlaced++;
+            freeTable(table);
+            return;
+        }
+        Server server = table.getServer();
+        if (server == null) {
+            server = servers.get(nextServer++ % servers.size());
+        }
+        if (!server.placeOrder(order)) {
+            ordersNotPlaced++;
+            freeTable(table);
+            return;
+        }
+        waitingDishes.addAll(order.getDishes().values());
+        startCooking();
+    }
+    
+    private void startCooking() {
+        while (!freeCooks.isEmpty() && !waitingDishes.isEmpty()) {
+            Cook cook = freeCooks.poll();
+            OrderDish dish = waitingDishes.poll();
+            cook.seeDish(dish);
+            Distribution prepTime = prepTimes.getOrDefault(dish.getItem(), defaultPrepTime);
+            schedule(prepTime, () -> finishDish(cook, dish));
+        }
+    }
+    
+    private void finishDish(Cook cook, OrderDish dish) {
+        //The dish's ingredients were held when it was ordered, so it is always made
+        if (cook.prepareDish(dish)) {
+            dishesPrepared++;
+            restockLow(dish.getIngredientVector());
+            if (dish.getOrder().isFilled()) {
+                Table table = dish.getOrder().getTable();
+                Server server = table.getServer();
+                deliverNext(server != null ? server : dish.getOrder().getServer());
+            }
+        }
+        freeCooks.add(cook);
+        startCooking();
+    }
+    
+    /**
+     * Orders each of the specified ingredients that has dropped below its threshold and is not
+     * already on its way, to be topped up after the restock time.
+     */
+    private void restockLow(IngredientVector ingredients) {
+        Inventory inventory = restaurant.getInventory();
+        for (int i = 0; i < ingredients.size(); i++) {
+            int id = ingredients.getID(i);
+            if (inventory.isStocked(id) && inventory.getAmount(id) < inventory.getThreshold(id)
+                    && restocking.add(id)) {
+                schedule(restockTime, () -> {
+                    restocking.remove(id);
+                    topUp(id);
+                });
+            }
+        }
+    }
+    
+    private void deliverNext(Server server) {
+        if (busyServers.contains(server)) {
+            return;
+        }
+        Order order = server.pollReadyOrder();
+        if (order != null) {
+            busyServers.add(server);
+            schedule(deliveryTime, () -> deliver(server, order));
+        }
+    }
+    
+    private void deliver(Server server, Order order) {
+        server.deliverOrder(order, Collections.emptySet());
+        ordersDelivered++;
+        Table table = order.getTable();
+        schedule(diningTime, () -> pay(table));
+        busyServers.remove(server);
+        deliverNext(server);
+    }
+    
+    private void pay(Table table) {
+        revenue += table.getBillAmount();
+        table.payForDishes();
+        freeTable(table);
+    }
+    
+    /**
+     * Returns the number of days the restaurant opened in the last run.
+     *
+     * @return The number of days
+     */
+    public int getDaysRun() {
+        return daysRun;
+    }
+    
+    /**
+     * Returns the number of actions run in the last run, such as arrivals and dishes prepared.
+     *
+     * @return The number of actions
+     */
+    public long getActionsRun() {
+        return actionsRun;
+    }
+    
+    /**
+     * Returns the virtual time the last run ended at, in nanoseconds from its first midnight.
+     *
+     * @return The end of the last run
+     */
+    public long getEndNanos() {
+        return now;
+    }
+    
+    /**
+     * Returns the number of parties that arrived in the last run.
+     *
+     * @return The number of parties
+     */
+    public long getPartiesArrived() {
+        return partiesArrived;
+    }
+    
+    /**
+     * Returns the number of parties that were given a table in the last run.
+     *
+     * @return The number of parties seated
+     */
+    public long getPartiesSeated() {
+        return partiesSeated;
+    }
+    
+    /**
+     * Returns the number of parties that gave up waiting for a table in the last run.
+     *
+     * @return The number of parties lost
+     */
+    public long getPartiesLost() {
+        return partiesLost;
+    }
+    
+    /**
+     * Returns the number of Orders that were not placed in the last run, because none of their
+     * dishes could be made or a Server could not place them, after which the party left.
+     *
+     * @return The number of Orders not placed
+     */
+    public long getOrdersNotPlaced() {
+        return ordersNotPlaced;
+    }
+    
+    /**
+     * Returns the number of Orders delivered in the last run.
+     *
+     * @return The number of Orders delivered
+     */
+    public long getOrdersDelivered() {
+        return ordersDelivered;
+    }
+    
+    /**
+     * Returns the number of dishes prepared in the last run.
+     *
+     * @return The number of dishes prepared
+     */
+    public long getDishesPrepared() {
+        return dishesPrepared;
+    }
+    
+    /**
+     * Returns the number of dishes customers chose in the last run that could not be made from the
+     * inventory, and so were not ordered, served or paid for.
+     *
+     * @return The number of dishes short of ingredients
+     */
+    public long getDishesShort() {
+        return dishesShort;
+    }
+    
+    /**
+     * Returns the total of the bills paid in the last run, in cents, before tax.
+     *
+     * @return The revenue
+     */
+    public long getRevenue() {
+        return revenue;
+    }
+    
+    /**
+     * Returns the time parties waited for a table in the last run, counting only those seated.
+     *
+     * @return The histogram of waits for a table, in nanoseconds of virtual time
+     */
+    public LatencyHistogram getTableWait() {
+        return tableWait;
+    }
+    
+    @Override
+    public String toString() {
+        long minute = MINUTE_NANOS;
+        return "Simulation[" + daysRun + " days: " + partiesArrived + " parties arrived, "
+                + partiesSeated + " seated, " + partiesLost + " lost; " + ordersDelivered
+                + " orders delivered, " + ordersNotPlaced + " not placed; " + dishesPrepared
+                + " dishes prepared, " + dishesShort + " short; revenue " + Money.toString(revenue)
+                + "; table wait p50 " + tableWait.getValueAtPercentile(50) / minute
+                + " min, p99 " + tableWait.getValueAtPercentile(99) / minute + " min]";
+    }
+    
+    /**
+     * Something that happens at a time in the simulation. Actions at the same time happen in the
+     * order they were scheduled.
+     */
+    private static class Pending {
+        
+        private final long time;
+        private final long seq;
+        private final Runnable action;
+        
+        private Pending(long time, long seq, Runnable action) {
+            this.time = time;
+            this.seq = seq;
+            this.action = action;
+        }
+        
+    }
+    
+    /**
+     * A group of customers who arrive together and share a table.
+     */
+    private static class Party {
+        
+        private final long arrivedNanos;
+        private final int[] choices; //The index of the menu item each customer orders
+        private boolean seated = false;
+        private boolean gone = false;
+        
+        private Party(long arrivedNanos, int[] choices) {
+            this.arrivedNanos = arrivedNanos;
+            this.choices = choices;
+        }
+        
+    }
+    
+}
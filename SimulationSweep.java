@@ -0,0 +1,410 @@
+package restaurant;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A SimulationSweep runs a Simulation for every combination of a grid of restaurant settings: the
+ * number of tables, Cooks and Servers, and which menu items are on the menu. It is for choosing how
+ * to staff a restaurant, by comparing how many parties each Configuration serves and how long they
+ * wait.
+ *
+ * <p>Each run builds its own Menu, Restaurant, LatencyRecorder and Simulation, sharing nothing that
+ * changes with the other runs, so the runs are split between the threads of a ForkJoinPool and the
+ * sweep speeds up with the number of cores. Every run uses the same seed, and a Simulation draws its
+ * parties apart from its durations, so Configurations with the same number of tables and menu items
+ * are compared on exactly the same parties. Parties arrive faster at a restaurant with more tables,
+ * so Configurations with different numbers of tables see different parties.
+ */
+public class SimulationSweep {
+    
+    /**
+     * One combination of settings in the grid.
+     */
+    public static class Configuration {
+        
+        private final int tables;
+        private final int cooks;
+        private final int servers;
+        private final String menuName;
+        private final Collection<String> items;
+        
+        private Configuration(int tables, int cooks, int servers, String menuName,
+                              Collection<String> items) {
+            this.tables = tables;
+            this.cooks = cooks;
+            this.servers = servers;
+            this.menuName = menuName;
+            this.items = items;
+        }
+        
+        /**
+         * Returns the number of tables.
+         *
+         * @return The number of tables
+         */
+        public int getTables() {
+            return tables;
+        }
+        
+        /**
+         * Returns the number of Cooks.
+         *
+         * @return The number of Cooks
+         */
+        public int getCooks() {
+            return cooks;
+        }
+        
+        /**
+         * Returns the number of Servers.
+         *
+         * @return The number of Servers
+         */
+        public int getServers() {
+            return servers;
+        }
+        
+        /**
+         * Returns the name of the menu, "all" if it has every menu item.
+         *
+         * @return The name of the menu
+         */
+        public String getMenuName() {
+            return menuName;
+        }
+        
+        @Override
+        public String toString() {
+            return tables + " tables, " + cooks + " cooks, " + servers + " servers, menu "
+                    + menuName;
+        }
+        
+    }
+    
+    /**
+     * What happened when a Configuration was simulated.
+     */
+    public static class Result {
+        
+        private final Configuration configuration;
+        private final Simulation simulation;
+        private final LatencyRecorder latency;
+        private final long runNanos;
+        
+        private Result(Configuration configuration, Simulation simulation, LatencyRecorder latency,
+                       long runNanos) {
+            this.configuration = configuration;
+            this.simulation = simulation;
+            this.latency = latency;
+            this.runNanos = runNanos;
+        }
+        
+        /**
+         * Returns the Configuration that was simulated.
+         *
+         * @return The Configuration
+         */
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+        
+        /**
+         * Returns the Simulation that was run, with its counts and table waits.
+         *
+         * @return The Simulation
+         */
+        public Simulation getSimulation() {
+            return simulation;
+        }
+        
+        /**
+         * Returns the LatencyRecorder that the stages of the run's orders were timed into, in
+         * simulated time.
+         *
+         * @return The LatencyRecorder
+         */
+        public LatencyRecorder getLatency() {
+            return latency;
+        }
+        
+        /**
+         * Returns the wall-clock time the run took, in nanoseconds.
+         *
+         * @return The time to run the Simulation
+         */
+        public long getRunNanos() {
+            return runNanos;
+        }
+        
+    }
+    
+    private static final String ALL_ITEMS = "all";
+    
+    private final Supplier<Menu> menus;
+    private final Consumer<Restaurant> stock;
+    private int days = 30;
+    private long seed = 1;
+    private Consumer<Simulation> setup = simulation -> {
+    };
+    private int[] tables = {10};
+    private int[] cooks = {2};
+    private int[] servers = {2};
+    private final Map<String, Collection<String>> subsets = new LinkedHashMap<>();
+    
+    /**
+     * Creates a new SimulationSweep. Each run gets a new Menu from the supplier, which must not
+     * hand out the same Menu or MenuItems twice, and a new Restaurant stocked by the consumer.
+     *
+     * @param menus Makes a new Menu with every menu item on it
+     * @param stock Adds the ingredients to a new Restaurant
+     */
+    public SimulationSweep(Supplier<Menu> menus, Consumer<Restaurant> stock) {
+        this.menus = menus;
+        this.stock = stock;
+    }
+    
+    /**
+     * Sets the number of days each run simulates, 30 by default.
+     *
+     * @param days The number of days
+     */
+    public void setDays(int days) {
+        this.days = days;
+    }
+    
+    /**
+     * Sets the seed every run's Simulation is made with, 1 by default.
+     *
+     * @param seed The seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Sets what is done to each run's Simulation before it runs, such as setting its arrival rate
+     * or prep times. It is called on the run's own thread, so it must not change shared state.
+     *
+     * @param setup Sets up a Simulation
+     */
+    public void setSimulationSetup(Consumer<Simulation> setup) {
+        this.setup = setup;
+    }
+    
+    /**
+     * Sets the numbers of tables to try.
+     *
+     * @param tables The numbers of tables
+     */
+    public void setTables(int... tables) {
+        this.tables = tables.clone();
+    }
+    
+    /**
+     * Sets the numbers of Cooks to try.
+     *
+     * @param cooks The numbers of Cooks
+     */
+    public void setCooks(int... cooks) {
+        this.cooks = cooks.clone();
+    }
+    
+    /**
+     * Sets the numbers of Servers to try.
+     *
+     * @param servers The numbers of Servers
+     */
+    public void setServers(int... servers) {
+        this.servers = servers.clone();
+    }
+    
+    /**
+     * Adds a menu to try that has only the specified menu items. If no menu is added, every run
+     * has every menu item.
+     *
+     * @param name  The name of the menu in the report
+     * @param items The names of the menu items on it
+     */
+    public void addMenu(String name, Collection<String> items) {
+        subsets.put(name, List.copyOf(items));
+    }
+    
+    /**
+     * Returns every Configuration in the grid, in the order they are reported: by number of tables,
+     * then Cooks, then Servers, then menu.
+     *
+     * @return The Configurations
+     */
+    public List<Configuration> getConfigurations() {
+        Map<String, Collection<String>> menusToTry = subsets;
+        if (menusToTry.isEmpty()) {
+            menusToTry = new LinkedHashMap<>();
+            menusToTry.put(ALL_ITEMS, null);
+        }
+        List<Configuration> configurations = new ArrayList<>();
+        for (int numTables : tables) {
+            for (int numCooks : cooks) {
+                for (int numServers : servers) {
+                    for (Map.Entry<String, Collection<String>> menu : menusToTry.entrySet()) {
+                        configurations.add(new Configuration(numTables, numCooks, numServers,
+                                menu.getKey(), menu.getValue()));
+                    }
+                }
+            }
+        }
+        return configurations;
+    }
+    
+    /**
+     * Simulates every Configuration on the common ForkJoinPool.
+     *
+     * @return The Results, in the order of getConfigurations
+     */
+    public List<Result> run() {
+        return run(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Simulates every Configuration on the threads of the specified ForkJoinPool.
+     *
+     * @param pool The pool to run the Simulations on
+     * @return The Results, in the order of getConfigurations
+     * @throws IllegalArgumentException If a menu added has an item the Menus do not
+     */
+    public List<Result> run(ForkJoinPool pool) {
+        List<Configuration> configurations = getConfigurations();
+        return pool.invoke(new Runs(configurations, 0, configurations.size()));
+    }
+    
+    /**
+     * Builds a Restaurant with the specified Configuration and simulates it.
+     */
+    private Result runOne(Configuration configuration) {
+        long start = System.nanoTime();
+        Menu menu = menus.get();
+        if (configuration.items != null) {
+            Menu subset = new Menu();
+            for (String name : configuration.items) {
+                MenuItem item = menu.getItem(name);
+                if (item == null) {
+                    throw new IllegalArgumentException("No menu item " + name);
+                }
+                subset.addItem(item);
+            }
+            menu = subset;
+        }
+        Restaurant restaurant = new Restaurant(menu, configuration.tables, null);
+        restaurant.setOutput(OutputSink.none());
+        stock.accept(restaurant);
+        for (int i = 1; i <= configuration.cooks; i++) {
+            restaurant.addCook(new Cook("Cook " + i));
+        }
+        for (int i = 1; i <= configuration.servers; i++) {
+            restaurant.addServer(new Server("Server " + i));
+        }
+        LatencyRecorder latency = new LatencyRecorder();
+        restaurant.setLatencyRecorder(latency);
+        Simulation simulation = new Simulation(restaurant, seed);
+        setup.accept(simulation);
+        simulation.run(days);
+        restaurant.close();
+        return new Result(configuration, simulation, latency, System.nanoTime() - start);
+    }
+    
+    /**
+     * Writes the specified Results to the specified Appendable as comma-separated values, one line
+     * for each Configuration. Waits are in seconds of simulated time and the run time is in
+     * milliseconds.
+     *
+     * @param results The Results of a sweep
+     * @param out     The Appendable to write to
+     * @throws IOException If writing failed
+     */
+    public static void writeReport(List<Result> results, Appendable out) throws IOException {
+        out.append("tables,cooks,servers,menu,parties,seated,lost,orders,not_placed,dishes,short,"
+                + "revenue,orders_per_day,table_wait_p50,table_wait_p99,queue_wait_p50,"
+                + "queue_wait_p99,pickup_wait_p99,run_ms").append(OutputSink.NL);
+        for (Result result : results) {
+            Configuration configuration = result.configuration;
+            Simulation simulation = result.simulation;
+            LatencyHistogram queueWait = result.latency.getHistogram(
+                    LatencyRecorder.Stage.QUEUE_WAIT);
+            LatencyHistogram pickupWait = result.latency.getHistogram(
+                    LatencyRecorder.Stage.PICKUP_WAIT);
+            StringBuilder line = new StringBuilder();
+            line.append(configuration.tables).append(',').append(configuration.cooks)
+                    .append(',').append(configuration.servers)
+                    .append(',').append(configuration.menuName)
+                    .append(',').append(simulation.getPartiesArrived())
+                    .append(',').append(simulation.getPartiesSeated())
+                    .append(',').append(simulation.getPartiesLost())
+                    .append(',').append(simulation.getOrdersDelivered())
+                    .append(',').append(simulation.getOrdersNotPlaced())
+                    .append(',').append(simulation.getDishesPrepared())
+                    .append(',').append(simulation.getDishesShort())
+                    .append(',');
+            Money.append(line, simulation.getRevenue());
+            line.append(',').append(simulation.getOrdersDelivered()
+                            / Math.max(1, simulation.getDaysRun()))
+                    .append(',').append(seconds(simulation.getTableWait().getValueAtPercentile(50)))
+                    .append(',').append(seconds(simulation.getTableWait().getValueAtPercentile(99)))
+                    .append(',').append(seconds(queueWait.getValueAtPercentile(50)))
+                    .append(',').append(seconds(queueWait.getValueAtPercentile(99)))
+                    .append(',').append(seconds(pickupWait.getValueAtPercentile(99)))
+                    .append(',').append(TimeUnit.NANOSECONDS.toMillis(result.runNanos))
+                    .append(OutputSink.NL);
+            out.append(line);
+        }
+    }
+    
+    private static long seconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos);
+    }
+    
+    /**
+     * Simulates a range of Configurations, splitting it in half until each task has one.
+     */
+    private class Runs extends RecursiveTask<List<Result>> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final List<Configuration> configurations;
+        private final int from;
+        private final int to;
+        
+        private Runs(List<Configuration> configurations, int from, int to) {
+            this.configurations = configurations;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected List<Result> compute() {
+            if (to - from <= 1) {
+                List<Result> results = new ArrayList<>();
+                if (to > from) {
+                    results.add(runOne(configurations.get(from)));
+                }
+                return results;
+            }
+            int middle = (from + to) >>> 1;
+            Runs second = new Runs(configurations, middle, to);
+            second.fork();
+            List<Result> results = new Runs(configurations, from, middle).compute();
+            results.addAll(second.join());
+            return results;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,147 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A DishQueue that gives each Cook a deque of its own. Every menu item has a home Cook, given out in
+ * turn the first time the item is ordered, and its dishes are added to the end of that Cook's
+ * deque. A Cook takes from the front of its own deque, along with up to maxBatch - 1 more dishes of
+ * the same item from a little further back, so that dishes of one item are cooked together. A Cook
+ * whose deque is empty steals from the back of another Cook's deque instead, batching in the same
+ * way, so that a popular item does not leave one Cook with all the work.
+ *
+ * <p>A Semaphore counts the dishes that no Cook has claimed yet: a Cook takes a permit before it
+ * takes each dish, so a Cook that has a permit always finds a dish, and Cooks wait on the Semaphore
+ * while there are none.
+ */
+public class StealingDishQueue implements DishQueue {
+    
+    /**
+     * The largest batch used by DishQueue.forName when none is given.
+     */
+    public static final int DEFAULT_MAX_BATCH = 8;
+    
+    private static final int SCAN_PER_BATCH = 4; //How many dishes to look past per dish batched
+    
+    private final int maxBatch;
+    private final Semaphore unclaimed = new Semaphore(0);
+    private final Map<MenuItem, Integer> homes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextHome = new AtomicInteger();
+    private final LongAdder dishesStolen = new LongAdder();
+    private volatile List<Deque<OrderDish>> deques = List.of(new ConcurrentLinkedDeque<>());
+    
+    /**
+     * Creates a new, empty StealingDishQueue.
+     *
+     * @param maxBatch The largest number of dishes a Cook takes at once
+     * @throws IllegalArgumentException If maxBatch is less than 1
+     */
+    public StealingDishQueue(int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batches must hold at least one dish: " + maxBatch);
+        }
+        this.maxBatch = maxBatch;
+    }
+    
+    /**
+     * Returns the number of dishes that were taken by a Cook other than their item's home Cook.
+     *
+     * @return The number of dishes stolen
+     */
+    public long getDishesStolen() {
+        return dishesStolen.sum();
+    }
+    
+    @Override
+    public void start(int numCooks) {
+        List<Deque<OrderDish>> started = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, numCooks); i++) {
+            started.add(new ConcurrentLinkedDeque<>());
+        }
+        for (Deque<OrderDish> deque : deques) {
+            started.get(0).addAll(deque); //Dishes still waiting from before
+        }
+        homes.clear();
+        deques = started;
+    }
+    
+    @Override
+    public void add(OrderDish dish) {
+        List<Deque<OrderDish>> current = deques;
+        int home = homes.computeIfAbsent(dish.getItem(), item -> nextHome.getAndIncrement());
+        current.get(home % current.size()).addLast(dish);
+        unclaimed.release();
+    }
+    
+    @Override
+    public int take(int cook, List<OrderDish> batch, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (!unclaimed.tryAcquire(timeout, unit)) {
+            return 0;
+        }
+        List<Deque<OrderDish>> current = deques;
+        int own = cook % current.size();
+        while (true) {
+            Deque<OrderDish> deque = current.get(own);
+            OrderDish dish = deque.pollFirst();
+            if (dish != null) {
+                return 1 + addSameItem(deque, deque.iterator(), dish, batch);
+            }
+            for (int i = 1; i < current.size(); i++) {
+                deque = current.get((own + i) % current.size());
+                dish = deque.pollLast();
+                if (dish != null) {
+                    int taken = 1 + addSameItem(deque, deque.descendingIterator(), dish, batch);
+                    dishesStolen.add(taken);
+                    return taken;
+                }
+            }
+            //The permit's dish is still being added
+            Thread.onSpinWait();
+        }
+    }
+    
+    /**
+     * Adds the specified dish to the batch, followed by dishes of the same item found by the
+     * iterator over the specified deque, for each of which a permit is taken.
+     *
+     * @return The number of dishes added after the first
+     */
+    private int addSameItem(Deque<OrderDish> deque, Iterator<OrderDish> dishes, OrderDish first,
+                            List<OrderDish> batch) {
+        batch.add(first);
+        int added = 0;
+        for (int scanned = 0; added + 1 < maxBatch && scanned < maxBatch * SCAN_PER_BATCH
+                && dishes.hasNext(); scanned++) {
+            OrderDish dish = dishes.next();
+            if (dish.getItem() == first.getItem()) {
+                if (!unclaimed.tryAcquire()) {
+                    break;
+                }
+                if (deque.removeFirstOccurrence(dish)) {
+                    batch.add(dish);
+                    added++;
+                } else {
+                    unclaimed.release(); //Another Cook claimed it first
+                }
+            }
+        }
+        return added;
+    }
+    
+    @Override
+    public int size() {
+        return unclaimed.availablePermits();
+    }
+    
+}
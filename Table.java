@@ -1,6 +1,6 @@
 package restaurant;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -12,9 +12,11 @@ import java.util.Set;
 public class Table {
     
     private final Set<OrderDish> receivedDishes = new HashSet<>();
-    private BigDecimal billAmount = new BigDecimal(0);
+    private long billAmount = 0; //In cents
     private Restaurant restaurant;
     private int num;
+    private volatile Server server = null; //The server whose section the table is in
+    private long firstReceivedNanos = OrderDish.NO_TIME; //When the table got its first unpaid dish
     
     /**
      * Store the restaurant this table is in and the number of the table in that restaurant.
@@ -41,23 +43,48 @@ public class Table {
         return num;
     }
     
+    /**
+     * Return the server whose section this table is in, or null if it is not in a section.
+     */
+    public Server getServer() {
+        return server;
+    }
+    
+    /**
+     * Put this table in the specified server's section, or in no section if the server is null.
+     *
+     * @param server the server who looks after this table
+     */
+    public void setServer(Server server) {
+        this.server = server;
+    }
+    
     /**
      * Add price of dish to tables bill and add dish to tables recivedDishes
      *
      * @param dish a dish from the tables order
      */
     public void receiveDish(OrderDish dish) {
+        if (firstReceivedNanos == OrderDish.NO_TIME && restaurant.getLatencyRecorder() != null) {
+            firstReceivedNanos = restaurant.nanoTime();
+        }
         receivedDishes.add(dish);
-        billAmount = billAmount.add(dish.getPrice());
+        billAmount += dish.getPrice();
     }
     
     /**
      * Remove price of bill and received dishes
      */
     public void payForDishes() {
+        LatencyRecorder latency = restaurant.getLatencyRecorder();
+        if (latency != null && firstReceivedNanos != OrderDish.NO_TIME) {
+            latency.record(LatencyRecorder.Stage.TABLE_DWELL,
+                    restaurant.nanoTime() - firstReceivedNanos, null, null);
+        }
+        firstReceivedNanos = OrderDish.NO_TIME;
         printBill();
         receivedDishes.clear();
-        billAmount = new BigDecimal(0);
+        billAmount = 0;
     }
     
     public Set<OrderDish> getReceivedDishes() {
@@ -65,13 +92,33 @@ public class Table {
     }
     
     /**
-     * Print table's bill to console
+     * Return the price of the dishes received since the table last paid, in cents, before tax.
+     */
+    public long getBillAmount() {
+        return billAmount;
+    }
+    
+    /**
+     * Replace the received dishes and bill of the table, as when restoring a Checkpoint.
+     *
+     * @param dishes     the dishes received since the table last paid
+     * @param billAmount the price of those dishes, in cents, before tax
+     */
+    void restoreBill(Collection<OrderDish> dishes, long billAmount) {
+        receivedDishes.clear();
+        receivedDishes.addAll(dishes);
+        this.billAmount = billAmount;
+    }
+    
+    /**
+     * Print table's bill to the restaurant's output
      */
     public void printBill() {
-        StringBuilder bill = new StringBuilder();
+        OutputSink output = restaurant.getOutput();
+        StringBuilder bill = output.buffer();
         java.util.Date date = new java.util.Date();
-        BigDecimal hst = new BigDecimal(1.12);
-        String nl = System.getProperty("line.separator");
+        int taxRate = restaurant.getTaxRate();
+        String nl = OutputSink.NL;
         String tab = "\t";
         
         bill.append("HERE IS YOUR BILL").append(nl).append(nl);
@@ -80,39 +127,31 @@ public class Table {
         bill.append("Dishes:").append(nl);
         
         for (OrderDish dish : receivedDishes) {
-            bill.append(dish.getItem().getName())
-                    .append(tab)
-                    .append(dish.getItem().getPrice().setScale(2, BigDecimal.ROUND_HALF_EVEN))
-                    .append(nl);
+            bill.append(dish.getItem().getName()).append(tab);
+            Money.append(bill, dish.getItem().getPrice()).append(nl);
             
             for (MenuItemMod mod : dish.getMods()) {
                 bill.append(tab)
                         .append("- ")
                         .append(mod.getName())
-                        .append(tab)
-                        .append(mod.getPriceChange().setScale(2, BigDecimal.ROUND_HALF_EVEN))
-                        .append(nl);
+                        .append(tab);
+                Money.append(bill, mod.getPriceChange()).append(nl);
             }
             
             bill.append(nl);
         }
         
-        bill.append("Sub-Total: ")
-                .append(tab)
-                .append(billAmount.setScale(2, BigDecimal.ROUND_HALF_EVEN))
-                .append(nl);
-        bill.append("Total: ")
-                .append(tab)
-                .append(billAmount.multiply(hst).setScale(2, BigDecimal.ROUND_HALF_EVEN))
-                .append(nl);
+        bill.append("Sub-Total: ").append(tab);
+        Money.append(bill, billAmount).append(nl);
+        bill.append("Total: ").append(tab);
+        Money.append(bill, Money.withTax(billAmount, taxRate)).append(nl);
         
         bill.append(
                 "***********************************************************************************")
                 .append(nl);
         bill.append("THANK YOU! COME AGAIN SOON!").append(nl);
-        bill.append("Please keep a copy of this for your records.");
-        System.out.println(bill);
-        System.out.println();
+        bill.append("Please keep a copy of this for your records.").append(nl).append(nl);
+        output.write(bill);
     }
     
 }
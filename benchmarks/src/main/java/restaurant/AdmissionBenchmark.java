@@ -0,0 +1,98 @@
+package restaurant;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overloads a live Kitchen, with a Server placing Orders far faster than two Cooks can make them,
+ * under each AdmissionControl policy and with none. The score is the time per Order to place every
+ * Order and make every admitted dish. After each iteration the deepest the Kitchen's queue got and
+ * the AdmissionControl's counts are printed: with no limit the queue holds nearly every dish.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AdmissionBenchmark {
+    
+    /**
+     * The number of Orders placed in each invocation.
+     */
+    public static final int ORDERS = 5000;
+    
+    @Param({"none", "BLOCK", "TIMED", "REJECT"})
+    public String policy;
+    
+    @Param({"64"})
+    public int maxDishes;
+    
+    private Restaurant restaurant;
+    private Server server;
+    private MenuItem burger;
+    private Kitchen kitchen;
+    private AdmissionControl admission;
+    private int maxQueueLength;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Menu menu = new Menu();
+        burger = new MenuItem("Burger", 850);
+        burger.setIngredientAmount("bun", 1);
+        burger.setIngredientAmount("patty", 1);
+        menu.addItem(burger);
+        restaurant = new Restaurant(menu, 100, null);
+        restaurant.addIngredient("bun", 0, ORDERS * 4);
+        restaurant.addIngredient("patty", 0, ORDERS * 4);
+        restaurant.addCook(new Cook("Cook 1"));
+        restaurant.addCook(new Cook("Cook 2"));
+        server = new Server("Sam");
+        restaurant.addServer(server);
+        restaurant.setOutput(OutputSink.none());
+        admission = null;
+        if (!policy.equals("none")) {
+            admission = new AdmissionControl(maxDishes, AdmissionControl.Policy.valueOf(policy),
+                    100, TimeUnit.MICROSECONDS);
+            restaurant.setAdmissionControl(admission);
+        }
+        maxQueueLength = 0;
+        kitchen = new Kitchen(restaurant, dish -> 20_000);
+        kitchen.start();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long placeOrders() throws InterruptedException {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order(restaurant.getTable(i % 100 + 1));
+            for (int d = 1; d <= 4; d++) {
+                order.addDish(new OrderDish(d, burger));
+            }
+            server.placeOrder(order);
+            maxQueueLength = Math.max(maxQueueLength, kitchen.getQueueLength());
+        }
+        kitchen.shutdown();
+        return kitchen.getDishesPrepared();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void printDepth() {
+        System.out.println("  " + kitchen.getDishesPrepared() + " dishes made, deepest queue "
+                + maxQueueLength + (admission == null ? "" : "; " + admission));
+    }
+    
+}
@@ -0,0 +1,109 @@
+package restaurant;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares finding out what can be made from a Restaurant's AvailabilityIndex with working it out
+ * from the inventory: whether an Order's dishes can be made, and how many menu items cannot. It also
+ * measures what the index adds to a stock change that makes some recipes short and then available
+ * again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityBenchmark {
+    
+    @Param({"small", "medium", "large"})
+    public String size;
+    
+    @Param({"4"})
+    public int dishes;
+    
+    private Restaurant restaurant;
+    private Inventory inventory;
+    private AvailabilityIndex availability;
+    private Order order;
+    private int scarceID;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        SyntheticRestaurant synthetic = SyntheticRestaurant.ofSize(size);
+        restaurant = synthetic.newRestaurant();
+        inventory = restaurant.getInventory();
+        availability = restaurant.getAvailability();
+        order = synthetic.newOrder(restaurant, 1, dishes);
+        //Every recipe needs 1 or 2 of an ingredient, so taking 2 away crosses them all
+        scarceID = restaurant.getIngredientTable().getID(SyntheticRestaurant.ingredientName(0));
+        inventory.restoreAmount(scarceID, 2);
+    }
+    
+    @Benchmark
+    public OrderDish checkOrderIndexed() {
+        return availability.findUnavailable(order);
+    }
+    
+    @Benchmark
+    public OrderDish checkOrderByScan() {
+        for (OrderDish dish : order.getDishes().values()) {
+            Recipe recipe = dish.getItem().getRecipe();
+            for (MenuItemMod mod : dish.getMods()) {
+                recipe = recipe.withMod(mod);
+            }
+            if (!canMake(recipe.getIngredientVector())) {
+                return dish;
+            }
+        }
+        return null;
+    }
+    
+    @Benchmark
+    public int countUnavailableIndexed() {
+        return availability.getUnavailableItemCount();
+    }
+    
+    @Benchmark
+    public int countUnavailableByScan() {
+        int unavailable = 0;
+        for (MenuItem item : restaurant.getMenu().getItems()) {
+            if (!canMake(item.getRecipe().getIngredientVector())) {
+                unavailable++;
+            }
+        }
+        return unavailable;
+    }
+    
+    @Benchmark
+    public int runOutAndRestock() {
+        inventory.subtract(scarceID, 2);
+        int unavailable = availability.getUnavailableItemCount();
+        inventory.add(scarceID, 2);
+        return unavailable;
+    }
+    
+    private boolean canMake(IngredientVector recipe) {
+        for (int i = 0; i < recipe.size(); i++) {
+            int id = recipe.getID(i);
+            int amount = inventory.isStocked(id) ? inventory.getAmount(id) : 0;
+            if (recipe.getAmount(i) > 0 && amount < recipe.getAmount(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+}
@@ -0,0 +1,108 @@
+package restaurant;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures filling every dish of large Orders. fillDishes has one Cook see and prepare each dish,
+ * with the Order counting down its unfilled dishes; scanAfterEachDish does the same work but looks
+ * at every dish of the Order after each one is filled, as Cooks used to. kitchenBanquets has a live
+ * Kitchen make BANQUETS Orders at once and checks that each of them was marked filled exactly once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BanquetBenchmark {
+    
+    /**
+     * The number of Orders placed in each invocation of kitchenBanquets.
+     */
+    public static final int BANQUETS = 50;
+    
+    @Param({"20", "200"})
+    public int dishes;
+    
+    private SyntheticRestaurant synthetic;
+    private Restaurant restaurant;
+    private Cook cook;
+    private int seed = 0;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        synthetic = SyntheticRestaurant.ofSize("medium");
+        restaurant = synthetic.newRestaurant();
+        cook = restaurant.getCook(SyntheticRestaurant.cookName(1));
+        seed = 0;
+    }
+    
+    @Benchmark
+    public Order fillDishes() {
+        Order order = synthetic.newOrder(restaurant, seed++, dishes);
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.seeDish(dish);
+        }
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.prepareDish(dish);
+        }
+        restaurant.markOrderDelivered(order);
+        return order;
+    }
+    
+    @Benchmark
+    public int scanAfterEachDish() {
+        Order order = synthetic.newOrder(restaurant, seed++, dishes);
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.seeDish(dish);
+        }
+        int filledScans = 0;
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.prepareDish(dish);
+            boolean filled = true;
+            for (OrderDish other : order.getDishes().values()) {
+                if (!other.isFilled()) {
+                    filled = false;
+                    break;
+                }
+            }
+            if (filled) {
+                filledScans++;
+            }
+        }
+        restaurant.markOrderDelivered(order);
+        return filledScans;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int kitchenBanquets() throws InterruptedException {
+        Restaurant kitchenRestaurant = synthetic.newRestaurant();
+        Server kitchenServer = kitchenRestaurant.getServer(SyntheticRestaurant.serverName(1));
+        Kitchen kitchen = new Kitchen(kitchenRestaurant, dish -> 0);
+        kitchen.start();
+        for (int i = 0; i < BANQUETS; i++) {
+            kitchenServer.placeOrder(synthetic.newOrder(kitchenRestaurant, i, dishes));
+        }
+        kitchen.shutdown();
+        int ready = kitchenRestaurant.getReadyOrders().size();
+        if (ready != BANQUETS) {
+            throw new IllegalStateException(ready + " of " + BANQUETS + " orders were filled");
+        }
+        return ready;
+    }
+    
+}
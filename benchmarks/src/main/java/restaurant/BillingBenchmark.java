@@ -0,0 +1,95 @@
+package restaurant;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares how fast a large table's bill is made with long cents against the old BigDecimal
+ * billing, which added a BigDecimal for every dish and built every line with setScale. The bills go
+ * to a null OutputSink so that only the billing is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillingBenchmark {
+    
+    @Param({"20", "50"})
+    public int dishes;
+    
+    private Table table;
+    
+    @Setup
+    public void setUp() {
+        SyntheticRestaurant synthetic = SyntheticRestaurant.ofSize("medium");
+        Restaurant restaurant = synthetic.newRestaurant();
+        Order order = synthetic.newOrder(restaurant, 0, dishes);
+        table = order.getTable();
+        for (OrderDish dish : order.getDishes().values()) {
+            table.receiveDish(dish);
+        }
+    }
+    
+    @Benchmark
+    public void centsBill() {
+        table.printBill();
+    }
+    
+    /**
+     * Makes the table's bill the way Table.printBill used to, adding up the dishes' prices as
+     * BigDecimals and multiplying by a BigDecimal made from a double. The prices are turned into
+     * BigDecimals as they are read, as the old MenuItems and OrderDishes did when they were made.
+     */
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public void bigDecimalBill() {
+        OutputSink output = table.getRestaurant().getOutput();
+        StringBuilder bill = output.buffer();
+        BigDecimal billAmount = new BigDecimal(0);
+        BigDecimal hst = new BigDecimal(1.12);
+        bill.append("HERE IS YOUR BILL").append(OutputSink.NL).append(OutputSink.NL);
+        bill.append("Table No: ").append(table.getNum()).append(OutputSink.NL);
+        bill.append("DATE: ").append(new Date()).append(OutputSink.NL).append(OutputSink.NL);
+        bill.append("Dishes:").append(OutputSink.NL);
+        for (OrderDish dish : table.getReceivedDishes()) {
+            BigDecimal price = BigDecimal.valueOf(dish.getItem().getPrice(), 2);
+            bill.append(dish.getItem().getName())
+                    .append("\t")
+                    .append(price.setScale(2, BigDecimal.ROUND_HALF_EVEN))
+                    .append(OutputSink.NL);
+            for (MenuItemMod mod : dish.getMods()) {
+                BigDecimal priceChange = BigDecimal.valueOf(mod.getPriceChange(), 2);
+                price = price.add(priceChange);
+                bill.append("\t- ")
+                        .append(mod.getName())
+                        .append("\t")
+                        .append(priceChange.setScale(2, BigDecimal.ROUND_HALF_EVEN))
+                        .append(OutputSink.NL);
+            }
+            billAmount = billAmount.add(price);
+            bill.append(OutputSink.NL);
+        }
+        bill.append("Sub-Total: \t")
+                .append(billAmount.setScale(2, BigDecimal.ROUND_HALF_EVEN))
+                .append(OutputSink.NL);
+        bill.append("Total: \t")
+                .append(billAmount.multiply(hst).setScale(2, BigDecimal.ROUND_HALF_EVEN))
+                .append(OutputSink.NL);
+        output.write(bill);
+    }
+    
+}
@@ -0,0 +1,81 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures capturing a Checkpoint of a Restaurant that has replayed an events file, and restoring
+ * it into a new Restaurant, which is what a restart costs instead of replaying the events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckpointBenchmark {
+    
+    @Param({"small", "large"})
+    public String size;
+    
+    @Param({"10000"})
+    public int orders;
+    
+    private SyntheticRestaurant synthetic;
+    private Restaurant restaurant;
+    private EventApplier applier;
+    private Checkpoint checkpoint;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        synthetic = SyntheticRestaurant.ofSize(size);
+        restaurant = synthetic.newRestaurant();
+        applier = new EventApplier(restaurant);
+        Path file = Files.createTempFile("events", ".txt");
+        try {
+            synthetic.writeEvents(file, orders, 4);
+            try (EventReader reader = new EventReader(file)) {
+                Event event = reader.next();
+                while (event != null) {
+                    applier.apply(event);
+                    event = reader.next();
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+        checkpoint = Checkpoint.capture(restaurant, applier);
+    }
+    
+    @Benchmark
+    public Checkpoint capture() {
+        return Checkpoint.capture(restaurant, applier);
+    }
+    
+    /**
+     * Restores the Checkpoint into a new Restaurant. Building the Restaurant from its menu is
+     * included, as it is on a restart.
+     */
+    @Benchmark
+    public EventApplier restore() throws IOException {
+        Restaurant restored = synthetic.newRestaurant();
+        EventApplier restoredApplier = new EventApplier(restored);
+        checkpoint.restore(restored, restoredApplier);
+        return restoredApplier;
+    }
+    
+}
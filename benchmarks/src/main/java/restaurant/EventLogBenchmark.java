@@ -0,0 +1,94 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many Events per second an EventLog takes, for different maximum delays. With a delay
+ * of 0 a batch is forced as soon as the previous one is on disk, so Events share an fsync only if
+ * they arrive while one is in progress; longer delays let more Events share each fsync but make
+ * each wait longer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLogBenchmark {
+    
+    @Param({"0", "500", "2000"})
+    public long delayMicros;
+    
+    private Path file;
+    private EventLog log;
+    private Event event;
+    private long sequence = 0;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("events", ".log");
+        log = new EventLog(file, TimeUnit.MICROSECONDS.toNanos(delayMicros));
+        event = new Event(Event.Type.ORDER, 1);
+        event.setOrderID(1);
+        event.setTableNum(1);
+        event.setEmployee("Server 1");
+        for (int i = 1; i <= 4; i++) {
+            Event.DishSpec dish = new Event.DishSpec(i, 2 + 2 * i);
+            dish.setItem(SyntheticRestaurant.itemName(i));
+            dish.addMod(SyntheticRestaurant.modName(0));
+            event.addDish(dish);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        Files.delete(file);
+    }
+    
+    /**
+     * Appends Events from one thread without waiting for them, as Phase1 does.
+     */
+    @Benchmark
+    @Threads(1)
+    public long append() {
+        synchronized (this) {
+            log.append(++sequence, event);
+            return sequence;
+        }
+    }
+    
+    /**
+     * Appends an Event from each of eight threads, which each wait for their Event to be on disk
+     * before appending the next, as servers taking orders would.
+     */
+    @Benchmark
+    @Threads(8)
+    public long appendAndAwaitDurable() throws IOException {
+        long appended;
+        synchronized (this) {
+            appended = ++sequence;
+            log.append(appended, event);
+        }
+        log.awaitDurable(appended);
+        return appended;
+    }
+    
+}
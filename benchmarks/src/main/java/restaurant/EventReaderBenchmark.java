@@ -0,0 +1,205 @@
+package restaurant;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares how fast the old Scanner loop, an EventReader and a ParallelEventReader with a thread
+ * per core can read a large events file, and how fast a BinaryEventReader reads the same events
+ * converted to binary. Only the reading is timed; the events are not applied to a Restaurant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventReaderBenchmark {
+    
+    @Param({"100000"})
+    public int orders;
+    
+    private Path file;
+    private Path binaryFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("events", ".txt");
+        writeEvents(file, orders);
+        binaryFile = Files.createTempFile("events", ".bin");
+        BinaryEventWriter.convert(new EventReader(file), binaryFile);
+        System.out.println("  " + Files.size(file) + " bytes of text, " + Files.size(binaryFile)
+                + " bytes of binary");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+        Files.delete(binaryFile);
+    }
+    
+    @Benchmark
+    public long scanner() throws IOException {
+        return readWithScanner(file.toFile());
+    }
+    
+    @Benchmark
+    public long eventReader() throws IOException {
+        return readWithEventSource(new EventReader(file));
+    }
+    
+    @Benchmark
+    public long parallelEventReader() throws IOException {
+        return readWithEventSource(new ParallelEventReader(file,
+                Runtime.getRuntime().availableProcessors(), null));
+    }
+    
+    @Benchmark
+    public long binaryEventReader() throws IOException {
+        return readWithEventSource(new BinaryEventReader(binaryFile));
+    }
+    
+    /**
+     * Writes an events file in which each order of three dishes is seen, filled, delivered and paid
+     * for, with an ingredient delivery every ten orders.
+     *
+     * @return The number of lines written
+     */
+    private static int writeEvents(Path file, int numOrders) throws IOException {
+        int lines = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 1; i <= numOrders; i++) {
+                int table = i % 20 + 1;
+                out.write("Order " + i + "\nTable: " + table + "\nServer: Sam\n"
+                        + "Dish 1\nBurger\nExtra Cheese\nDish 2\nBurger\nDish 3\nSalad\n\n");
+                out.write("Seen\nCook: Alice\nOrder: " + i + "\nDishes: 1, 2, 3\n\n");
+                out.write("Filled\nCook: Alice\nOrder: " + i + "\nDishes: 1, 2, 3\n\n");
+                out.write("Delivered\nServer: Sam\nOrder: " + i + "\nRejected: 2\n\n");
+                out.write("Paid\nTable: " + table + "\n\n");
+                lines += 11 + 5 + 5 + 5 + 3;
+                if (i % 10 == 0) {
+                    out.write("Received\nReceiver: Rex\n30 bun\n20 patty\n\n");
+                    lines += 5;
+                }
+            }
+        }
+        return lines;
+    }
+    
+    /**
+     * Reads the file the way Phase1 used to, with Scanner.nextLine, String.substring and
+     * Integer.parseInt, and returns a checksum of the numbers read.
+     */
+    private static long readWithScanner(File file) throws IOException {
+        long check = 0;
+        Scanner input = new Scanner(file);
+        while (input.hasNextLine()) {
+            String event = input.nextLine();
+            if (event.startsWith("Order ")) {
+                check += Integer.parseInt(event.substring("Order ".length()));
+                check += Integer.parseInt(input.nextLine().substring("Table: ".length()));
+                check += input.nextLine().substring("Server: ".length()).length();
+                String line = input.nextLine();
+                while (line.length() > 0) {
+                    check += Integer.parseInt(line.substring("Dish ".length()));
+                    check += input.nextLine().length();
+                    line = input.nextLine();
+                    while (line.length() > 0 && !line.startsWith("Dish ")) {
+                        check += line.length();
+                        line = input.nextLine();
+                    }
+                }
+            } else if (event.equals("Seen") || event.equals("Filled") || event.equals("Delivered")) {
+                String employee = input.nextLine();
+                check += employee.substring(employee.indexOf(' ') + 1).length();
+                check += Integer.parseInt(input.nextLine().substring("Order: ".length()));
+                String line = input.nextLine();
+                if (line.length() > 0) {
+                    for (String dishID : line.substring(line.indexOf(' ') + 1).split(", ")) {
+                        check += Integer.parseInt(dishID);
+                    }
+                    input.nextLine();
+                }
+            } else if (event.equals("Paid")) {
+                check += Integer.parseInt(input.nextLine().substring("Table: ".length()));
+                input.nextLine();
+            } else if (event.equals("Received")) {
+                String receiver = input.nextLine();
+                check += receiver.substring(receiver.indexOf(' ') + 1).length();
+                String line = input.nextLine();
+                while (line.length() > 0) {
+                    int amountEnd = line.indexOf(' ');
+                    check += Integer.parseInt(line.substring(0, amountEnd));
+                    check += line.substring(amountEnd + 1).length();
+                    line = input.nextLine();
+                }
+            }
+        }
+        input.close();
+        return check;
+    }
+    
+    /**
+     * Reads the file with the specified EventSource, closing it afterwards, and returns the same
+     * checksum as readWithScanner.
+     */
+    private static long readWithEventSource(EventSource source) throws IOException {
+        long check = 0;
+        try (EventSource reader = source) {
+            Event event = reader.next();
+            while (event != null) {
+                switch (event.getType()) {
+                    case ORDER:
+                        check += event.getOrderID() + event.getTableNum() + event.getEmployee().length();
+                        for (Event.DishSpec dish : event.getDishes()) {
+                            check += dish.getID() + dish.getItem().length();
+                            for (String mod : dish.getMods()) {
+                                check += mod.length();
+                            }
+                        }
+                        break;
+                    case SEEN:
+                    case FILLED:
+                    case DELIVERED:
+                        check += event.getEmployee().length() + event.getOrderID();
+                        for (int i = 0; i < event.getDishIDCount(); i++) {
+                            check += event.getDishID(i);
+                        }
+                        break;
+                    case PAID:
+                        check += event.getTableNum();
+                        break;
+                    case RECEIVED:
+                        check += event.getEmployee().length();
+                        for (int i = 0; i < event.getIngredientCount(); i++) {
+                            check += event.getIngredientAmount(i) + event.getIngredient(i).length();
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                event = reader.next();
+            }
+        }
+        return check;
+    }
+    
+}
@@ -0,0 +1,98 @@
+package restaurant;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what holding ingredients when an Order is placed costs, with four Servers placing Orders
+ * in one Restaurant at once and each having a Cook prepare the dishes. Holding locks the stripes of
+ * each dish's ingredients once more when the Order is placed, so the small restaurant, with fewer
+ * ingredients to spread the Servers over, shows the contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HoldBenchmark {
+    
+    @Param({"small", "large"})
+    public String size;
+    
+    @Param({"false", "true"})
+    public boolean hold;
+    
+    @Param({"4"})
+    public int dishes;
+    
+    private SyntheticRestaurant synthetic;
+    private Restaurant restaurant;
+    private final AtomicInteger threads = new AtomicInteger();
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        synthetic = SyntheticRestaurant.ofSize(size);
+        restaurant = synthetic.newRestaurant();
+        restaurant.setHoldIngredients(hold);
+        threads.set(0);
+    }
+    
+    /**
+     * The Server and Cook of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Staff {
+        
+        private Server server;
+        private Cook cook;
+        private int seed;
+        
+        @Setup(Level.Iteration)
+        public void setUp(HoldBenchmark benchmark) {
+            int num = benchmark.threads.incrementAndGet();
+            server = new Server("Holding Server " + num);
+            cook = new Cook("Holding Cook " + num);
+            synchronized (benchmark) { //The Restaurant's staff are not kept for many threads
+                benchmark.restaurant.addServer(server);
+                benchmark.restaurant.addCook(cook);
+            }
+            seed = num * 1000003;
+        }
+        
+    }
+    
+    /**
+     * Places a new Order, has a Cook see and prepare every dish and has the Server pick it up, so
+     * that ready Orders do not pile up.
+     */
+    @Benchmark
+    @Threads(4)
+    public Order placeAndPrepare(Staff staff) {
+        Order order = synthetic.newOrder(restaurant, staff.seed++, dishes);
+        if (!staff.server.placeOrder(order)) {
+            throw new IllegalStateException("Order was not placed");
+        }
+        for (OrderDish dish : order.getDishes().values()) {
+            staff.cook.seeDish(dish);
+        }
+        for (OrderDish dish : order.getDishes().values()) {
+            staff.cook.prepareDish(dish);
+        }
+        return staff.server.pollReadyOrder();
+    }
+    
+}
@@ -0,0 +1,85 @@
+package restaurant;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a live Kitchen with many Cooks takes per dish to make a batch of dishes, from
+ * the first Order being placed until every Cook has stopped. The Restaurant's messages go to a null
+ * OutputSink so that they do not limit the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KitchenBenchmark {
+    
+    /**
+     * The number of dishes made in each invocation.
+     */
+    public static final int DISHES = 20000;
+    
+    @Param({"1", "8", "50"})
+    public int cooks;
+    
+    @Param({"0", "20"})
+    public long prepMicros;
+    
+    private Restaurant restaurant;
+    private Server server;
+    private MenuItem burger;
+    private Kitchen kitchen;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Menu menu = new Menu();
+        burger = new MenuItem("Burger", 850);
+        burger.setIngredientAmount("bun", 1);
+        burger.setIngredientAmount("patty", 1);
+        menu.addItem(burger);
+        restaurant = new Restaurant(menu, 100, null);
+        restaurant.addIngredient("bun", 0, DISHES);
+        restaurant.addIngredient("patty", 0, DISHES);
+        for (int i = 1; i <= cooks; i++) {
+            restaurant.addCook(new Cook("Cook " + i));
+        }
+        server = new Server("Sam");
+        restaurant.addServer(server);
+        restaurant.setOutput(OutputSink.none());
+        long prepNanos = prepMicros * 1000;
+        kitchen = new Kitchen(restaurant, dish -> prepNanos);
+        kitchen.start();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(DISHES)
+    public long makeDishes() throws InterruptedException {
+        for (int dishID = 0; dishID < DISHES; dishID += 4) {
+            Order order = new Order(restaurant.getTable(dishID / 4 % 100 + 1));
+            for (int i = 0; i < 4; i++) {
+                order.addDish(new OrderDish(i + 1, burger));
+            }
+            server.placeOrder(order);
+        }
+        kitchen.shutdown();
+        if (kitchen.getDishesFailed() > 0) {
+            throw new IllegalStateException(kitchen.getDishesFailed() + " dishes failed");
+        }
+        return kitchen.getDishesPrepared();
+    }
+    
+}
@@ -0,0 +1,80 @@
+package restaurant;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of timing an Order's stages: recording one duration in a LatencyHistogram, and
+ * serving a whole Order with and without a LatencyRecorder set. The GC profiler's B/op shows that
+ * recording adds no allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatencyBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean timed;
+    
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LatencyRecorder recorder = new LatencyRecorder(); //Kept so its histograms exist
+    private SyntheticRestaurant synthetic;
+    private Restaurant restaurant;
+    private Server server;
+    private Cook cook;
+    private long nanos = 0;
+    private int seed = 0;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        synthetic = SyntheticRestaurant.ofSize("medium");
+        restaurant = synthetic.newRestaurant();
+        server = restaurant.getServer(SyntheticRestaurant.serverName(1));
+        cook = restaurant.getCook(SyntheticRestaurant.cookName(1));
+        if (timed) {
+            restaurant.setLatencyRecorder(recorder);
+        }
+        seed = 0;
+    }
+    
+    @Benchmark
+    public LatencyHistogram record() {
+        nanos = nanos * 6364136223846793005L + 1442695040888963407L;
+        histogram.record(nanos >>> 30);
+        return histogram;
+    }
+    
+    /**
+     * Places a new Order, has a Cook see and prepare every dish, delivers it and has the table pay.
+     */
+    @Benchmark
+    public Order serveOrder() {
+        Order order = synthetic.newOrder(restaurant, seed++, 4);
+        server.placeOrder(order);
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.seeDish(dish);
+        }
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.prepareDish(dish);
+        }
+        server.deliverOrder(order, Collections.emptySet());
+        order.getTable().payForDishes();
+        return order;
+    }
+    
+}
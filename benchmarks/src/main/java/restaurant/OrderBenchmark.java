@@ -0,0 +1,112 @@
+package restaurant;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the steps an Order goes through once it has been read: making its dishes with mods,
+ * placing it, consuming the dishes' ingredients, delivering it, and the whole trip from placing it
+ * to paying the bill. Each iteration starts with a new Restaurant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBenchmark {
+    
+    @Param({"small", "medium", "large"})
+    public String size;
+    
+    @Param({"4"})
+    public int dishes;
+    
+    private SyntheticRestaurant synthetic;
+    private Restaurant restaurant;
+    private Server server;
+    private Cook cook;
+    private Order deliveredOrder;
+    private IngredientVector[] recipes;
+    private int seed = 0;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        synthetic = SyntheticRestaurant.ofSize(size);
+        restaurant = synthetic.newRestaurant();
+        seed = 0;
+        server = restaurant.getServer(SyntheticRestaurant.serverName(1));
+        cook = restaurant.getCook(SyntheticRestaurant.cookName(1));
+        deliveredOrder = synthetic.newOrder(restaurant, 0, dishes);
+        recipes = new IngredientVector[synthetic.getNumItems()];
+        for (int i = 0; i < recipes.length; i++) {
+            MenuItem item = restaurant.getMenu().getItem(SyntheticRestaurant.itemName(i));
+            Recipe recipe = item.getRecipe();
+            for (int m = 0; m < i % (synthetic.getModsPerItem() + 1); m++) {
+                recipe = recipe.withMod(item.getMod(SyntheticRestaurant.modName(m)));
+            }
+            recipes[i] = recipe.getIngredientVector();
+        }
+    }
+    
+    @Benchmark
+    public Order orderWithMods() {
+        return synthetic.newOrder(restaurant, seed++, dishes);
+    }
+    
+    /**
+     * Places a new Order. Its dishes are then marked seen, so that the Restaurant's unseen dishes do
+     * not pile up.
+     */
+    @Benchmark
+    public Order placeOrder() {
+        Order order = synthetic.newOrder(restaurant, seed++, dishes);
+        server.placeOrder(order);
+        for (OrderDish dish : order.getDishes().values()) {
+            restaurant.markDishSeen(dish);
+        }
+        return order;
+    }
+    
+    @Benchmark
+    public boolean consumeInventory() {
+        return restaurant.consumeIngredients(recipes[seed++ % recipes.length]);
+    }
+    
+    @Benchmark
+    public Table deliverOrder() {
+        server.deliverOrder(deliveredOrder, Collections.emptySet());
+        return deliveredOrder.getTable();
+    }
+    
+    /**
+     * Places a new Order, has a Cook see and prepare every dish, delivers it and has the table pay.
+     */
+    @Benchmark
+    public Order serveOrder() {
+        Order order = synthetic.newOrder(restaurant, seed++, dishes);
+        server.placeOrder(order);
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.seeDish(dish);
+        }
+        for (OrderDish dish : order.getDishes().values()) {
+            cook.prepareDish(dish);
+        }
+        server.deliverOrder(order, Collections.emptySet());
+        order.getTable().payForDishes();
+        return order;
+    }
+    
+}
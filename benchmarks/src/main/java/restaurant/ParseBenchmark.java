@@ -0,0 +1,111 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading menu.txt, reading the same Menu from a compiled ConfigImage, reading events.txt
+ * into Events, and replaying events.txt into a new Restaurant, for synthetic restaurants of
+ * different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    
+    @Param({"small", "medium", "large"})
+    public String size;
+    
+    @Param({"10000"})
+    public int orders;
+    
+    private SyntheticRestaurant synthetic;
+    private String menuText;
+    private Path eventsFile;
+    private Path configFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        synthetic = SyntheticRestaurant.ofSize(size);
+        menuText = synthetic.menuText();
+        eventsFile = Files.createTempFile("events", ".txt");
+        synthetic.writeEvents(eventsFile, orders, 4);
+        configFile = Files.createTempFile("config", ".bin");
+        Restaurant restaurant = synthetic.newRestaurant();
+        ConfigImage.capture(restaurant).write(configFile);
+        restaurant.close();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(eventsFile);
+        Files.delete(configFile);
+    }
+    
+    @Benchmark
+    public Menu readMenu() {
+        Menu menu = new Menu();
+        if (Phase1.readMenu(new Scanner(menuText), menu) > 0) {
+            throw new IllegalStateException("Bad menu.txt");
+        }
+        return menu;
+    }
+    
+    /**
+     * Maps the compiled image and builds its Menu, as Phase1 does with "--config".
+     */
+    @Benchmark
+    public Menu readConfigImage() throws IOException {
+        return ConfigImage.read(configFile).newMenu();
+    }
+    
+    @Benchmark
+    public void readEvents(Blackhole blackhole) throws IOException {
+        try (EventReader reader = new EventReader(eventsFile)) {
+            Event event = reader.next();
+            while (event != null) {
+                blackhole.consume(event);
+                event = reader.next();
+            }
+        }
+    }
+    
+    /**
+     * Reads and applies every event to a new Restaurant. Building the Restaurant is included, as it
+     * is in Phase1.
+     */
+    @Benchmark
+    public Restaurant replayEvents() throws IOException {
+        Restaurant restaurant = synthetic.newRestaurant();
+        EventApplier applier = new EventApplier(restaurant);
+        try (EventReader reader = new EventReader(eventsFile)) {
+            Event event = reader.next();
+            while (event != null) {
+                applier.apply(event);
+                event = reader.next();
+            }
+        }
+        return restaurant;
+    }
+    
+}
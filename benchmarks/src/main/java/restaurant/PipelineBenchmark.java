@@ -0,0 +1,104 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading, applying and logging a generated workload in one loop, as Phase1 used to, with
+ * doing the same through an EventPipeline. The score is the time for the whole workload; after each
+ * iteration the time per event is printed. The stages of the pipeline only overlap when there are
+ * cores to spare, so on one core it should be no faster than the loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelineBenchmark {
+    
+    @Param({"10"})
+    public int scale;
+    
+    @Param({"loop", "pipeline"})
+    public String mode;
+    
+    private WorkloadGenerator generator;
+    private Path dir;
+    private Path logPath;
+    private Restaurant restaurant;
+    private long events;
+    private long nanos;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generator = WorkloadGenerator.atScale(scale, 1);
+        dir = Files.createTempDirectory("workload");
+        generator.writeTo(dir);
+        logPath = dir.resolve("log.bin");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        String[] names = {"restaurant.txt", "ingredients.txt", "menu.txt", "events.txt"};
+        for (String name : names) {
+            Files.delete(dir.resolve(name));
+        }
+        Files.delete(dir);
+    }
+    
+    @Setup(Level.Iteration)
+    public void newRestaurant() {
+        restaurant = generator.newRestaurant();
+    }
+    
+    @Benchmark
+    public long replay() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        EventApplier applier = new EventApplier(restaurant);
+        EventLog log = EventLog.open(logPath);
+        try (EventReader reader = new EventReader(dir.resolve("events.txt"))) {
+            if (mode.equals("pipeline")) {
+                EventPipeline pipeline = new EventPipeline(reader, applier);
+                pipeline.setLog(log);
+                pipeline.run();
+            } else {
+                Event event = reader.next();
+                while (event != null) {
+                    applier.apply(event);
+                    log.append(applier.getEventsApplied(), event);
+                    event = reader.next();
+                }
+            }
+        } finally {
+            log.close();
+        }
+        nanos = System.nanoTime() - start;
+        events = applier.getEventsApplied();
+        return events;
+    }
+    
+    @TearDown(Level.Iteration)
+    public void printTimePerEvent() throws IOException {
+        restaurant.close();
+        Files.deleteIfExists(logPath);
+        System.out.println("  " + events + " events at " + nanos / Math.max(1, events)
+                + " ns each");
+    }
+    
+}
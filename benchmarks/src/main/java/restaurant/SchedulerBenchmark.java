@@ -0,0 +1,112 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the DishQueues a Kitchen can use on the Orders of a generated workload, all placed at
+ * once. Each menu item takes between 20 and 90 microseconds to make, and dishes cooked in a batch
+ * take as long as the slowest of them. The score is the time to make every dish; after each
+ * iteration the queue wait and cook time percentiles are printed, since batching trades a longer
+ * wait for some dishes against a shorter one for the rest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SchedulerBenchmark {
+    
+    @Param({"fifo", "stealing:1", "stealing:8"})
+    public String queue;
+    
+    @Param({"1", "10"})
+    public int scale;
+    
+    @Param({"1"})
+    public long seed;
+    
+    private WorkloadGenerator generator;
+    private final List<Event> orders = new ArrayList<>();
+    private Restaurant restaurant;
+    private LatencyRecorder latency;
+    private Kitchen kitchen;
+    
+    @Setup(Level.Trial)
+    public void readOrders() throws IOException {
+        generator = WorkloadGenerator.atScale(scale, seed);
+        Path dir = Files.createTempDirectory("workload");
+        generator.writeTo(dir);
+        try (EventReader reader = new EventReader(dir.resolve("events.txt"))) {
+            Event event = reader.next();
+            while (event != null) {
+                if (event.getType() == Event.Type.ORDER) {
+                    orders.add(event);
+                }
+                event = reader.next();
+            }
+        }
+        String[] names = {"restaurant.txt", "ingredients.txt", "menu.txt", "events.txt"};
+        for (String name : names) {
+            Files.delete(dir.resolve(name));
+        }
+        Files.delete(dir);
+    }
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        restaurant = generator.newRestaurant();
+        restaurant.setOutput(OutputSink.none());
+        latency = new LatencyRecorder();
+        restaurant.setLatencyRecorder(latency);
+        kitchen = new Kitchen(restaurant, SchedulerBenchmark::prepNanos, Thread::new,
+                DishQueue.forName(queue));
+        kitchen.start();
+    }
+    
+    private static long prepNanos(OrderDish dish) {
+        return TimeUnit.MICROSECONDS.toNanos(20 + 10 * (dish.getItem().getName().hashCode() & 7));
+    }
+    
+    @Benchmark
+    public long makeDishes() throws IOException, InterruptedException {
+        EventApplier applier = new EventApplier(restaurant);
+        for (Event order : orders) {
+            applier.apply(order);
+        }
+        kitchen.shutdown();
+        if (kitchen.getDishesFailed() > 0) {
+            throw new IllegalStateException(kitchen.getDishesFailed() + " dishes failed");
+        }
+        return kitchen.getDishesPrepared();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void printLatency() {
+        LatencyHistogram wait = latency.getHistogram(LatencyRecorder.Stage.QUEUE_WAIT);
+        LatencyHistogram cook = latency.getHistogram(LatencyRecorder.Stage.COOK_TIME);
+        System.out.printf("  %d dishes in %d batches; queue wait p50 %d us, p99 %d us; "
+                        + "cook time p99 %d us%n", kitchen.getDishesPrepared(),
+                kitchen.getBatchesCooked(), wait.getValueAtPercentile(50) / 1000,
+                wait.getValueAtPercentile(99) / 1000, cook.getValueAtPercentile(99) / 1000);
+    }
+    
+}
@@ -0,0 +1,101 @@
+package restaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a live Kitchen and DiningRoom take per Order to make and deliver a batch of
+ * Orders, with each Order placed by one of many Servers who then wait for it to be handed back to
+ * them. With sections, the tables are split between the Servers and an Order is picked up by the
+ * Server whose section its table is in instead of the one who placed it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ServiceBenchmark {
+    
+    /**
+     * The number of Orders made and delivered in each invocation.
+     */
+    public static final int ORDERS = 5000;
+    
+    @Param({"4", "100", "400"})
+    public int servers;
+    
+    @Param({"false", "true"})
+    public boolean sections;
+    
+    private Restaurant restaurant;
+    private List<Server> serverList;
+    private MenuItem burger;
+    private Kitchen kitchen;
+    private DiningRoom diningRoom;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Menu menu = new Menu();
+        burger = new MenuItem("Burger", 850);
+        burger.setIngredientAmount("bun", 1);
+        burger.setIngredientAmount("patty", 1);
+        menu.addItem(burger);
+        restaurant = new Restaurant(menu, servers, null);
+        restaurant.addIngredient("bun", 0, ORDERS * 4);
+        restaurant.addIngredient("patty", 0, ORDERS * 4);
+        for (int i = 1; i <= 8; i++) {
+            restaurant.addCook(new Cook("Cook " + i));
+        }
+        serverList = new ArrayList<>();
+        for (int i = 1; i <= servers; i++) {
+            Server server = new Server("Server " + i);
+            restaurant.addServer(server);
+            serverList.add(server);
+        }
+        if (sections) {
+            for (int i = 0; i < servers; i++) {
+                restaurant.assignSection(serverList.get((i + 1) % servers), i + 1, i + 1);
+            }
+        }
+        restaurant.setOutput(OutputSink.none());
+        kitchen = new Kitchen(restaurant, dish -> 0);
+        diningRoom = new DiningRoom(restaurant);
+        kitchen.start();
+        diningRoom.start();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long serveOrders() throws InterruptedException {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order(restaurant.getTable(i % servers + 1));
+            for (int d = 1; d <= 4; d++) {
+                order.addDish(new OrderDish(d, burger));
+            }
+            serverList.get(i % servers).placeOrder(order);
+        }
+        kitchen.shutdown();
+        diningRoom.shutdown();
+        if (diningRoom.getOrdersDelivered() != ORDERS) {
+            throw new IllegalStateException(diningRoom.getOrdersDelivered() + " of " + ORDERS
+                    + " orders were delivered");
+        }
+        return diningRoom.getMeanPickupNanos();
+    }
+    
+}
@@ -0,0 +1,66 @@
+package restaurant;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a Simulation of a synthetic restaurant through the given number of days of service, with
+ * enough Cooks for its tables and a prep time for each menu item of its own, from 4 to 11 minutes
+ * on average. The score is the wall-clock time for the whole run; after each iteration the
+ * Simulation's summary is printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SimulationBenchmark {
+    
+    @Param({"100"})
+    public int tables;
+    
+    @Param({"365"})
+    public int days;
+    
+    private Simulation simulation;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        SyntheticRestaurant synthetic = new SyntheticRestaurant(tables, 100, 200, 3);
+        Restaurant restaurant = synthetic.newRestaurant();
+        for (int i = restaurant.getCooks().size() + 1; i <= tables / 3; i++) {
+            restaurant.addCook(new Cook(SyntheticRestaurant.cookName(i)));
+        }
+        restaurant.setLatencyRecorder(new LatencyRecorder());
+        simulation = new Simulation(restaurant, 1);
+        for (int i = 0; i < synthetic.getNumItems(); i++) {
+            MenuItem item = restaurant.getMenu().getItem(SyntheticRestaurant.itemName(i));
+            simulation.setPrepTime(item, Simulation.Distribution.logNormal(4 + i % 8, 2));
+        }
+    }
+    
+    @Benchmark
+    public long simulate() {
+        simulation.run(days);
+        return simulation.getActionsRun();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void printSummary() {
+        System.out.println("  " + simulation.getActionsRun() + " actions; " + simulation);
+    }
+    
+}
@@ -0,0 +1,84 @@
+package restaurant;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a SimulationSweep over a grid of twelve staffing Configurations of a synthetic restaurant, on
+ * a ForkJoinPool of one thread and of one thread per core. The score is the time for the whole
+ * sweep, which should shrink in proportion to the number of cores. After each iteration the total
+ * time spent in the runs is printed next to the sweep's own time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SweepBenchmark {
+    
+    /**
+     * The number of threads in the pool, or 0 for one per core.
+     */
+    @Param({"1", "0"})
+    public int threads;
+    
+    @Param({"30"})
+    public int days;
+    
+    private SimulationSweep sweep;
+    private ForkJoinPool pool;
+    private List<SimulationSweep.Result> results;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticRestaurant synthetic = new SyntheticRestaurant(50, 100, 200, 3);
+        sweep = new SimulationSweep(synthetic::newMenu, restaurant -> {
+            for (int i = 0; i < 200; i++) {
+                restaurant.addIngredient(SyntheticRestaurant.ingredientName(i), 0,
+                        SyntheticRestaurant.STARTING_AMOUNT);
+            }
+        });
+        sweep.setDays(days);
+        sweep.setTables(50);
+        sweep.setCooks(8, 12, 16, 20);
+        sweep.setServers(4, 8, 12);
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+    
+    @Benchmark
+    public int sweep() {
+        results = sweep.run(pool);
+        return results.size();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void printRunTime() {
+        long runNanos = 0;
+        for (SimulationSweep.Result result : results) {
+            runNanos += result.getRunNanos();
+        }
+        System.out.println("  " + results.size() + " runs taking " + runNanos / 1_000_000
+                + " ms in all on " + pool.getParallelism() + " threads");
+    }
+    
+}
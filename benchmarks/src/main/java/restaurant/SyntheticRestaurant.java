@@ -0,0 +1,255 @@
+package restaurant;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/**
+ * A SyntheticRestaurant describes a made-up restaurant of a given size for the benchmarks: its
+ * tables, staff, ingredients and menu. It can write the restaurant's input files and build the
+ * Restaurant itself. Every ingredient is stocked far above its threshold, so no dish fails and no
+ * ingredient is reordered.
+ */
+public class SyntheticRestaurant {
+    
+    /**
+     * The number of ingredients each menu item takes.
+     */
+    public static final int INGREDIENTS_PER_ITEM = 4;
+    
+    /**
+     * The amount of each ingredient the restaurant starts with.
+     */
+    public static final int STARTING_AMOUNT = 1 << 28;
+    
+    private final int numTables;
+    private final int numItems;
+    private final int numIngredients;
+    private final int modsPerItem;
+    private final int numCooks;
+    private final int numServers;
+    
+    /**
+     * Creates a new SyntheticRestaurant of the specified size.
+     *
+     * @param numTables      The number of tables
+     * @param numItems       The number of menu items
+     * @param numIngredients The number of ingredients, at least INGREDIENTS_PER_ITEM
+     * @param modsPerItem    The number of mods of each menu item
+     */
+    public SyntheticRestaurant(int numTables, int numItems, int numIngredients, int modsPerItem) {
+        if (numIngredients < INGREDIENTS_PER_ITEM) {
+            throw new IllegalArgumentException("Too few ingredients: " + numIngredients);
+        }
+        this.numTables = numTables;
+        this.numItems = numItems;
+        this.numIngredients = numIngredients;
+        this.modsPerItem = modsPerItem;
+        numCooks = Math.max(2, numTables / 10);
+        numServers = Math.max(2, numTables / 10);
+    }
+    
+    /**
+     * Returns the SyntheticRestaurant with the specified size: "small" (4 tables, 10 menu items, 20
+     * ingredients), "medium" (50, 100, 200) or "large" (500, 1000, 2000).
+     *
+     * @param size The name of the size
+     * @return The SyntheticRestaurant of that size
+     * @throws IllegalArgumentException If the size is not one of the names above
+     */
+    public static SyntheticRestaurant ofSize(String size) {
+        switch (size) {
+            case "small":
+                return new SyntheticRestaurant(4, 10, 20, 2);
+            case "medium":
+                return new SyntheticRestaurant(50, 100, 200, 4);
+            case "large":
+                return new SyntheticRestaurant(500, 1000, 2000, 8);
+            default:
+                throw new IllegalArgumentException("Unknown size: " + size);
+        }
+    }
+    
+    public int getNumTables() {
+        return numTables;
+    }
+    
+    public int getNumItems() {
+        return numItems;
+    }
+    
+    public int getModsPerItem() {
+        return modsPerItem;
+    }
+    
+    public static String ingredientName(int index) {
+        return "ingredient " + index;
+    }
+    
+    public static String itemName(int index) {
+        return "Item " + index;
+    }
+    
+    public static String modName(int index) {
+        return "Mod " + index;
+    }
+    
+    public static String cookName(int index) {
+        return "Cook " + index;
+    }
+    
+    public static String serverName(int index) {
+        return "Server " + index;
+    }
+    
+    /**
+     * Returns the contents of ingredients.txt for this restaurant.
+     *
+     * @return The contents of ingredients.txt
+     */
+    public String ingredientsText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numIngredients; i++) {
+            text.append(ingredientName(i)).append("\nThreshold: 0\nStarting: ")
+                    .append(STARTING_AMOUNT).append("\n\n");
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Returns the contents of menu.txt for this restaurant. Each menu item takes one of each of
+     * INGREDIENTS_PER_ITEM different ingredients, and each of its mods adds one more ingredient.
+     *
+     * @return The contents of menu.txt
+     */
+    public String menuText() {
+        StringBuilder text = new StringBuilder();
+        int stride = numIngredients / INGREDIENTS_PER_ITEM;
+        for (int i = 0; i < numItems; i++) {
+            text.append(itemName(i)).append('\n');
+            Money.append(text, 500 + i * 25 % 2000).append('\n');
+            for (int k = 0; k < INGREDIENTS_PER_ITEM; k++) {
+                text.append("1 ").append(ingredientName((i + k * stride) % numIngredients)).append('\n');
+            }
+            for (int m = 0; m < modsPerItem; m++) {
+                text.append("Mod\n").append(modName(m)).append("\nChanges\n1 ")
+                        .append(ingredientName((i + m + 1) % numIngredients)).append('\n');
+                Money.append(text, 25 * (m + 1)).append('\n');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Returns a new Menu read from this restaurant's menu.txt.
+     *
+     * @return A new Menu for this restaurant
+     */
+    public Menu newMenu() {
+        Menu menu = new Menu();
+        int badLineNum = Phase1.readMenu(new Scanner(menuText()), menu);
+        if (badLineNum > 0) {
+            throw new IllegalStateException("Bad menu.txt line " + badLineNum);
+        }
+        return menu;
+    }
+    
+    /**
+     * Returns a new Restaurant with this restaurant's tables, staff, ingredients and menu, whose
+     * messages go to a null OutputSink and whose ingredient requests are discarded.
+     *
+     * @return A new Restaurant
+     */
+    public Restaurant newRestaurant() {
+        Restaurant restaurant = new Restaurant(newMenu(), numTables, null);
+        restaurant.setOutput(OutputSink.none());
+        for (int i = 0; i < numIngredients; i++) {
+            restaurant.addIngredient(ingredientName(i), 0, STARTING_AMOUNT);
+        }
+        for (int i = 1; i <= numCooks; i++) {
+            restaurant.addCook(new Cook(cookName(i)));
+        }
+        for (int i = 1; i <= numServers; i++) {
+            restaurant.addServer(new Server(serverName(i)));
+        }
+        restaurant.addManager(new Manager("Manager"));
+        restaurant.addReceiver(new Receiver("Receiver"));
+        return restaurant;
+    }
+    
+    /**
+     * Returns a new Order in the specified Restaurant, which must have been made by newRestaurant.
+     * Which menu items are ordered and how many mods they have depends on the seed.
+     *
+     * @param restaurant The Restaurant
+     * @param seed       Any number, which picks the table and dishes
+     * @param numDishes  The number of dishes in the Order
+     * @return A new Order
+     */
+    public Order newOrder(Restaurant restaurant, int seed, int numDishes) {
+        Menu menu = restaurant.getMenu();
+        Order order = new Order(restaurant.getTable(Math.floorMod(seed, numTables) + 1));
+        for (int d = 1; d <= numDishes; d++) {
+            MenuItem item = menu.getItem(itemName(Math.floorMod(seed + d, numItems)));
+            OrderDish dish = new OrderDish(d, item);
+            for (int m = 0; m < (seed + d) % (modsPerItem + 1); m++) {
+                dish.addMod(item.getMod(modName(m)));
+            }
+            order.addDish(dish);
+        }
+        return order;
+    }
+    
+    /**
+     * Writes an events.txt for this restaurant in which each Order is placed, seen, filled, delivered
+     * with one dish in five rejected, and paid for, with an ingredient delivery every ten Orders.
+     *
+     * @param file      The file to write
+     * @param numOrders The number of Orders
+     * @param numDishes The number of dishes in each Order
+     * @return The number of lines written
+     * @throws IOException If the file could not be written
+     */
+    public int writeEvents(Path file, int numOrders, int numDishes) throws IOException {
+        int lines = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 1; i <= numOrders; i++) {
+                int table = i % numTables + 1;
+                String server = serverName(i % numServers + 1);
+                String cook = cookName(i % numCooks + 1);
+                StringBuilder dishIDs = new StringBuilder();
+                out.write("Order " + i + "\nTable: " + table + "\nServer: " + server + "\n");
+                lines += 4;
+                for (int d = 1; d <= numDishes; d++) {
+                    out.write("Dish " + d + "\n" + itemName((i + d) % numItems) + "\n");
+                    lines += 2;
+                    for (int m = 0; m < (i + d) % (modsPerItem + 1); m++) {
+                        out.write(modName(m) + "\n");
+                        lines++;
+                    }
+                    dishIDs.append(d == 1 ? "" : ", ").append(d);
+                }
+                out.write("\nSeen\nCook: " + cook + "\nOrder: " + i + "\nDishes: " + dishIDs + "\n");
+                out.write("\nFilled\nCook: " + cook + "\nOrder: " + i + "\nDishes: " + dishIDs + "\n");
+                out.write("\nDelivered\nServer: " + server + "\nOrder: " + i + "\n");
+                lines += 13;
+                if (i % 5 == 0) {
+                    out.write("Rejected: 1\n");
+                    lines++;
+                }
+                out.write("\nPaid\nTable: " + table + "\n\n");
+                lines += 4;
+                if (i % 10 == 0) {
+                    out.write("Received\nReceiver: Receiver\n10 " + ingredientName(i % numIngredients)
+                            + "\n10 " + ingredientName((i + 1) % numIngredients) + "\n\n");
+                    lines += 5;
+                }
+            }
+        }
+        return lines;
+    }
+    
+}
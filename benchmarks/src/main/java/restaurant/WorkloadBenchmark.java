@@ -0,0 +1,88 @@
+package restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading and replaying a generated workload at 1, 10 and 100 times the scale-1 volume.
+ * Unlike the SyntheticRestaurant events, these have interleaved Orders, Cooks sharing Orders,
+ * rejected dishes, inventory checks and ingredient deliveries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class WorkloadBenchmark {
+    
+    @Param({"1", "10", "100"})
+    public int scale;
+    
+    @Param({"1"})
+    public long seed;
+    
+    private WorkloadGenerator generator;
+    private Path dir;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generator = WorkloadGenerator.atScale(scale, seed);
+        dir = Files.createTempDirectory("workload");
+        generator.writeTo(dir);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        String[] names = {"restaurant.txt", "ingredients.txt", "menu.txt", "events.txt"};
+        for (String name : names) {
+            Files.delete(dir.resolve(name));
+        }
+        Files.delete(dir);
+    }
+    
+    @Benchmark
+    public void readEvents(Blackhole blackhole) throws IOException {
+        try (EventReader reader = new EventReader(dir.resolve("events.txt"))) {
+            Event event = reader.next();
+            while (event != null) {
+                blackhole.consume(event);
+                event = reader.next();
+            }
+        }
+    }
+    
+    /**
+     * Reads and applies every event to a new Restaurant, including building the Restaurant.
+     */
+    @Benchmark
+    public Restaurant replayEvents() throws IOException {
+        Restaurant restaurant = generator.newRestaurant();
+        EventApplier applier = new EventApplier(restaurant);
+        try (EventReader reader = new EventReader(dir.resolve("events.txt"))) {
+            Event event = reader.next();
+            while (event != null) {
+                applier.apply(event);
+                event = reader.next();
+            }
+        }
+        return restaurant;
+    }
+    
+}
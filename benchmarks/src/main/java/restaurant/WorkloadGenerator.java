@@ -0,0 +1,627 @@
+package restaurant;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.IntFunction;
+
+/**
+ * A WorkloadGenerator writes a complete, valid set of input files for Phase1 (restaurant.txt,
+ * ingredients.txt, menu.txt and events.txt) from a seed. The same seed and settings always give the
+ * same files.
+ *
+ * <p>The events come from a small simulation in minutes: Orders arrive at random at the arrival
+ * rate, and each Order's dishes are split between one or two Cooks who see them, fill them some
+ * time later, and then the Server delivers the Order and its Table pays. Events from different
+ * Orders interleave, more so at higher arrival rates. The generator keeps track of the inventory,
+ * so every Filled event has the ingredients it needs: ingredients that fall below their threshold
+ * are received a while later, and if a dish would need more than is in stock a delivery is
+ * received just before it.
+ *
+ * <p>It can also be run from the command line:
+ * {@code WorkloadGenerator <directory> [--seed <n>] [--scale <n>] [--orders <n>]}.
+ */
+public class WorkloadGenerator {
+    
+    /**
+     * The amount of an ingredient received after it falls below its threshold, the same amount that
+     * is requested in requests.txt.
+     */
+    public static final int REORDER_AMOUNT = ReorderJournal.DEFAULT_QUANTITY;
+    
+    private static final double SEE_MINUTES = 1;
+    private static final double PREP_MINUTES = 8;
+    private static final double DELIVER_MINUTES = 1;
+    private static final double EAT_MINUTES = 20;
+    private static final double RESTOCK_MINUTES = 15;
+    private static final double CHECK_MINUTES = 60;
+    private static final double MOD_CHANCE = 0.3;
+    private static final double REJECT_CHANCE = 0.05;
+    
+    private final long seed;
+    private int numTables = 20;
+    private int numCooks = 4;
+    private int numServers = 4;
+    private int numManagers = 1;
+    private int numReceivers = 1;
+    private int numItems = 30;
+    private int modsPerItem = 3;
+    private int numIngredients = 40;
+    private int ingredientsPerItem = 4;
+    private int numOrders = 1000;
+    private int maxDishesPerOrder = 6;
+    private double ordersPerMinute = 2;
+    
+    //The restaurant made from the seed
+    private int[] thresholds;
+    private int[] startingAmounts;
+    private int[][] itemIngredients;
+    private int[][] itemAmounts;
+    private long[] itemPrices;
+    private int[][] modIngredients;
+    private int[][] modChanges;
+    private long[][] modPrices;
+    
+    //The state of the simulation while events.txt is written
+    private Random random;
+    private Writer out;
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(
+            Comparator.comparingDouble((Pending p) -> p.time).thenComparingLong(p -> p.seq));
+    private long nextSeq;
+    private double now;
+    private int ordersPlaced;
+    private long eventsWritten;
+    private int[] stock;
+    private boolean[] restocking;
+    
+    /**
+     * Creates a new WorkloadGenerator with the specified seed and the settings of scale 1: 20
+     * tables, 4 Cooks, 4 Servers, 30 menu items with 3 mods each, 40 ingredients, and 1000 Orders
+     * of up to 6 dishes arriving 2 a minute.
+     *
+     * @param seed The seed that everything generated depends on
+     */
+    public WorkloadGenerator(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Returns a new WorkloadGenerator with the specified seed whose tables, staff, menu,
+     * ingredients, Orders and arrival rate are the specified multiple of those at scale 1.
+     *
+     * @param scale The multiple of scale 1
+     * @param seed  The seed that everything generated depends on
+     * @return A new WorkloadGenerator
+     */
+    public static WorkloadGenerator atScale(int scale, long seed) {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be at least 1: " + scale);
+        }
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        generator.setTables(20 * scale);
+        generator.setStaff(4 * scale, 4 * scale, Math.max(1, scale / 10), Math.max(1, scale / 10));
+        generator.setMenu(30 * scale, 3, 40 * scale, 4);
+        generator.setOrders(1000 * scale, 6, 2.0 * scale);
+        return generator;
+    }
+    
+    public void setTables(int numTables) {
+        this.numTables = atLeastOne(numTables, "tables");
+    }
+    
+    public void setStaff(int numCooks, int numServers, int numManagers, int numReceivers) {
+        this.numCooks = atLeastOne(numCooks, "cooks");
+        this.numServers = atLeastOne(numServers, "servers");
+        this.numManagers = atLeastOne(numManagers, "managers");
+        this.numReceivers = atLeastOne(numReceivers, "receivers");
+    }
+    
+    /**
+     * Sets the size of the menu. Each menu item takes ingredientsPerItem different ingredients and
+     * each of its mods changes one of those or adds a different one, so ingredientsPerItem and
+     * modsPerItem together must be at most the number of ingredients.
+     *
+     * @param numItems           The number of menu items
+     * @param modsPerItem        The number of mods of each menu item, at most 30
+     * @param numIngredients     The number of ingredients
+     * @param ingredientsPerItem The number of ingredients each menu item takes
+     */
+    public void setMenu(int numItems, int modsPerItem, int numIngredients, int ingredientsPerItem) {
+        if (modsPerItem < 0 || modsPerItem > 30
+                || ingredientsPerItem + modsPerItem > numIngredients) {
+            throw new IllegalArgumentException("Bad menu: " + modsPerItem + " mods and "
+                    + ingredientsPerItem + " ingredients per item out of " + numIngredients);
+        }
+        this.numItems = atLeastOne(numItems, "menu items");
+        this.modsPerItem = modsPerItem;
+        this.numIngredients = atLeastOne(numIngredients, "ingredients");
+        this.ingredientsPerItem = atLeastOne(ingredientsPerItem, "ingredients per item");
+    }
+    
+    /**
+     * Sets the Orders placed in events.txt.
+     *
+     * @param numOrders         The number of Orders
+     * @param maxDishesPerOrder The largest number of dishes in an Order
+     * @param ordersPerMinute   The mean number of Orders that arrive each minute
+     */
+    public void setOrders(int numOrders, int maxDishesPerOrder, double ordersPerMinute) {
+        if (!(ordersPerMinute > 0)) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + ordersPerMinute);
+        }
+        this.numOrders = atLeastOne(numOrders, "orders");
+        this.maxDishesPerOrder = atLeastOne(maxDishesPerOrder, "dishes per order");
+        this.ordersPerMinute = ordersPerMinute;
+    }
+    
+    public int getNumOrders() {
+        return numOrders;
+    }
+    
+    private static int atLeastOne(int value, String what) {
+        if (value < 1) {
+            throw new IllegalArgumentException("Need at least one of " + what + ": " + value);
+        }
+        return value;
+    }
+    
+    public static String managerName(int index) {
+        return "Manager " + index;
+    }
+    
+    public static String receiverName(int index) {
+        return "Receiver " + index;
+    }
+    
+    /**
+     * Writes restaurant.txt, ingredients.txt, menu.txt and events.txt to the specified directory,
+     * replacing any that are there.
+     *
+     * @param dir The directory to write to, which must exist
+     * @return The number of events written to events.txt
+     * @throws IOException If a file could not be written
+     */
+    public long writeTo(Path dir) throws IOException {
+        random = new Random(seed);
+        makeRestaurant();
+        Files.writeString(dir.resolve("restaurant.txt"), restaurantText());
+        Files.writeString(dir.resolve("ingredients.txt"), ingredientsText());
+        Files.writeString(dir.resolve("menu.txt"), menuText());
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("events.txt"))) {
+            out = writer;
+            writeEvents();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out = null;
+        }
+        return eventsWritten;
+    }
+    
+    /**
+     * Returns a new Restaurant made from the files writeTo writes, whose messages go to a null
+     * OutputSink and whose ingredient requests are discarded.
+     *
+     * @return A new Restaurant
+     */
+    public Restaurant newRestaurant() {
+        random = new Random(seed);
+        makeRestaurant();
+        Menu menu = new Menu();
+        int badLineNum = Phase1.readMenu(new Scanner(menuText()), menu);
+        if (badLineNum > 0) {
+            throw new IllegalStateException("Bad menu.txt line " + badLineNum);
+        }
+        Restaurant restaurant = new Restaurant(menu, numTables, null);
+        restaurant.setOutput(OutputSink.none());
+        for (int i = 0; i < numIngredients; i++) {
+            restaurant.addIngredient(SyntheticRestaurant.ingredientName(i), thresholds[i],
+                    startingAmounts[i]);
+        }
+        for (int i = 1; i <= numCooks; i++) {
+            restaurant.addCook(new Cook(SyntheticRestaurant.cookName(i)));
+        }
+        for (int i = 1; i <= numServers; i++) {
+            restaurant.addServer(new Server(SyntheticRestaurant.serverName(i)));
+        }
+        for (int i = 1; i <= numManagers; i++) {
+            restaurant.addManager(new Manager(managerName(i)));
+        }
+        for (int i = 1; i <= numReceivers; i++) {
+            restaurant.addReceiver(new Receiver(receiverName(i)));
+        }
+        return restaurant;
+    }
+    
+    /**
+     * Picks the ingredients' thresholds and starting amounts and the menu items' recipes, mods and
+     * prices.
+     */
+    private void makeRestaurant() {
+        thresholds = new int[numIngredients];
+        startingAmounts = new int[numIngredients];
+        for (int i = 0; i < numIngredients; i++) {
+            thresholds[i] = 5 + random.nextInt(16);
+            startingAmounts[i] = thresholds[i] * (2 + random.nextInt(4));
+        }
+        itemIngredients = new int[numItems][];
+        itemAmounts = new int[numItems][ingredientsPerItem];
+        itemPrices = new long[numItems];
+        modIngredients = new int[numItems][];
+        modChanges = new int[numItems][modsPerItem];
+        modPrices = new long[numItems][modsPerItem];
+        for (int i = 0; i < numItems; i++) {
+            int[] ingredients = pickDistinct(ingredientsPerItem + modsPerItem);
+            itemIngredients[i] = Arrays.copyOf(ingredients, ingredientsPerItem);
+            for (int k = 0; k < ingredientsPerItem; k++) {
+                itemAmounts[i][k] = 1 + random.nextInt(3);
+            }
+            itemPrices[i] = 300 + 25 * random.nextInt(89);
+            //A mod either adds one of an ingredient the item does not take or removes one of the
+            //item's own, and no two mods of an item change the same ingredient
+            modIngredients[i] = new int[modsPerItem];
+            for (int m = 0; m < modsPerItem; m++) {
+                if (random.nextBoolean() && m < ingredientsPerItem) {
+                    modIngredients[i][m] = itemIngredients[i][m];
+                    modChanges[i][m] = -1;
+                    modPrices[i][m] = -25 * (1 + random.nextInt(3));
+                } else {
+                    modIngredients[i][m] = ingredients[ingredientsPerItem + m];
+                    modChanges[i][m] = 1;
+                    modPrices[i][m] = 25 * (2 + random.nextInt(7));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns count different ingredient ids.
+     */
+    private int[] pickDistinct(int count) {
+        int[] ids = new int[numIngredients];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(ids.length - i);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+    
+    private String modName(int item, int mod) {
+        return (modChanges[item][mod] > 0 ? "Extra " : "No ")
+                + SyntheticRestaurant.ingredientName(modIngredients[item][mod]);
+    }
+    
+    private String restaurantText() {
+        StringBuilder text = new StringBuilder();
+        text.append("Tables: ").append(numTables).append('\n');
+        appendNames(text.append("Cooks: "), SyntheticRestaurant::cookName, numCooks);
+        appendNames(text.append("Servers: "), SyntheticRestaurant::serverName, numServers);
+        appendNames(text.append("Managers: "), WorkloadGenerator::managerName, numManagers);
+        appendNames(text.append("Receivers: "), WorkloadGenerator::receiverName, numReceivers);
+        return text.append('\n').toString();
+    }
+    
+    private static void appendNames(StringBuilder text, IntFunction<String> name, int count) {
+        for (int i = 1; i <= count; i++) {
+            text.append(i == 1 ? "" : ", ").append(name.apply(i));
+        }
+        text.append('\n');
+    }
+    
+    private String ingredientsText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numIngredients; i++) {
+            text.append(SyntheticRestaurant.ingredientName(i))
+                    .append("\nThreshold: ").append(thresholds[i])
+                    .append("\nStarting: ").append(startingAmounts[i]).append("\n\n");
+        }
+        return text.toString();
+    }
+    
+    private String menuText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numItems; i++) {
+            text.append(SyntheticRestaurant.itemName(i)).append('\n');
+            Money.append(text, itemPrices[i]).append('\n');
+            for (int k = 0; k < ingredientsPerItem; k++) {
+                String ingredient = SyntheticRestaurant.ingredientName(itemIngredients[i][k]);
+                text.append(itemAmounts[i][k]).append(' ').append(ingredient).append('\n');
+            }
+            for (int m = 0; m < modsPerItem; m++) {
+                String ingredient = SyntheticRestaurant.ingredientName(modIngredients[i][m]);
+                text.append("Mod\n").append(modName(i, m)).append("\nChanges\n")
+                        .append(modChanges[i][m]).append(' ').append(ingredient).append('\n');
+                Money.append(text, modPrices[i][m]).append('\n');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+    
+    private void writeEvents() {
+        pending.clear();
+        nextSeq = 0;
+        now = 0;
+        ordersPlaced = 0;
+        eventsWritten = 0;
+        stock = startingAmounts.clone();
+        restocking = new boolean[numIngredients];
+        schedule(exponential(1 / ordersPerMinute), this::arrive);
+        schedule(CHECK_MINUTES, this::check);
+        while (!pending.isEmpty()) {
+            Pending next = pending.poll();
+            now = next.time;
+            next.action.run();
+        }
+    }
+    
+    private void schedule(double delay, Runnable action) {
+        pending.add(new Pending(now + delay, nextSeq++, action));
+    }
+    
+    private double exponential(double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+    
+    private void arrive() {
+        GeneratedOrder order = new GeneratedOrder(++ordersPlaced, 1 + random.nextInt(numTables),
+                SyntheticRestaurant.serverName(1 + random.nextInt(numServers)),
+                1 + random.nextInt(maxDishesPerOrder));
+        StringBuilder block = new StringBuilder();
+        block.append("Order ").append(order.number)
+                .append("\nTable: ").append(order.table)
+                .append("\nServer: ").append(order.server).append('\n');
+        for (int d = 0; d < order.items.length; d++) {
+            int item = random.nextInt(numItems);
+            order.items[d] = item;
+            block.append("Dish ").append(d + 1).append('\n')
+                    .append(SyntheticRestaurant.itemName(item)).append('\n');
+            for (int m = 0; m < modsPerItem; m++) {
+                if (random.nextDouble() < MOD_CHANCE) {
+                    order.mods[d] |= 1 << m;
+                    block.append(modName(item, m)).append('\n');
+                }
+            }
+        }
+        write(block);
+        //Split the dishes between one or two Cooks
+        int[] ids = new int[order.items.length];
+        for (int d = 0; d < ids.length; d++) {
+            ids[d] = d + 1;
+        }
+        shuffle(ids);
+        int split = ids.length;
+        if (ids.length > 1 && random.nextBoolean()) {
+            split = 1 + random.nextInt(ids.length - 1);
+        }
+        see(order, Arrays.copyOfRange(ids, 0, split));
+        if (split < ids.length) {
+            see(order, Arrays.copyOfRange(ids, split, ids.length));
+        }
+        if (ordersPlaced < numOrders) {
+            schedule(exponential(1 / ordersPerMinute), this::arrive);
+        }
+    }
+    
+    private void see(GeneratedOrder order, int[] dishIDs) {
+        order.groupsLeft++;
+        String cook = SyntheticRestaurant.cookName(1 + random.nextInt(numCooks));
+        schedule(exponential(SEE_MINUTES), () -> {
+            write(dishesBlock("Seen", cook, order.number, dishIDs));
+            schedule(exponential(PREP_MINUTES), () -> fill(order, cook, dishIDs));
+        });
+    }
+    
+    private void fill(GeneratedOrder order, String cook, int[] dishIDs) {
+        int[] needed = new int[numIngredients];
+        for (int id : dishIDs) {
+            int item = order.items[id - 1];
+            for (int k = 0; k < ingredientsPerItem; k++) {
+                needed[itemIngredients[item][k]] += itemAmounts[item][k];
+            }
+            for (int m = 0; m < modsPerItem; m++) {
+                if ((order.mods[id - 1] & 1 << m) != 0) {
+                    needed[modIngredients[item][m]] += modChanges[item][m];
+                }
+            }
+        }
+        //Receive anything there is not enough of before the dishes are made
+        StringBuilder received = null;
+        for (int i = 0; i < numIngredients; i++) {
+            if (needed[i] > stock[i]) {
+                if (received == null) {
+                    received = receivedBlock();
+                }
+                int amount = needed[i] - stock[i] + REORDER_AMOUNT;
+                stock[i] += amount;
+                received.append(amount).append(' ').append(SyntheticRestaurant.ingredientName(i))
+                        .append('\n');
+            }
+        }
+        if (received != null) {
+            write(received);
+        }
+        shuffle(dishIDs);
+        write(dishesBlock("Filled", cook, order.number, dishIDs));
+        for (int i = 0; i < numIngredients; i++) {
+            stock[i] -= needed[i];
+            if (needed[i] > 0 && stock[i] < thresholds[i] && !restocking[i]) {
+                restocking[i] = true;
+                int ingredient = i;
+                schedule(exponential(RESTOCK_MINUTES), () -> restock(ingredient));
+            }
+        }
+        if (--order.groupsLeft == 0) {
+            schedule(exponential(DELIVER_MINUTES), () -> deliver(order));
+        }
+    }
+    
+    private void restock(int ingredient) {
+        restocking[ingredient] = false;
+        stock[ingredient] += REORDER_AMOUNT;
+        write(receivedBlock().append(REORDER_AMOUNT).append(' ')
+                .append(SyntheticRestaurant.ingredientName(ingredient)).append('\n'));
+    }
+    
+    private void deliver(GeneratedOrder order) {
+        StringBuilder block = new StringBuilder();
+        block.append("Delivered\nServer: ").append(order.server)
+                .append("\nOrder: ").append(order.number).append('\n');
+        String separator = "Rejected: ";
+        for (int d = 1; d <= order.items.length; d++) {
+            if (random.nextDouble() < REJECT_CHANCE) {
+                block.append(separator).append(d);
+                separator = ", ";
+            }
+        }
+        if (separator.equals(", ")) {
+            block.append('\n');
+        }
+        write(block);
+        schedule(exponential(EAT_MINUTES), () -> write(new StringBuilder("Paid\nTable: ")
+                .append(order.table).append('\n')));
+    }
+    
+    private void check() {
+        write(new StringBuilder("Checked\nManager: ")
+                .append(managerName(1 + random.nextInt(numManagers))).append('\n'));
+        if (ordersPlaced < numOrders) {
+            schedule(CHECK_MINUTES, this::check);
+        }
+    }
+    
+    private StringBuilder receivedBlock() {
+        return new StringBuilder("Received\nReceiver: ")
+                .append(receiverName(1 + random.nextInt(numReceivers))).append('\n');
+    }
+    
+    private static StringBuilder dishesBlock(String type, String cook, int order, int[] dishIDs) {
+        StringBuilder block = new StringBuilder();
+        block.append(type).append("\nCook: ").append(cook).append("\nOrder: ").append(order)
+                .append("\nDishes: ");
+        for (int i = 0; i < dishIDs.length; i++) {
+            block.append(i == 0 ? "" : ", ").append(dishIDs[i]);
+        }
+        return block.append('\n');
+    }
+    
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+    
+    /**
+     * Writes an event's block and the blank line that ends it.
+     */
+    private void write(CharSequence block) {
+        try {
+            out.append(block).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        eventsWritten++;
+    }
+    
+    /**
+     * Writes a workload to a directory.
+     *
+     * @param args The directory, optionally followed by "--seed", "--scale" and "--orders" and
+     *             their values
+     * @throws IOException If a file could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length % 2 != 1) {
+            System.out.println("Usage: WorkloadGenerator <directory> [--seed <n>] [--scale <n>]"
+                    + " [--orders <n>]");
+            return;
+        }
+        long seed = 1;
+        int scale = 1;
+        int orders = 0;
+        for (int i = 1; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--scale":
+                    scale = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--orders":
+                    orders = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+        WorkloadGenerator generator = atScale(scale, seed);
+        if (orders > 0) {
+            generator.setOrders(orders, generator.maxDishesPerOrder, generator.ordersPerMinute);
+        }
+        Path dir = Paths.get(args[0]);
+        Files.createDirectories(dir);
+        long events = generator.writeTo(dir);
+        System.out.println("Wrote " + generator.getNumOrders() + " orders and " + events
+                + " events to " + dir.toAbsolutePath());
+    }
+    
+    /**
+     * Something that happens at a time in the simulation. Events at the same time happen in the
+     * order they were scheduled.
+     */
+    private static class Pending {
+        
+        private final double time;
+        private final long seq;
+        private final Runnable action;
+        
+        private Pending(double time, long seq, Runnable action) {
+            this.time = time;
+            this.seq = seq;
+            this.action = action;
+        }
+        
+    }
+    
+    /**
+     * An Order as it was generated: the dishes' menu items and mods, and how many groups of its
+     * dishes have still to be filled before it can be delivered.
+     */
+    private static class GeneratedOrder {
+        
+        private final int number;
+        private final int table;
+        private final String server;
+        private final int[] items;
+        private final int[] mods;
+        private int groupsLeft = 0;
+        
+        private GeneratedOrder(int number, int table, String server, int numDishes) {
+            this.number = number;
+            this.table = table;
+            this.server = server;
+            items = new int[numDishes];
+            mods = new int[numDishes];
+        }
+        
+    }
+    
+}